@@ -0,0 +1,93 @@
+package frc.robot.extras.simulation.mechanismSim.swerve;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Robot;
+import frc.robot.extras.simulation.field.CrescendoFieldSimulation;
+import frc.robot.extras.simulation.field.SimulatedField;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks one robot period of an arena with a swerve drive in it, updating the modules one at a
+ * time with the original per-module model, and all at once with {@link
+ * SwerveModuleArraySimulation}.
+ */
+@State(Scope.Thread)
+public class SwerveDriveSimulationBenchmark {
+  private static final Pose2d STARTING_POSE = new Pose2d(8, 4, new Rotation2d());
+  /* the drive voltage flips every this many periods, so the robot never reaches a wall */
+  private static final int PERIODS_PER_DIRECTION = 25;
+
+  @Param({"5", "20", "50"})
+  public int subTicksPerPeriod;
+
+  private SimulatedField oneByOneArena, batchedArena;
+  private SwerveDriveSimulation oneByOneDriveSimulation, batchedDriveSimulation;
+  private int periods;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    HAL.initialize(500, 0);
+    oneByOneArena = new CrescendoFieldSimulation(Robot.defaultPeriodSecs, subTicksPerPeriod, 0);
+    batchedArena = new CrescendoFieldSimulation(Robot.defaultPeriodSecs, subTicksPerPeriod, 0);
+    oneByOneDriveSimulation = createDriveSimulation(oneByOneArena);
+    oneByOneDriveSimulation.setBatchedModuleSimulation(false);
+    batchedDriveSimulation = createDriveSimulation(batchedArena);
+  }
+
+  private static SwerveDriveSimulation createDriveSimulation(SimulatedField arena) {
+    final SwerveDriveSimulation driveSimulation =
+        new SwerveDriveSimulation(
+            SimulationConstants.ROBOT_MASS_KG,
+            DriveConstants.TRACK_WIDTH,
+            DriveConstants.WHEEL_BASE,
+            SimulationConstants.BUMPER_WIDTH_METERS,
+            SimulationConstants.BUMPER_LENGTH_METERS,
+            SwerveModuleSimulation.getModule(
+                SimulationConstants.DRIVE_MOTOR,
+                SimulationConstants.STEER_MOTOR,
+                SimulationConstants.DRIVE_CURRENT_LIMIT,
+                SwerveModuleSimulation.DRIVE_WHEEL_TYPE.TIRE,
+                SimulationConstants.DRIVE_GEAR_RATIO),
+            GyroSimulation.createPigeon2(),
+            STARTING_POSE);
+    arena.addDriveTrainSimulation(driveSimulation);
+    return driveSimulation;
+  }
+
+  private void requestVoltages(SwerveDriveSimulation driveSimulation) {
+    final double driveVolts = (periods / PERIODS_PER_DIRECTION) % 2 == 0 ? 6.0 : -6.0;
+    for (SwerveModuleSimulation module : driveSimulation.getModules()) {
+      module.requestDriveVoltageOut(driveVolts);
+      module.requestTurnVoltageOut(1.0);
+    }
+    periods++;
+  }
+
+  /**
+   * The modules stepped one at a time, with a {@link BrushlessMotorSim} per turn motor and the
+   * {@link edu.wpi.first.math.system.plant.DCMotor} equations for the drive motors, as they were
+   * before {@link SwerveModuleArraySimulation}.
+   */
+  @Benchmark
+  public SimulatedField oneByOne() {
+    requestVoltages(oneByOneDriveSimulation);
+    oneByOneArena.simulationPeriodic();
+    return oneByOneArena;
+  }
+
+  @Benchmark
+  public SimulatedField batched() {
+    requestVoltages(batchedDriveSimulation);
+    batchedArena.simulationPeriodic();
+    return batchedArena;
+  }
+}
@@ -0,0 +1,43 @@
+package frc.robot.extras.vision;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import frc.robot.extras.vision.LimelightHelpers.LimelightResults;
+import frc.robot.extras.vision.LimelightResultsDecoder.FiducialResults;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks decoding a recorded Limelight JSON dump with two fiducials. */
+@State(Scope.Thread)
+public class LimelightJsonBenchmark {
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  private final LimelightResultsDecoder decoder = new LimelightResultsDecoder();
+  private final FiducialResults results = new FiducialResults();
+  private String json;
+
+  @Setup
+  public void loadDump() throws IOException {
+    // The recorded dump is shared with the unit tests
+    try (InputStream stream = getClass().getResourceAsStream("/limelight-results.json")) {
+      json = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /** What {@link LimelightHelpers#getLatestResults} does with every dump. */
+  @Benchmark
+  public LimelightResults objectMapper() throws IOException {
+    return mapper.readValue(json, LimelightResults.class);
+  }
+
+  @Benchmark
+  public FiducialResults streamingDecoder() {
+    decoder.decode(json, results);
+    return results;
+  }
+}
@@ -0,0 +1,28 @@
+package frc.robot.subsystems.swerve;
+
+import frc.robot.extras.simulation.OdometryTimestampsSim;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import frc.robot.subsystems.swerve.gyroIO.GyroInterface;
+
+/** A gyro with no hardware behind it, reporting a robot that rotates at a constant rate. */
+final class FakeGyroIO implements GyroInterface {
+  private static final int SAMPLES_PER_CYCLE = SimulationConstants.SIMULATION_TICKS_IN_1_PERIOD;
+
+  private final double[] timestamps = new double[SAMPLES_PER_CYCLE];
+  private final double[] yawPositionsDegrees = new double[SAMPLES_PER_CYCLE];
+  private double yawDegrees = 0.0;
+
+  @Override
+  public void updateInputs(GyroInputs inputs) {
+    OdometryTimestampsSim.fillTimestamps(timestamps);
+    for (int i = 0; i < SAMPLES_PER_CYCLE; i++) {
+      yawDegrees += 0.2;
+      yawPositionsDegrees[i] = yawDegrees;
+    }
+
+    inputs.isConnected = true;
+    inputs.yawDegrees = yawDegrees;
+    inputs.odometryYawPositionsDegrees = yawPositionsDegrees;
+    inputs.odometryYawTimestamps = timestamps;
+  }
+}
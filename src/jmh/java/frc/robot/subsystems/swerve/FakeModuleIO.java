@@ -0,0 +1,36 @@
+package frc.robot.subsystems.swerve;
+
+import frc.robot.extras.simulation.OdometryTimestampsSim;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import frc.robot.subsystems.swerve.moduleIO.ModuleInterface;
+
+/**
+ * A module with no hardware behind it, reporting a module that drives forward while slowly
+ * turning. Its sample arrays are allocated once, so it adds no garbage to the benchmarks.
+ */
+final class FakeModuleIO implements ModuleInterface {
+  private static final int SAMPLES_PER_CYCLE = SimulationConstants.SIMULATION_TICKS_IN_1_PERIOD;
+
+  private final double[] timestamps = new double[SAMPLES_PER_CYCLE];
+  private final double[] drivePositions = new double[SAMPLES_PER_CYCLE];
+  private final double[] turnPositions = new double[SAMPLES_PER_CYCLE];
+  private double drivePosition = 0.0, turnPosition = 0.0;
+
+  @Override
+  public void updateInputs(ModuleInputs inputs) {
+    OdometryTimestampsSim.fillTimestamps(timestamps);
+    for (int i = 0; i < SAMPLES_PER_CYCLE; i++) {
+      drivePosition += 0.05;
+      turnPosition = Math.IEEEremainder(turnPosition + 0.001, 1.0);
+      drivePositions[i] = drivePosition;
+      turnPositions[i] = turnPosition;
+    }
+
+    inputs.isConnected = true;
+    inputs.drivePosition = drivePosition;
+    inputs.odometryDrivePositions = drivePositions;
+    inputs.odometryDriveTimestamps = timestamps;
+    inputs.odometryTurnPositions = turnPositions;
+    inputs.odometryTurnTimestamps = timestamps;
+  }
+}
@@ -0,0 +1,47 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.hal.HAL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks the per-loop work of {@link SwerveDrive} on top of fake module and gyro IO. */
+@State(Scope.Thread)
+public class SwerveDriveBenchmark {
+  private SwerveDrive swerveDrive;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    HAL.initialize(500, 0);
+    swerveDrive =
+        new SwerveDrive(
+            new FakeGyroIO(),
+            new FakeModuleIO(),
+            new FakeModuleIO(),
+            new FakeModuleIO(),
+            new FakeModuleIO());
+
+    // Fill the pose estimator history, so the benchmarks run in steady state
+    for (int i = 0; i < 100; i++) fetchOdometryInputsAndAddMeasurement();
+  }
+
+  @Benchmark
+  public void drive() {
+    swerveDrive.drive(1.5, 0.5, 1.0, true);
+  }
+
+  /** Re-applies the samples of the last fetched cycle, isolating the pose estimator update. */
+  @Benchmark
+  public void addPoseEstimatorSwerveMeasurement() {
+    swerveDrive.addPoseEstimatorSwerveMeasurement();
+  }
+
+  /** A full odometry cycle: draining and logging the inputs, then updating the estimator. */
+  @Benchmark
+  public void fetchOdometryInputsAndAddMeasurement() {
+    swerveDrive.fetchOdometryInputs();
+    swerveDrive.addPoseEstimatorSwerveMeasurement();
+  }
+}
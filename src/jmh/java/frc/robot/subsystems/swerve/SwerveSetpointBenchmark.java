@@ -0,0 +1,45 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.SwerveConstants.ModuleConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks the kinematics and setpoint math run every loop while driving. */
+@State(Scope.Thread)
+public class SwerveSetpointBenchmark {
+  private final SwerveDriveKinematics kinematics = DriveConstants.DRIVE_KINEMATICS;
+  private final ChassisSpeeds chassisSpeeds = new ChassisSpeeds(1.5, 0.5, 1.0);
+  private final SwerveModuleState desiredState =
+      new SwerveModuleState(2.0, Rotation2d.fromDegrees(135));
+  private final Rotation2d turnAngle = Rotation2d.fromRotations(0.1);
+  private final SwerveModuleState setpoint = new SwerveModuleState();
+
+  @Benchmark
+  public SwerveModuleState[] toSwerveModuleStates() {
+    final SwerveModuleState[] swerveModuleStates = kinematics.toSwerveModuleStates(chassisSpeeds);
+    SwerveDriveKinematics.desaturateWheelSpeeds(
+        swerveModuleStates, DriveConstants.MAX_SPEED_METERS_PER_SECOND);
+    return swerveModuleStates;
+  }
+
+  /** The setpoint math of {@code PhysicalModule.setDesiredState}, without the CAN calls. */
+  @Benchmark
+  public double setDesiredStateSetpointMath() {
+    setpoint.speedMetersPerSecond = desiredState.speedMetersPerSecond;
+    setpoint.angle = desiredState.angle;
+    setpoint.optimize(turnAngle);
+    setpoint.cosineScale(turnAngle);
+
+    final double desiredDriveRPS =
+        setpoint.speedMetersPerSecond
+            * ModuleConstants.DRIVE_GEAR_RATIO
+            / ModuleConstants.WHEEL_CIRCUMFERENCE_METERS;
+    return desiredDriveRPS + setpoint.angle.getRotations();
+  }
+}
@@ -0,0 +1,123 @@
+package frc.robot.subsystems.swerve.poseEstimator;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link SwervePoseEstimator} with the WPILib estimator over one robot loop: five odometry
+ * samples at 250 Hz, then a frame from each of three cameras, captured 60 ms earlier.
+ */
+@State(Scope.Thread)
+public class PoseEstimatorBenchmark {
+  private static final int SAMPLES_PER_LOOP = 5;
+  private static final double SAMPLE_PERIOD_SECONDS = 0.004;
+  private static final double VISION_LATENCY_SECONDS = 0.06;
+  private static final int CAMERAS = 3;
+
+  private final Matrix<N3, N1> visionStandardDeviations = VecBuilder.fill(0.5, 0.5, 0.9);
+
+  private SwerveDrivePoseEstimator wpilibEstimator;
+  private final SwerveModulePosition[] wpilibModulePositions = new SwerveModulePosition[4];
+
+  private SwerveOdometry odometry;
+  private SwervePoseEstimator estimator;
+  private final double[] distancesMeters = new double[4];
+  private final double[] anglesRad = new double[4];
+
+  private double timestampSeconds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    for (int module = 0; module < 4; module++)
+      wpilibModulePositions[module] = new SwerveModulePosition();
+    wpilibEstimator =
+        new SwerveDrivePoseEstimator(
+            DriveConstants.DRIVE_KINEMATICS,
+            new Rotation2d(),
+            wpilibModulePositions,
+            new Pose2d(),
+            VecBuilder.fill(
+                DriveConstants.X_POS_TRUST, DriveConstants.Y_POS_TRUST, DriveConstants.ANGLE_TRUST),
+            visionStandardDeviations);
+
+    odometry = new SwerveOdometry(DriveConstants.MODULE_TRANSLATIONS);
+    odometry.resetPosition(0, 0, 0, 0, distancesMeters);
+    estimator =
+        new SwervePoseEstimator(
+            DriveConstants.X_POS_TRUST,
+            DriveConstants.Y_POS_TRUST,
+            DriveConstants.ANGLE_TRUST,
+            (int) Math.ceil(SwervePoseEstimator.HISTORY_SECONDS / SAMPLE_PERIOD_SECONDS));
+
+    // Fill both histories, so the benchmarks run in steady state
+    timestampSeconds = 0;
+    for (int i = 0; i < 100; i++) wpilibLoop();
+    for (int i = 0; i < 100; i++) primitiveLoop();
+  }
+
+  /** Advances the simulated robot by one sample, driving forwards while turning. */
+  private double advance(int sample) {
+    final double time = timestampSeconds + sample * SAMPLE_PERIOD_SECONDS;
+    for (int module = 0; module < 4; module++) {
+      distancesMeters[module] = time * 2.0;
+      anglesRad[module] = time * 0.5;
+    }
+    return time;
+  }
+
+  @Benchmark
+  public Pose2d wpilibLoop() {
+    for (int sample = 0; sample < SAMPLES_PER_LOOP; sample++) {
+      final double time = advance(sample);
+      for (int module = 0; module < 4; module++) {
+        wpilibModulePositions[module].distanceMeters = distancesMeters[module];
+        wpilibModulePositions[module].angle = new Rotation2d(anglesRad[module]);
+      }
+      wpilibEstimator.updateWithTime(time, new Rotation2d(time * 0.3), wpilibModulePositions);
+    }
+    final double captureTime = timestampSeconds - VISION_LATENCY_SECONDS;
+    for (int camera = 0; camera < CAMERAS; camera++) {
+      wpilibEstimator.addVisionMeasurement(
+          new Pose2d(captureTime * 2.0, 0.1 * camera, new Rotation2d(captureTime * 0.3)),
+          captureTime + camera * 0.001,
+          visionStandardDeviations);
+    }
+    timestampSeconds += SAMPLES_PER_LOOP * SAMPLE_PERIOD_SECONDS;
+    return wpilibEstimator.getEstimatedPosition();
+  }
+
+  @Benchmark
+  public double primitiveLoop() {
+    for (int sample = 0; sample < SAMPLES_PER_LOOP; sample++) {
+      final double time = advance(sample);
+      odometry.update(distancesMeters, anglesRad, time * 0.3);
+      estimator.addOdometrySample(
+          time, odometry.getXMeters(), odometry.getYMeters(), odometry.getHeadingRad());
+    }
+    final double captureTime = timestampSeconds - VISION_LATENCY_SECONDS;
+    for (int camera = 0; camera < CAMERAS; camera++) {
+      estimator.addVisionMeasurement(
+          captureTime + camera * 0.001,
+          captureTime * 2.0,
+          0.1 * camera,
+          captureTime * 0.3,
+          0.5,
+          0.5,
+          0.9);
+    }
+    timestampSeconds += SAMPLES_PER_LOOP * SAMPLE_PERIOD_SECONDS;
+    return estimator.getXMeters();
+  }
+}
@@ -30,6 +30,24 @@ public final class Constants {
 
     public static final double SIGNAL_FREQUENCY = 250;
 
+    /**
+     * The real-time priority of the odometry thread on the RIO bus, from 1 to 99. Set it to 0 to
+     * keep the default, non real-time scheduling.
+     */
+    public static final int ODOMETRY_THREAD_PRIORITY = 1;
+
+    /**
+     * How long before each sampling deadline the odometry thread stops parking and busy-waits, in
+     * seconds. Higher values cost CPU time but make the sampling instants more precise.
+     */
+    public static final double ODOMETRY_SPIN_THRESHOLD_S = 0.0002;
+
+    /**
+     * The fraction of each CAN bus the status signal rates are planned to fill, leaving headroom
+     * for configuration frames and retransmissions.
+     */
+    public static final double CAN_BUS_TARGET_UTILIZATION = 0.7;
+
     public static final String CANIVORE_CAN_BUS_STRING = "canivore 1";
     public static final String RIO_CAN_BUS_STRING = "rio";
 
@@ -10,6 +10,8 @@ package frc.robot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.Constants.Mode;
+import frc.robot.extras.debug.LoopProfiler;
+import frc.robot.extras.util.CANBusBudget;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
 import org.littletonrobotics.junction.networktables.NT4Publisher;
@@ -54,6 +56,10 @@ public class Robot extends LoggedRobot {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+    // Time the scheduler per subsystem and command, once every trigger is bound
+    LoopProfiler.getInstance().bindTo(CommandScheduler.getInstance());
+    // Every device is created by now, so the status signal rates can be planned
+    if (isReal()) CANBusBudget.apply();
     //    uncomment the line below if there is a USB camera plugged into the RoboRIO
     //    CameraServer.startAutomaticCapture();
 
@@ -72,7 +78,10 @@ public class Robot extends LoggedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    LoopProfiler.getInstance().startCycle();
     CommandScheduler.getInstance().run();
+    LoopProfiler.getInstance().endCycle();
+    if (isReal()) CANBusBudget.updateTelemetry();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -2,24 +2,33 @@
 
 package frc.robot.commands.drive;
 
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
-import frc.robot.extras.interpolators.MultiLinearInterpolator;
 import frc.robot.subsystems.swerve.SwerveDrive;
+import frc.robot.subsystems.swerve.VisionMeasurement;
 import frc.robot.subsystems.vision.Vision;
 import frc.robot.subsystems.vision.VisionConstants;
+import frc.robot.subsystems.vision.VisionFilter;
+import frc.robot.subsystems.vision.VisionObservation;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class DriveCommandBase extends Command {
 
-  private final MultiLinearInterpolator oneAprilTagLookupTable =
-      new MultiLinearInterpolator(VisionConstants.ONE_APRIL_TAG_LOOKUP_TABLE);
-  private final MultiLinearInterpolator twoAprilTagLookupTable =
-      new MultiLinearInterpolator(VisionConstants.TWO_APRIL_TAG_LOOKUP_TABLE);
-
   private final Vision vision;
   private final SwerveDrive swerveDrive;
 
-  private double lastTimeStampSeconds = 0;
+  private final VisionFilter visionFilter = VisionFilter.createDefault();
+  private final VisionFilter.Frame visionFrame = new VisionFilter.Frame();
+  private final double[] standardDeviations = new double[3];
+
+  /** The vision measurements of one loop, reused every loop. */
+  private final List<VisionMeasurement> visionMeasurements = new ArrayList<>();
+
+  /**
+   * Every measurement ever handed out, refilled each loop so a frame never allocates one. It only
+   * grows when a loop sees more frames than any loop before it.
+   */
+  private final List<VisionMeasurement> visionMeasurementPool = new ArrayList<>();
 
   /**
    * An abstract class that handles pose estimation while driving.
@@ -40,43 +49,44 @@ public abstract class DriveCommandBase extends Command {
     swerveDrive.addPoseEstimatorSwerveMeasurement();
     vision.setHeadingInfo(
         swerveDrive.getPose().getRotation().getDegrees(), swerveDrive.getGyroRate());
-    calculatePoseFromLimelight(VisionConstants.SHOOTER_LIMELIGHT_NUMBER);
-    calculatePoseFromLimelight(VisionConstants.FRONT_LEFT_LIMELIGHT_NUMBER);
-    calculatePoseFromLimelight(VisionConstants.FRONT_RIGHT_LIMELIGHT_NUMBER);
-  }
-
-  public void calculatePoseFromLimelight(int limelightNumber) {
-    double currentTimeStampSeconds = lastTimeStampSeconds;
-
-    // Updates the robot's odometry with april tags
-    if (vision.canSeeAprilTags(limelightNumber)) {
-      currentTimeStampSeconds = vision.getTimeStampSeconds(limelightNumber);
-
-      double distanceFromClosestAprilTag = vision.getLimelightAprilTagDistance(limelightNumber);
-
-      // Depending on how many april tags we see, we change our confidence as more april tags
-      // results in a much more accurate pose estimate
-      // TODO: check if this is necessary anymore with MT2, also we might want to set the limelight
-      //  so it only uses 1 april tag, if they set up the field wrong (they can set april tags +-1
-      // inch I believe)
-      //  using multiple *could* really mess things up.
-      if (vision.getNumberOfAprilTags(limelightNumber) == 1) {
-        double[] standardDeviations =
-            oneAprilTagLookupTable.getLookupValue(distanceFromClosestAprilTag);
-        swerveDrive.setPoseEstimatorVisionConfidence(
-            standardDeviations[0], standardDeviations[1], standardDeviations[2]);
-      } else if (vision.getNumberOfAprilTags(limelightNumber) > 1) {
-        double[] standardDeviations =
-            twoAprilTagLookupTable.getLookupValue(distanceFromClosestAprilTag);
-        swerveDrive.setPoseEstimatorVisionConfidence(
-            standardDeviations[0], standardDeviations[1], standardDeviations[2]);
+    // Every frame since the last loop is fused in one batch at the time it was captured, so a late
+    // frame from one camera is applied before a newer frame from another one
+    visionMeasurements.clear();
+    // Frames the filter rejects never reach the pose estimator
+    for (VisionObservation observation : vision.getObservations()) {
+      if (isAccepted(observation)) {
+        final int index = visionMeasurements.size();
+        if (index == visionMeasurementPool.size()) {
+          visionMeasurementPool.add(new VisionMeasurement());
+        }
+        visionMeasurements.add(
+            visionMeasurementPool
+                .get(index)
+                .set(
+                    observation.pose(),
+                    observation.captureTimestampSeconds(),
+                    visionFrame.xStandardDeviation,
+                    visionFrame.yStandardDeviation,
+                    visionFrame.thetaStandardDeviation));
       }
-
-      swerveDrive.addPoseEstimatorVisionMeasurement(
-          vision.getPoseFromAprilTags(limelightNumber),
-          Timer.getFPGATimestamp() - vision.getLatencySeconds(limelightNumber));
     }
+    visionFilter.log();
+    swerveDrive.addPoseEstimatorVisionMeasurements(visionMeasurements);
+  }
 
-    lastTimeStampSeconds = currentTimeStampSeconds;
+  /** Fills the filter frame with an observation and checks it. */
+  private boolean isAccepted(VisionObservation observation) {
+    // Depending on how many april tags we see, we change our confidence as more april tags
+    // results in a much more accurate pose estimate
+    VisionConstants.CONFIDENCE_MODELS[observation.limelightNumber()].getStandardDeviations(
+        observation.tagCount(), observation.averageTagDistanceMeters(), standardDeviations);
+    visionFrame.observation = observation;
+    visionFrame.xStandardDeviation = standardDeviations[0];
+    visionFrame.yStandardDeviation = standardDeviations[1];
+    visionFrame.thetaStandardDeviation = standardDeviations[2];
+    visionFrame.angularRateDegreesPerSecond = swerveDrive.getGyroRate();
+    swerveDrive.getPoseAt(observation.captureTimestampSeconds(), visionFrame.estimatedPose);
+    swerveDrive.getPoseCovariance(visionFrame.estimateCovariance);
+    return visionFilter.accept(visionFrame);
   }
 }
@@ -0,0 +1,215 @@
+package frc.robot.extras.debug;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.LogPaths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Breaks down the time spent in {@link CommandScheduler#run()} by subsystem, command and logging.
+ *
+ * <p>Subsystems time their {@code periodic()} (and their {@code Logger} processing) with sections
+ * created up front. Commands are timed automatically: the scheduler calls back right after each
+ * {@code execute()}, so each command is charged the time since the previous checkpoint. A
+ * checkpoint is taken when a section stops and after the triggers are polled, which happens right
+ * before the commands run. Time that no section accounts for is charged to "Other".
+ *
+ * <p>Every section keeps a rolling histogram of its time per cycle, and the p50, p99 and max are
+ * logged each cycle. When the scheduler runs past the loop period, the section that took the most
+ * time that cycle is blamed for the overrun.
+ *
+ * <p>AdvantageKit already logs the time it spends after the user code in {@code LoggedRobot/}, so
+ * only {@code Logger} calls made from the user code are timed here.
+ */
+public final class LoopProfiler {
+  /** What a section is timing. Logger sections run inside subsystems and are not blamed. */
+  public enum Category {
+    SUBSYSTEM,
+    COMMAND,
+    LOGGER,
+    OTHER
+  }
+
+  private static final String PROFILER_PATH = LogPaths.SYSTEM_PERFORMANCE_PATH + "LoopProfiler/";
+
+  /* 5 seconds of cycles, in 0.05 ms buckets up to 20 ms */
+  private static final int WINDOW_CYCLES = 250;
+  private static final double BUCKET_WIDTH_MS = 0.05;
+  private static final int BUCKET_COUNT = 400;
+
+  private static final LoopProfiler instance = new LoopProfiler(0.02);
+
+  /** A timed part of the robot loop. Sections are only used from the main robot thread. */
+  public final class Section {
+    private final String name;
+    private final Category category;
+    private final RollingHistogram histogram =
+        new RollingHistogram(WINDOW_CYCLES, BUCKET_WIDTH_MS, BUCKET_COUNT);
+    private final String p50Key, p99Key, maxKey, overrunsKey;
+
+    private long startNanos = -1;
+    private long cycleNanos = 0;
+    private boolean ranThisCycle = false;
+    private long overruns = 0;
+
+    private Section(String name, Category category) {
+      this.name = name;
+      this.category = category;
+      final String path = PROFILER_PATH + category.name() + "/" + name;
+      this.p50Key = path + "/P50MS";
+      this.p99Key = path + "/P99MS";
+      this.maxKey = path + "/MaxMS";
+      this.overrunsKey = path + "/Overruns";
+    }
+
+    /** Starts timing the section. */
+    public void start() {
+      startNanos = System.nanoTime();
+    }
+
+    /** Stops timing the section, adding the time since {@link #start()} to this cycle. */
+    public void stop() {
+      if (startNanos < 0) return;
+      final long now = System.nanoTime();
+      addTime(now - startNanos);
+      startNanos = -1;
+      lastCheckpointNanos = now;
+    }
+
+    private void addTime(long nanos) {
+      cycleNanos += nanos;
+      ranThisCycle = true;
+    }
+
+    /** Gets the name of the section. */
+    public String getName() {
+      return name;
+    }
+  }
+
+  private final long periodNanos;
+  private final List<Section> sections = new ArrayList<>();
+  private final Map<String, Section> sectionsByName = new HashMap<>();
+  private final Map<Command, Section> runningCommandSections = new IdentityHashMap<>();
+  private final Section otherSection;
+  private final RollingHistogram schedulerHistogram =
+      new RollingHistogram(WINDOW_CYCLES, BUCKET_WIDTH_MS, BUCKET_COUNT);
+
+  private long cycleStartNanos = -1;
+  private long lastCheckpointNanos = 0;
+  private long overruns = 0;
+  private String lastOverrunCulprit = "";
+  private double lastOverrunCulpritMS = 0.0;
+
+  private LoopProfiler(double periodSeconds) {
+    this.periodNanos = (long) (periodSeconds * 1e9);
+    this.otherSection = section("Other", Category.OTHER);
+  }
+
+  public static LoopProfiler getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the section with a name, creating it the first time. Create sections once, for example in
+   * a field initializer, and reuse them every cycle.
+   *
+   * @param name the name of the section, used in the log keys
+   * @param category what the section is timing
+   * @return the section
+   */
+  public Section section(String name, Category category) {
+    final String key = category.name() + "/" + name;
+    Section section = sectionsByName.get(key);
+    if (section == null) {
+      section = new Section(name, category);
+      sectionsByName.put(key, section);
+      sections.add(section);
+    }
+    return section;
+  }
+
+  /**
+   * Hooks the profiler into the command scheduler to time commands. Call this once after every
+   * trigger is bound, so the checkpoint taken while polling triggers runs after all of them.
+   *
+   * @param scheduler the command scheduler to profile
+   */
+  public void bindTo(CommandScheduler scheduler) {
+    scheduler.getDefaultButtonLoop().bind(() -> lastCheckpointNanos = System.nanoTime());
+    scheduler.onCommandExecute(this::commandExecuted);
+    scheduler.onCommandFinish(runningCommandSections::remove);
+    scheduler.onCommandInterrupt(runningCommandSections::remove);
+  }
+
+  private void commandExecuted(Command command) {
+    if (cycleStartNanos < 0) return;
+    Section section = runningCommandSections.get(command);
+    if (section == null) {
+      section = section(command.getName(), Category.COMMAND);
+      runningCommandSections.put(command, section);
+    }
+    final long now = System.nanoTime();
+    section.addTime(now - lastCheckpointNanos);
+    lastCheckpointNanos = now;
+  }
+
+  /** Starts a cycle, call this right before {@link CommandScheduler#run()}. */
+  public void startCycle() {
+    cycleStartNanos = System.nanoTime();
+    lastCheckpointNanos = cycleStartNanos;
+  }
+
+  /** Ends the cycle started by {@link #startCycle()} and logs the timing of every section. */
+  public void endCycle() {
+    if (cycleStartNanos < 0) return;
+    final long schedulerNanos = System.nanoTime() - cycleStartNanos;
+    cycleStartNanos = -1;
+
+    long attributedNanos = 0;
+    Section culprit = otherSection;
+    for (int i = 0; i < sections.size(); i++) {
+      final Section section = sections.get(i);
+      if (section.category == Category.LOGGER || section == otherSection) continue;
+      attributedNanos += section.cycleNanos;
+      if (section.cycleNanos > culprit.cycleNanos) culprit = section;
+    }
+    otherSection.addTime(Math.max(0, schedulerNanos - attributedNanos));
+    if (otherSection.cycleNanos > culprit.cycleNanos) culprit = otherSection;
+
+    if (schedulerNanos > periodNanos) {
+      overruns++;
+      culprit.overruns++;
+      lastOverrunCulprit = culprit.category.name() + "/" + culprit.name;
+      lastOverrunCulpritMS = culprit.cycleNanos / 1e6;
+    }
+
+    schedulerHistogram.record(schedulerNanos / 1e6);
+    Logger.recordOutput(PROFILER_PATH + "SchedulerMS", schedulerNanos / 1e6);
+    Logger.recordOutput(PROFILER_PATH + "SchedulerP50MS", schedulerHistogram.getPercentile(0.5));
+    Logger.recordOutput(PROFILER_PATH + "SchedulerP99MS", schedulerHistogram.getPercentile(0.99));
+    Logger.recordOutput(PROFILER_PATH + "SchedulerMaxMS", schedulerHistogram.getMax());
+    Logger.recordOutput(PROFILER_PATH + "Overruns", overruns);
+    Logger.recordOutput(PROFILER_PATH + "LastOverrunCulprit", lastOverrunCulprit);
+    Logger.recordOutput(PROFILER_PATH + "LastOverrunCulpritMS", lastOverrunCulpritMS);
+
+    for (int i = 0; i < sections.size(); i++) {
+      final Section section = sections.get(i);
+      // Commands that did not run this cycle keep their last statistics
+      if (section.ranThisCycle) section.histogram.record(section.cycleNanos / 1e6);
+      section.cycleNanos = 0;
+      section.ranThisCycle = false;
+      section.startNanos = -1;
+
+      Logger.recordOutput(section.p50Key, section.histogram.getPercentile(0.5));
+      Logger.recordOutput(section.p99Key, section.histogram.getPercentile(0.99));
+      Logger.recordOutput(section.maxKey, section.histogram.getMax());
+      Logger.recordOutput(section.overrunsKey, section.overruns);
+    }
+  }
+}
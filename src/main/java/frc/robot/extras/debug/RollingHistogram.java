@@ -0,0 +1,109 @@
+package frc.robot.extras.debug;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-bucket histogram over the most recent values recorded, used for timing telemetry.
+ *
+ * <p>All storage is allocated up front, so recording values and reading statistics does not create
+ * garbage. Percentiles are resolved to the upper edge of a bucket; min, max and mean are exact.
+ */
+public final class RollingHistogram {
+  private final double bucketWidth;
+  private final int[] bucketCounts;
+  private final double[] window;
+  private final int[] windowBuckets;
+
+  private int nextWindowIndex = 0;
+  private int count = 0;
+  private double windowSum = 0.0;
+
+  /**
+   * Creates a rolling histogram.
+   *
+   * @param windowSize the amount of most recent values the statistics are computed over
+   * @param bucketWidth the width of each bucket, in the unit of the recorded values
+   * @param bucketCount the amount of buckets, values past the last bucket are counted in it
+   */
+  public RollingHistogram(int windowSize, double bucketWidth, int bucketCount) {
+    if (windowSize <= 0 || bucketCount <= 0 || bucketWidth <= 0)
+      throw new IllegalArgumentException("window size, bucket width and count must be positive");
+    this.bucketWidth = bucketWidth;
+    this.bucketCounts = new int[bucketCount];
+    this.window = new double[windowSize];
+    this.windowBuckets = new int[windowSize];
+  }
+
+  /**
+   * Records a value, evicting the oldest one if the window is full.
+   *
+   * @param value the value to record
+   */
+  public void record(double value) {
+    if (count == window.length) {
+      bucketCounts[windowBuckets[nextWindowIndex]]--;
+      windowSum -= window[nextWindowIndex];
+    } else count++;
+
+    final int bucket =
+        (int) Math.min(bucketCounts.length - 1, Math.max(0, Math.floor(value / bucketWidth)));
+    bucketCounts[bucket]++;
+    window[nextWindowIndex] = value;
+    windowBuckets[nextWindowIndex] = bucket;
+    windowSum += value;
+    nextWindowIndex = (nextWindowIndex + 1) % window.length;
+  }
+
+  /** Removes every recorded value. */
+  public void reset() {
+    Arrays.fill(bucketCounts, 0);
+    nextWindowIndex = 0;
+    count = 0;
+    windowSum = 0.0;
+  }
+
+  /** Gets the amount of values in the window. */
+  public int getCount() {
+    return count;
+  }
+
+  /** Gets the mean of the values in the window, or 0 if it is empty. */
+  public double getMean() {
+    return count == 0 ? 0.0 : windowSum / count;
+  }
+
+  /** Gets the smallest value in the window, or 0 if it is empty. */
+  public double getMin() {
+    if (count == 0) return 0.0;
+    double min = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < count; i++) min = Math.min(min, window[i]);
+    return min;
+  }
+
+  /** Gets the largest value in the window, or 0 if it is empty. */
+  public double getMax() {
+    if (count == 0) return 0.0;
+    double max = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) max = Math.max(max, window[i]);
+    return max;
+  }
+
+  /**
+   * Gets a percentile of the values in the window.
+   *
+   * @param percentile the percentile, from 0 to 1
+   * @return the upper edge of the bucket holding the percentile, capped at the largest value, or
+   *     0 if the window is empty
+   */
+  public double getPercentile(double percentile) {
+    if (count == 0) return 0.0;
+    final int rank = (int) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * count);
+    int cumulativeCount = 0;
+    for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+      cumulativeCount += bucketCounts[bucket];
+      if (cumulativeCount >= Math.max(1, rank))
+        return Math.min((bucket + 1) * bucketWidth, getMax());
+    }
+    return getMax();
+  }
+}
@@ -2,20 +2,37 @@
 // Don't edit this unless you know what you're doing
 package frc.robot.extras.interpolators;
 
-import java.util.Arrays;
-
 public final class MultiLinearInterpolator {
 
-  private final double[][] lookupTable;
+  /* the x values of the table, and its y values and slopes flattened row by row */
+  private final double[] xValues;
+  private final double[] yValues;
+  private final double[] slopes;
+  private final int columns;
 
   /**
    * Handles finding values through a lookup table in a linear fashion.
    *
+   * <p>The table is copied, and the slope of every segment is computed once here, so a lookup is a
+   * binary search and one multiply-add per value.
+   *
    * @param lookupTable an array containing {x, y1, y2, ...yn} points, the x values must be in
    *     ascending order.
    */
   public MultiLinearInterpolator(double[][] lookupTable) {
-    this.lookupTable = lookupTable;
+    columns = lookupTable[0].length - 1;
+    xValues = new double[lookupTable.length];
+    yValues = new double[lookupTable.length * columns];
+    slopes = new double[lookupTable.length * columns];
+    for (int i = 0; i < lookupTable.length; i++) {
+      xValues[i] = lookupTable[i][0];
+      System.arraycopy(lookupTable[i], 1, yValues, i * columns, columns);
+    }
+    for (int i = 0; i + 1 < lookupTable.length; i++) {
+      final double run = xValues[i + 1] - xValues[i];
+      for (int j = 0; j < columns; j++)
+        slopes[i * columns + j] = (yValues[(i + 1) * columns + j] - yValues[i * columns + j]) / run;
+    }
   }
 
   /**
@@ -26,33 +43,41 @@ public final class MultiLinearInterpolator {
    *     lookup table rows minus 1.
    */
   public double[] getLookupValue(double inputXValue) {
-    // Check if inputXValue is less than the table's first value, if it is, return the lowest y
-    // values
-    if (inputXValue < lookupTable[0][0]) {
-      return Arrays.copyOfRange(lookupTable[0], 1, lookupTable[0].length);
+    final double[] interpolatedValues = new double[columns];
+    getLookupValue(inputXValue, interpolatedValues);
+    return interpolatedValues;
+  }
+
+  /**
+   * Writes multiple linearly-interpolated values from the lookup table corresponding to the given
+   * input value into an array, without allocating.
+   *
+   * @param inputXValue the value to look up
+   * @param interpolatedValues the array to write each linearly interpolated value into, at least as
+   *     long as the lookup table rows minus 1
+   */
+  public void getLookupValue(double inputXValue, double[] interpolatedValues) {
+    // Check if inputXValue is less than the table's first value (or NaN), if it is, return the
+    // lowest y values
+    if (!(inputXValue > xValues[0])) {
+      System.arraycopy(yValues, 0, interpolatedValues, 0, columns);
+      return;
     } // Check if inputXValue is greater than the table's last value, if it is, return the greatest
     // y values
-    else if (inputXValue > lookupTable[lookupTable.length - 1][0]) {
-      return Arrays.copyOfRange(lookupTable[lookupTable.length - 1], 1, lookupTable[0].length);
+    else if (inputXValue >= xValues[xValues.length - 1]) {
+      System.arraycopy(yValues, (xValues.length - 1) * columns, interpolatedValues, 0, columns);
+      return;
     }
 
-    for (int i = 0; i < lookupTable.length; i++) {
-      if (inputXValue == lookupTable[i][0]) {
-        return Arrays.copyOfRange(lookupTable[i], 1, lookupTable[0].length);
-      } else if (inputXValue > lookupTable[i][0] && inputXValue < lookupTable[i + 1][0]) {
-        double[] interpolatedValues = new double[lookupTable[0].length - 1];
-        for (int j = 1; j < lookupTable[0].length; j++) {
-          double slope =
-              (lookupTable[i + 1][j] - lookupTable[i][j])
-                  / (lookupTable[i + 1][0] - lookupTable[i][0]);
-          double yIntercept = lookupTable[i][j];
-          interpolatedValues[j - 1] = slope * (inputXValue - lookupTable[i][0]) + yIntercept;
-        }
-        return interpolatedValues;
-      }
+    // Find the last x value at or below the input
+    int low = 0, high = xValues.length - 1;
+    while (high - low > 1) {
+      final int middle = (low + high) >>> 1;
+      if (xValues[middle] <= inputXValue) low = middle;
+      else high = middle;
     }
-
-    // This should never be reached, but returns the first value to be safe
-    return Arrays.copyOfRange(lookupTable[0], 1, lookupTable[0].length);
+    final double run = inputXValue - xValues[low];
+    for (int j = 0; j < columns; j++)
+      interpolatedValues[j] = slopes[low * columns + j] * run + yValues[low * columns + j];
   }
 }
@@ -0,0 +1,24 @@
+package frc.robot.extras.simulation;
+
+/**
+ * Two arrays handed out in turns, for simulated IO inputs that are refilled every robot loop.
+ *
+ * <p>An array that was logged in the previous loop is never rewritten while it might still be
+ * serialized, and nothing is allocated unless the length changes.
+ */
+public final class AlternatingArrays {
+  private final double[][] arrays = {new double[0], new double[0]};
+  private int generation = 0;
+
+  /**
+   * Gets the array that was not handed out last time.
+   *
+   * @param length the length of the array
+   * @return the array, with the contents it had two calls ago
+   */
+  public double[] next(int length) {
+    generation ^= 1;
+    if (arrays[generation].length != length) arrays[generation] = new double[length];
+    return arrays[generation];
+  }
+}
@@ -6,10 +6,23 @@ import frc.robot.extras.simulation.field.SimulatedField;
 
 public class OdometryTimestampsSim {
   public static double[] getTimestamps() {
-    final double[] odometryTimestamps = new double[5];
-    for (int i = 0; i < 5; i++)
-      odometryTimestamps[i] =
-          Timer.getFPGATimestamp() - Robot.defaultPeriodSecs + SimulatedField.SIMULATION_DT * i;
+    final double[] odometryTimestamps =
+        new double[SimulatedField.getInstance().getSubTicksPerPeriod()];
+    fillTimestamps(odometryTimestamps);
     return odometryTimestamps;
   }
+
+  /**
+   * Fills the timestamps of the simulation sub-ticks of the last robot period of the default arena
+   * into an existing array.
+   *
+   * @param odometryTimestamps the array to fill, one entry per sub-tick
+   */
+  public static void fillTimestamps(double[] odometryTimestamps) {
+    for (int i = 0; i < odometryTimestamps.length; i++)
+      odometryTimestamps[i] =
+          Timer.getFPGATimestamp()
+              - Robot.defaultPeriodSecs
+              + SimulatedField.getInstance().getSubTickSeconds() * i;
+  }
 }
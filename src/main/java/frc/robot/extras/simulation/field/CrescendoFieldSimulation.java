@@ -4,7 +4,6 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.extras.simulation.field.SimulatedField.FieldMap;
 import frc.robot.extras.simulation.gamePiece.CrescendoNoteSimulation;
 import frc.robot.extras.simulation.gamePiece.GamePieceSimulation;
@@ -86,6 +85,17 @@ public class CrescendoFieldSimulation extends SimulatedField {
     super(new CrescendoFieldObstaclesMap());
   }
 
+  /**
+   * Creates a 2024 arena with its own timings and random seed.
+   *
+   * @param periodSeconds the time between two calls of {@link #simulationPeriodic()}
+   * @param subTicksPerPeriod the number of sub-ticks run in each robot period
+   * @param seed the seed of the random numbers of this arena
+   */
+  public CrescendoFieldSimulation(double periodSeconds, int subTicksPerPeriod, long seed) {
+    super(new CrescendoFieldObstaclesMap(), periodSeconds, subTicksPerPeriod, seed);
+  }
+
   @Override
   public void placeGamePiecesOnField() {
     for (Translation2d notePosition : NOTE_INITIAL_POSITIONS)
@@ -99,7 +109,7 @@ public class CrescendoFieldSimulation extends SimulatedField {
   public void competitionPeriodic() {
     if (!DriverStation.isTeleopEnabled()) return;
 
-    if (Timer.getFPGATimestamp() - previousThrowTimeSeconds < 1) return;
+    if (getTimeSeconds() - previousThrowTimeSeconds < 1) return;
 
     final Translation2d sourcePosition;
 
@@ -116,6 +126,6 @@ public class CrescendoFieldSimulation extends SimulatedField {
 
     /* otherwise, place a note */
     addGamePiece(new CrescendoNoteSimulation(sourcePosition));
-    previousThrowTimeSeconds = Timer.getFPGATimestamp();
+    previousThrowTimeSeconds = getTimeSeconds();
   }
 }
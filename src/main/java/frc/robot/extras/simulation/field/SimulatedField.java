@@ -4,12 +4,14 @@ import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.BuildConstants;
 import frc.robot.extras.simulation.gamePiece.CrescendoNoteSimulation;
 import frc.robot.extras.simulation.gamePiece.GamePieceSimulation;
 import frc.robot.extras.simulation.mechanismSim.IntakeSimulation;
 import frc.robot.extras.simulation.mechanismSim.swerve.AbstractDriveTrainSimulation;
 import frc.robot.extras.util.GeomUtil;
 import java.util.*;
+import java.util.random.RandomGenerator;
 import org.dyn4j.dynamics.Body;
 import org.dyn4j.dynamics.BodyFixture;
 import org.dyn4j.geometry.Convex;
@@ -29,6 +31,11 @@ import org.dyn4j.world.World;
  *
  * <p>The default instance can be obtained using the {@link #getInstance()} method.
  *
+ * <p>Every instance is self-contained: it owns its physics world, its timing and its random
+ * numbers, and passes them on to the drivetrains added to it. Separate instances can run on
+ * separate threads at the same time, as long as no robot code runs with them. Arenas created with
+ * the same seed, and given the same inputs, simulate exactly the same thing.
+ *
  * <p>Simulates all interactions within the arena field.
  *
  * <h2>The following objects can be added to the simulation world and will interact with each other:
@@ -77,14 +84,14 @@ public abstract class SimulatedField {
     instance = newInstance;
   }
 
-  /** The number of sub-ticks the simulator will run in each robot period. */
+  /** The number of sub-ticks new arenas run in each robot period, unless they are given one. */
   public static int SIMULATION_SUB_TICKS_IN_1_PERIOD = 5;
 
   public static int getSimulationSubTicksIn1Period() {
     return SIMULATION_SUB_TICKS_IN_1_PERIOD;
   }
 
-  /** The period length of each sub-tick, in seconds. */
+  /** The period length of each sub-tick of new arenas, in seconds. */
   public static double SIMULATION_DT = 0.02 / SIMULATION_SUB_TICKS_IN_1_PERIOD;
 
   public static double getSimulationDt() {
@@ -99,13 +106,9 @@ public abstract class SimulatedField {
    * <h4>If Using <a href='https://github.com/Mechanical-Advantage/AdvantageKit'>Advantage-Kit</a>:
    * DO NOT CHANGE THE DEFAULT TIMINGS</h4>
    *
-   * <p>Changes apply to every instance of {@link SimulatedField}.
-   *
-   * <p>The new configuration will take effect the next time {@link
-   * SimulatedField#simulationPeriodic()} is called on an instance.
-   *
-   * <p>It is recommended to call this method before the first call to {@link
-   * SimulatedField#simulationPeriodic()} of any instance.
+   * <p>Changes apply to every instance of {@link SimulatedField} created afterwards, so this method
+   * should be called before the default instance is created. Arenas created with their own timings
+   * are not affected.
    *
    * <p>It is also recommended to keep the simulation frequency above 200 Hz for accurate simulation
    * results.
@@ -121,6 +124,12 @@ public abstract class SimulatedField {
     SIMULATION_DT = robotPeriodSeconds / SIMULATION_SUB_TICKS_IN_1_PERIOD;
   }
 
+  private final double periodSeconds;
+  private final int subTicksPerPeriod;
+  private final double subTickSeconds;
+  private final SplittableRandom random;
+  private double timeSeconds = 0.0;
+
   protected final World<Body> physicsWorld;
   protected final Set<AbstractDriveTrainSimulation> driveTrainSimulations;
   protected final Set<GamePieceSimulation> gamePieces;
@@ -138,16 +147,44 @@ public abstract class SimulatedField {
    * <p>It also sets up the collections for drivetrain simulations, game pieces, projectiles, and
    * intake simulations.
    *
+   * <p>The arena uses the default timings, and random numbers seeded by the hash of the git SHA, so
+   * log replays see the same random numbers.
+   *
    * @param obstaclesMap the season-specific field map containing the layout of obstacles for the
    *     simulation
    */
   protected SimulatedField(FieldMap obstaclesMap) {
+    this(
+        obstaclesMap,
+        SIMULATION_DT * SIMULATION_SUB_TICKS_IN_1_PERIOD,
+        SIMULATION_SUB_TICKS_IN_1_PERIOD,
+        BuildConstants.GIT_SHA.hashCode());
+  }
+
+  /**
+   *
+   *
+   * <h2>Constructs a new simulation arena with its own timings and random seed.</h2>
+   *
+   * @param obstaclesMap the season-specific field map containing the layout of obstacles for the
+   *     simulation
+   * @param periodSeconds the time between two calls of {@link #simulationPeriodic()}
+   * @param subTicksPerPeriod the number of sub-ticks run in each call of {@link
+   *     #simulationPeriodic()}
+   * @param seed the seed of the random numbers of this arena, such as the noise of the gyros
+   */
+  protected SimulatedField(
+      FieldMap obstaclesMap, double periodSeconds, int subTicksPerPeriod, long seed) {
+    this.periodSeconds = periodSeconds;
+    this.subTicksPerPeriod = subTicksPerPeriod;
+    this.subTickSeconds = periodSeconds / subTicksPerPeriod;
+    this.random = new SplittableRandom(seed);
     this.physicsWorld = new World<>();
     this.physicsWorld.setGravity(PhysicsWorld.ZERO_GRAVITY);
     for (Body obstacle : obstaclesMap.obstacles) this.physicsWorld.addBody(obstacle);
-    this.driveTrainSimulations = new HashSet<>();
+    this.driveTrainSimulations = new LinkedHashSet<>();
     simulationSubTickActions = new ArrayList<>();
-    this.gamePieces = new HashSet<>();
+    this.gamePieces = new LinkedHashSet<>();
     this.intakeSimulations = new ArrayList<>();
   }
 
@@ -201,6 +238,7 @@ public abstract class SimulatedField {
    * @param driveTrainSimulation the drivetrain simulation to be registered
    */
   public void addDriveTrainSimulation(AbstractDriveTrainSimulation driveTrainSimulation) {
+    driveTrainSimulation.setSimulatedField(this);
     this.physicsWorld.addBody(driveTrainSimulation);
     this.driveTrainSimulations.add(driveTrainSimulation);
   }
@@ -258,22 +296,22 @@ public abstract class SimulatedField {
    * LoggedRobot.simulationPeriodic()</code> if using <a
    * href='https://github.com/Mechanical-Advantage/AdvantageKit'>Advantage-Kit</a>)
    *
-   * <p>If not configured through {@link SimulatedField#overrideSimulationTimings(double
-   * robotPeriodSeconds, int simulationSubTicksPerPeriod)}, the simulator will iterate through 5
-   * Sub-ticks by default.
+   * <p>The simulator iterates through the sub-ticks this arena was created with, 5 by default.
    *
    * <p>The amount of CPU Time that the Dyn4j engine uses in displayed in <code>
-   * SmartDashboard/MapleArenaSimulation/Dyn4jEngineCPUTimeMS</code>, usually performance is not a
-   * concern
+   * SmartDashboard/MapleArenaSimulation/Dyn4jEngineCPUTimeMS</code> for the default instance,
+   * usually performance is not a concern
    */
   public void simulationPeriodic() {
     final long t0 = System.nanoTime();
     competitionPeriodic();
     // move through a few sub-periods in each update
-    for (int i = 0; i < SIMULATION_SUB_TICKS_IN_1_PERIOD; i++) simulationSubTick();
+    for (int i = 0; i < subTicksPerPeriod; i++) simulationSubTick();
+    timeSeconds += periodSeconds;
 
-    SmartDashboard.putNumber(
-        "MapleArenaSimulation/Dyn4jEngineCPUTimeMS", (System.nanoTime() - t0) / 1000000.0);
+    if (this == instance)
+      SmartDashboard.putNumber(
+          "MapleArenaSimulation/Dyn4jEngineCPUTimeMS", (System.nanoTime() - t0) / 1000000.0);
   }
 
   /**
@@ -296,7 +334,7 @@ public abstract class SimulatedField {
     for (AbstractDriveTrainSimulation driveTrainSimulation : driveTrainSimulations)
       driveTrainSimulation.simulationSubTick();
 
-    this.physicsWorld.step(1, SIMULATION_DT);
+    this.physicsWorld.step(1, subTickSeconds);
 
     for (IntakeSimulation intakeSimulation : intakeSimulations)
       while (!intakeSimulation.getGamePiecesToRemove().isEmpty())
@@ -305,6 +343,41 @@ public abstract class SimulatedField {
     for (Runnable runnable : simulationSubTickActions) runnable.run();
   }
 
+  /** Gets the time between two calls of {@link #simulationPeriodic()} of this arena, in seconds. */
+  public double getPeriodSeconds() {
+    return periodSeconds;
+  }
+
+  /** Gets the number of sub-ticks this arena runs in each robot period. */
+  public int getSubTicksPerPeriod() {
+    return subTicksPerPeriod;
+  }
+
+  /** Gets the length of each sub-tick of this arena, in seconds. */
+  public double getSubTickSeconds() {
+    return subTickSeconds;
+  }
+
+  /** Gets how long this arena has been simulated for, in seconds. */
+  public double getTimeSeconds() {
+    return timeSeconds;
+  }
+
+  /** Gets the random number generator of this arena, seeded when it was created. */
+  public RandomGenerator getRandom() {
+    return random;
+  }
+
+  /**
+   * Splits an independent stream of random numbers off this arena, for one of the simulations in
+   * it. Streams split in the same order from arenas with the same seed give the same numbers.
+   *
+   * @return the new stream
+   */
+  public RandomGenerator splitRandom() {
+    return random.split();
+  }
+
   /**
    *
    *
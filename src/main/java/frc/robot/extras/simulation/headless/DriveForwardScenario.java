@@ -0,0 +1,98 @@
+package frc.robot.extras.simulation.headless;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.extras.simulation.field.SimulatedField;
+import frc.robot.extras.simulation.mechanismSim.swerve.GyroSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveDriveSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveModuleSimulation;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import frc.robot.subsystems.swerve.SwerveDrive;
+import frc.robot.subsystems.swerve.gyroIO.SimulatedGyro;
+import frc.robot.subsystems.swerve.moduleIO.SimulatedModule;
+
+/**
+ * Drives the simulated swerve drive forwards for two seconds, then checks that the pose estimated
+ * from its odometry stayed with the simulated robot.
+ */
+public final class DriveForwardScenario implements SimulationScenario {
+  private static final Pose2d STARTING_POSE = new Pose2d(2, 4, new Rotation2d());
+  private static final double SPEED_METERS_PER_SECOND = 2.0;
+  private static final double DRIVE_SECONDS = 2.0;
+  private static final double MIN_DISTANCE_METERS = 2.0;
+  private static final double MAX_POSE_ERROR_METERS = 0.25;
+
+  private SwerveDriveSimulation driveSimulation;
+  private SwerveDrive swerveDrive;
+  private double distanceDrivenMeters = 0.0, poseErrorMeters = 0.0;
+
+  @Override
+  public double getDurationSeconds() {
+    return DRIVE_SECONDS + 1.0;
+  }
+
+  @Override
+  public void initialize(SimulatedField field) {
+    final GyroSimulation gyroSimulation = GyroSimulation.createPigeon2();
+    driveSimulation =
+        new SwerveDriveSimulation(
+            SimulationConstants.ROBOT_MASS_KG,
+            DriveConstants.TRACK_WIDTH,
+            DriveConstants.WHEEL_BASE,
+            SimulationConstants.BUMPER_WIDTH_METERS,
+            SimulationConstants.BUMPER_LENGTH_METERS,
+            SwerveModuleSimulation.getModule(
+                SimulationConstants.DRIVE_MOTOR,
+                SimulationConstants.STEER_MOTOR,
+                SimulationConstants.DRIVE_CURRENT_LIMIT,
+                SwerveModuleSimulation.DRIVE_WHEEL_TYPE.TIRE,
+                SimulationConstants.DRIVE_GEAR_RATIO),
+            gyroSimulation,
+            STARTING_POSE);
+    field.addDriveTrainSimulation(driveSimulation);
+
+    final SwerveModuleSimulation[] modules = driveSimulation.getModules();
+    swerveDrive =
+        new SwerveDrive(
+            new SimulatedGyro(gyroSimulation),
+            new SimulatedModule(modules[0]),
+            new SimulatedModule(modules[1]),
+            new SimulatedModule(modules[2]),
+            new SimulatedModule(modules[3]));
+    swerveDrive.setPose(STARTING_POSE);
+
+    Commands.run(
+            () -> {
+              swerveDrive.addPoseEstimatorSwerveMeasurement();
+              swerveDrive.drive(SPEED_METERS_PER_SECOND, 0, 0, true);
+            },
+            swerveDrive)
+        .withTimeout(DRIVE_SECONDS)
+        .andThen(
+            Commands.run(
+                () -> {
+                  swerveDrive.addPoseEstimatorSwerveMeasurement();
+                  swerveDrive.drive(0, 0, 0, true);
+                },
+                swerveDrive))
+        .schedule();
+  }
+
+  @Override
+  public boolean verify() {
+    final Pose2d simulatedPose = driveSimulation.getSimulatedDriveTrainPose();
+    final Pose2d estimatedPose = swerveDrive.getPose();
+    distanceDrivenMeters =
+        simulatedPose.getTranslation().getDistance(STARTING_POSE.getTranslation());
+    poseErrorMeters = estimatedPose.getTranslation().getDistance(simulatedPose.getTranslation());
+    return distanceDrivenMeters >= MIN_DISTANCE_METERS && poseErrorMeters <= MAX_POSE_ERROR_METERS;
+  }
+
+  @Override
+  public String getSummary() {
+    return String.format(
+        "drove %.2f m, estimate off by %.3f m", distanceDrivenMeters, poseErrorMeters);
+  }
+}
@@ -0,0 +1,183 @@
+package frc.robot.extras.simulation.headless;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Robot;
+import frc.robot.extras.simulation.field.CrescendoFieldSimulation;
+import frc.robot.extras.simulation.field.SimulatedField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link SimulationScenario}s without the robot loop, as fast as the CPU allows.
+ *
+ * <p>{@code Robot} only turns off its loop timing in simulation, and still runs inside {@code
+ * RobotBase.startRobot} with NetworkTables and the HAL notifier. This runner instead pauses the
+ * simulated FPGA clock and advances it one robot period at a time with {@link
+ * SimHooks#stepTiming}, so nothing ever sleeps, and {@code Timer.getFPGATimestamp()} still reads
+ * the simulated time. Every period runs the command scheduler and then steps the field, in the
+ * same order as {@code Robot}. NetworkTables is never started, so nothing is published.
+ *
+ * <p>Run it with {@code ./gradlew simulateHeadless -Pscenarios=<scenario classes>}. Each result
+ * reports the simulated seconds run per wall-clock second.
+ */
+public final class HeadlessSimulation {
+  /**
+   * The outcome of one scenario.
+   *
+   * @param scenarioName the name of the scenario
+   * @param passed whether {@link SimulationScenario#verify()} passed
+   * @param simulatedSeconds how long the scenario ran for in simulated time
+   * @param wallSeconds how long it took to run
+   * @param summary what {@link SimulationScenario#getSummary()} reported, empty if nothing
+   */
+  public record Result(
+      String scenarioName,
+      boolean passed,
+      double simulatedSeconds,
+      double wallSeconds,
+      String summary) {
+    /** Gets how many simulated seconds were run per wall-clock second. */
+    public double getRealTimeFactor() {
+      return simulatedSeconds / wallSeconds;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-32s %s %8.1f sim s %8.3f wall s %8.1fx real time%s",
+          scenarioName,
+          passed ? "PASS" : "FAIL",
+          simulatedSeconds,
+          wallSeconds,
+          getRealTimeFactor(),
+          summary.isEmpty() ? "" : "  " + summary);
+    }
+  }
+
+  private static boolean isInitialized = false;
+
+  private final double periodSeconds;
+
+  /**
+   * Creates a runner.
+   *
+   * @param periodSeconds the robot loop period, usually {@link Robot#defaultPeriodSecs}
+   */
+  public HeadlessSimulation(double periodSeconds) {
+    this.periodSeconds = periodSeconds;
+    initialize();
+  }
+
+  /** Starts the simulated HAL once, with its clock paused. */
+  static synchronized void initialize() {
+    if (isInitialized) return;
+    if (!HAL.initialize(500, 0)) throw new IllegalStateException("failed to initialize the HAL");
+    SimHooks.pauseTiming();
+    DriverStationSim.setDsAttached(true);
+    isInitialized = true;
+  }
+
+  /**
+   * Runs a scenario on a new field to completion.
+   *
+   * @param scenario the scenario, which should not have been run before
+   * @return how it went
+   */
+  public Result run(SimulationScenario scenario) {
+    final CommandScheduler scheduler = CommandScheduler.getInstance();
+    resetRobotCode(scheduler);
+    final SimulatedField field = new CrescendoFieldSimulation();
+    SimulatedField.overrideInstance(field);
+
+    setEnabled(true, scenario.isAutonomous());
+    scenario.initialize(field);
+
+    final int periods = (int) Math.ceil(scenario.getDurationSeconds() / periodSeconds);
+    final long startNanos = System.nanoTime();
+    for (int period = 0; period < periods; period++) {
+      SimHooks.stepTiming(periodSeconds);
+      DriverStation.refreshData();
+      scheduler.run();
+      scenario.periodic(period * periodSeconds);
+      field.simulationPeriodic();
+    }
+    final double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+    setEnabled(false, scenario.isAutonomous());
+    scheduler.run();
+    final boolean passed = scenario.verify();
+    final String summary = scenario.getSummary();
+    resetRobotCode(scheduler);
+    return new Result(scenario.getName(), passed, periods * periodSeconds, wallSeconds, summary);
+  }
+
+  /**
+   * Runs scenarios one after another.
+   *
+   * @param scenarios creates each scenario
+   * @return the result of each scenario, in order
+   */
+  public List<Result> runAll(List<Supplier<? extends SimulationScenario>> scenarios) {
+    final List<Result> results = new ArrayList<>(scenarios.size());
+    for (Supplier<? extends SimulationScenario> scenario : scenarios)
+      results.add(run(scenario.get()));
+    return results;
+  }
+
+  private static void setEnabled(boolean enabled, boolean autonomous) {
+    DriverStationSim.setAutonomous(autonomous);
+    DriverStationSim.setEnabled(enabled);
+    DriverStationSim.notifyNewData();
+    DriverStation.refreshData();
+  }
+
+  /** Forgets the commands, subsystems and bindings of the previous scenario. */
+  private static void resetRobotCode(CommandScheduler scheduler) {
+    scheduler.cancelAll();
+    scheduler.unregisterAllSubsystems();
+    scheduler.getActiveButtonLoop().clear();
+  }
+
+  /**
+   * Runs the scenarios named on the command line and prints how each went, with its summary. The
+   * process exits with 1 if any scenario failed.
+   *
+   * @param args the fully qualified class names of the scenarios, which need a public no-argument
+   *     constructor. Without any, {@link DriveForwardScenario} runs.
+   */
+  public static void main(String... args) throws ReflectiveOperationException {
+    final List<Supplier<? extends SimulationScenario>> scenarios = new ArrayList<>();
+    if (args.length == 0) scenarios.add(DriveForwardScenario::new);
+    for (String className : args) {
+      final Class<? extends SimulationScenario> scenarioClass =
+          Class.forName(className).asSubclass(SimulationScenario.class);
+      final var constructor = scenarioClass.getConstructor();
+      scenarios.add(
+          () -> {
+            try {
+              return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+              throw new IllegalStateException("could not create " + className, e);
+            }
+          });
+    }
+
+    final List<Result> results = new HeadlessSimulation(Robot.defaultPeriodSecs).runAll(scenarios);
+    double simulatedSeconds = 0, wallSeconds = 0;
+    boolean allPassed = true;
+    for (Result result : results) {
+      System.out.println(result);
+      simulatedSeconds += result.simulatedSeconds();
+      wallSeconds += result.wallSeconds();
+      allPassed &= result.passed();
+    }
+    System.out.println(
+        new Result(results.size() + " scenarios", allPassed, simulatedSeconds, wallSeconds, ""));
+    System.exit(allPassed ? 0 : 1);
+  }
+}
@@ -0,0 +1,345 @@
+package frc.robot.extras.simulation.headless;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Robot;
+import frc.robot.extras.simulation.field.CrescendoFieldSimulation;
+import frc.robot.extras.simulation.field.SimulatedField;
+import frc.robot.extras.simulation.mechanismSim.swerve.CachedReadings;
+import frc.robot.extras.simulation.mechanismSim.swerve.GyroSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveDriveSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveModuleSimulation;
+import frc.robot.extras.util.MathUtil;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants.PoseEstimatorMode;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import frc.robot.subsystems.swerve.moduleIO.SimulatedModule;
+import frc.robot.subsystems.swerve.poseEstimator.KalmanPoseEstimator;
+import frc.robot.subsystems.swerve.poseEstimator.PoseEstimatorInterface;
+import frc.robot.subsystems.swerve.poseEstimator.SwerveOdometry;
+import frc.robot.subsystems.swerve.poseEstimator.SwervePoseEstimator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Runs many independent simulated matches in parallel and measures how far the pose estimate drifts
+ * from the simulated robot.
+ *
+ * <p>Every trial gets its own arena, with its own timings and random seed, so trials share nothing
+ * and are spread over all cores by a fork-join pool. The robot code can't run here, since {@code
+ * CommandScheduler} and the subsystems are singletons, so each trial drives the modules through
+ * {@link SimulatedModule} and feeds the sensor readings cached every sub-tick to its own {@link
+ * SwerveOdometry} and pose estimator, the same way {@code SwerveDrive} does. The same seed always
+ * gives the same trial.
+ *
+ * <p>Run it with {@code ./gradlew monteCarloSimulation -Ptrials=<trials> -PsubTicks=<sub-ticks>}.
+ */
+public final class MonteCarloSimulation {
+  private static final Pose2d STARTING_POSE = new Pose2d(8.27, 4.1, new Rotation2d());
+  private static final double PATH_AMPLITUDE_METERS = 1.5;
+  private static final double PATH_FREQUENCY_RAD_PER_SEC = 0.8;
+  private static final double MAX_ROTATION_RAD_PER_SEC = 2.0;
+  private static final int VISION_EVERY_N_PERIODS = 5;
+  private static final double VISION_HEADING_STANDARD_DEVIATION_RAD = 0.05;
+
+  /**
+   * What each trial simulates.
+   *
+   * @param durationSeconds how long each trial drives for, in simulated seconds
+   * @param subTicksPerPeriod the sub-ticks of the arena in each robot period
+   * @param estimatorMode the pose estimator fed by the odometry
+   * @param visionStandardDeviationMeters the noise of the simulated vision poses, or 0 to drive on
+   *     odometry alone
+   */
+  public record Parameters(
+      double durationSeconds,
+      int subTicksPerPeriod,
+      PoseEstimatorMode estimatorMode,
+      double visionStandardDeviationMeters) {}
+
+  /** The pose errors of a set of trials, which can be combined with those of other trials. */
+  public static final class ErrorStatistics {
+    private int trials = 0;
+    private long samples = 0;
+    private double sumErrorMeters = 0.0;
+    private double sumSquaredErrorMeters = 0.0;
+    private double maxErrorMeters = 0.0;
+    private double sumFinalErrorMeters = 0.0;
+    private double maxFinalErrorMeters = 0.0;
+
+    private void addSample(double errorMeters) {
+      samples++;
+      sumErrorMeters += errorMeters;
+      sumSquaredErrorMeters += errorMeters * errorMeters;
+      maxErrorMeters = Math.max(maxErrorMeters, errorMeters);
+    }
+
+    private void finishTrial(double finalErrorMeters) {
+      trials++;
+      sumFinalErrorMeters += finalErrorMeters;
+      maxFinalErrorMeters = Math.max(maxFinalErrorMeters, finalErrorMeters);
+    }
+
+    /**
+     * Adds the errors of other trials to these.
+     *
+     * @param other the statistics of the other trials
+     * @return these statistics
+     */
+    public ErrorStatistics combine(ErrorStatistics other) {
+      trials += other.trials;
+      samples += other.samples;
+      sumErrorMeters += other.sumErrorMeters;
+      sumSquaredErrorMeters += other.sumSquaredErrorMeters;
+      maxErrorMeters = Math.max(maxErrorMeters, other.maxErrorMeters);
+      sumFinalErrorMeters += other.sumFinalErrorMeters;
+      maxFinalErrorMeters = Math.max(maxFinalErrorMeters, other.maxFinalErrorMeters);
+      return this;
+    }
+
+    public int getTrials() {
+      return trials;
+    }
+
+    /** Gets the mean error over every period of every trial, in meters. */
+    public double getMeanErrorMeters() {
+      return samples == 0 ? 0.0 : sumErrorMeters / samples;
+    }
+
+    /** Gets the root mean square error over every period of every trial, in meters. */
+    public double getRmsErrorMeters() {
+      return samples == 0 ? 0.0 : Math.sqrt(sumSquaredErrorMeters / samples);
+    }
+
+    /** Gets the largest error seen in any period of any trial, in meters. */
+    public double getMaxErrorMeters() {
+      return maxErrorMeters;
+    }
+
+    /** Gets the mean error at the end of the trials, in meters. */
+    public double getMeanFinalErrorMeters() {
+      return trials == 0 ? 0.0 : sumFinalErrorMeters / trials;
+    }
+
+    /** Gets the largest error at the end of any trial, in meters. */
+    public double getMaxFinalErrorMeters() {
+      return maxFinalErrorMeters;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%4d trials: mean %.3f m, rms %.3f m, max %.3f m, final mean %.3f m, final max %.3f m",
+          trials,
+          getMeanErrorMeters(),
+          getRmsErrorMeters(),
+          getMaxErrorMeters(),
+          getMeanFinalErrorMeters(),
+          getMaxFinalErrorMeters());
+    }
+  }
+
+  private MonteCarloSimulation() {}
+
+  /**
+   * Runs trials in parallel on the common fork-join pool.
+   *
+   * @param parameters what each trial simulates
+   * @param firstSeed the seed of the first trial, the others count up from it
+   * @param trials the amount of trials
+   * @return the pose errors of all trials
+   */
+  public static ErrorStatistics run(Parameters parameters, long firstSeed, int trials) {
+    HeadlessSimulation.initialize();
+    return ForkJoinPool.commonPool().invoke(new TrialsTask(parameters, firstSeed, 0, trials));
+  }
+
+  /** Splits a range of trials in halves until each task runs a single trial. */
+  private static final class TrialsTask extends RecursiveTask<ErrorStatistics> {
+    private final Parameters parameters;
+    private final long firstSeed;
+    private final int start, end;
+
+    private TrialsTask(Parameters parameters, long firstSeed, int start, int end) {
+      this.parameters = parameters;
+      this.firstSeed = firstSeed;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected ErrorStatistics compute() {
+      if (end - start <= 1) {
+        final ErrorStatistics statistics = new ErrorStatistics();
+        if (end > start) runTrial(parameters, firstSeed + start, statistics);
+        return statistics;
+      }
+      final int middle = (start + end) >>> 1;
+      final TrialsTask firstHalf = new TrialsTask(parameters, firstSeed, start, middle);
+      firstHalf.fork();
+      final ErrorStatistics secondHalf =
+          new TrialsTask(parameters, firstSeed, middle, end).compute();
+      return secondHalf.combine(firstHalf.join());
+    }
+  }
+
+  /**
+   * Drives a figure eight around the middle of a new arena while spinning, and records the pose
+   * error every period.
+   */
+  private static void runTrial(Parameters parameters, long seed, ErrorStatistics statistics) {
+    final double periodSeconds = Robot.defaultPeriodSecs;
+    final int subTicks = parameters.subTicksPerPeriod();
+    final SimulatedField arena = new CrescendoFieldSimulation(periodSeconds, subTicks, seed);
+
+    final GyroSimulation gyroSimulation = GyroSimulation.createPigeon2();
+    final SwerveDriveSimulation driveSimulation =
+        new SwerveDriveSimulation(
+            SimulationConstants.ROBOT_MASS_KG,
+            DriveConstants.TRACK_WIDTH,
+            DriveConstants.WHEEL_BASE,
+            SimulationConstants.BUMPER_WIDTH_METERS,
+            SimulationConstants.BUMPER_LENGTH_METERS,
+            SwerveModuleSimulation.getModule(
+                SimulationConstants.DRIVE_MOTOR,
+                SimulationConstants.STEER_MOTOR,
+                SimulationConstants.DRIVE_CURRENT_LIMIT,
+                SwerveModuleSimulation.DRIVE_WHEEL_TYPE.TIRE,
+                SimulationConstants.DRIVE_GEAR_RATIO),
+            gyroSimulation,
+            STARTING_POSE);
+    arena.addDriveTrainSimulation(driveSimulation);
+    final RandomGenerator visionRandom = arena.splitRandom();
+
+    final SwerveModuleSimulation[] moduleSimulations = driveSimulation.getModules();
+    final SimulatedModule[] modules = new SimulatedModule[moduleSimulations.length];
+    for (int i = 0; i < modules.length; i++) modules[i] = new SimulatedModule(moduleSimulations[i]);
+
+    final SwerveOdometry odometry = new SwerveOdometry(DriveConstants.MODULE_TRANSLATIONS);
+    final int historyCapacity =
+        (int) Math.ceil(PoseEstimatorInterface.HISTORY_SECONDS * subTicks / periodSeconds);
+    final PoseEstimatorInterface poseEstimator =
+        switch (parameters.estimatorMode()) {
+          case ODOMETRY_HISTORY ->
+              new SwervePoseEstimator(
+                  DriveConstants.X_POS_TRUST,
+                  DriveConstants.Y_POS_TRUST,
+                  DriveConstants.ANGLE_TRUST,
+                  historyCapacity);
+          case EXTENDED_KALMAN ->
+              new KalmanPoseEstimator(DriveConstants.KALMAN_PROCESS_MODEL, historyCapacity);
+        };
+
+    final double[] distancesMeters = new double[modules.length];
+    final double[] anglesRad = new double[modules.length];
+    final CachedReadings[] cachedDrivePositionsRad = new CachedReadings[modules.length];
+    final CachedReadings[] cachedTurnPositionsRad = new CachedReadings[modules.length];
+    for (int i = 0; i < modules.length; i++) {
+      cachedDrivePositionsRad[i] = moduleSimulations[i].getCachedDriveWheelFinalPositionsRadView();
+      cachedTurnPositionsRad[i] = moduleSimulations[i].getCachedTurnAbsolutePositionsRadView();
+    }
+    final CachedReadings gyroReadingsRad = gyroSimulation.getCachedGyroReadingsRadView();
+    for (int i = 0; i < modules.length; i++)
+      distancesMeters[i] =
+          moduleSimulations[i].getDriveEncoderFinalPositionRad()
+              * SimulationConstants.WHEEL_RADIUS_METERS;
+    odometry.resetPosition(
+        STARTING_POSE.getX(),
+        STARTING_POSE.getY(),
+        STARTING_POSE.getRotation().getRadians(),
+        gyroSimulation.getGyroReading().getRadians(),
+        distancesMeters);
+    poseEstimator.resetPosition(
+        STARTING_POSE.getX(), STARTING_POSE.getY(), STARTING_POSE.getRotation().getRadians());
+
+    final SwerveDriveKinematics kinematics = DriveConstants.DRIVE_KINEMATICS;
+    final int periods = (int) Math.ceil(parameters.durationSeconds() / periodSeconds);
+    double errorMeters = 0.0;
+    for (int period = 0; period < periods; period++) {
+      final double t = arena.getTimeSeconds();
+      final double w = PATH_FREQUENCY_RAD_PER_SEC;
+      final SwerveModuleState[] setpoints =
+          kinematics.toSwerveModuleStates(
+              ChassisSpeeds.fromFieldRelativeSpeeds(
+                  PATH_AMPLITUDE_METERS * w * Math.cos(w * t),
+                  PATH_AMPLITUDE_METERS * 2 * w * Math.cos(2 * w * t),
+                  MAX_ROTATION_RAD_PER_SEC * Math.sin(w * t / 2),
+                  Rotation2d.fromRadians(poseEstimator.getHeadingRad())));
+      SwerveDriveKinematics.desaturateWheelSpeeds(
+          setpoints, SimulationConstants.CHASSIS_MAX_VELOCITY);
+      for (int i = 0; i < modules.length; i++) modules[i].setDesiredState(setpoints[i]);
+
+      arena.simulationPeriodic();
+
+      final double periodStartSeconds = arena.getTimeSeconds() - periodSeconds;
+      for (int subTick = 0; subTick < subTicks; subTick++) {
+        for (int i = 0; i < modules.length; i++) {
+          distancesMeters[i] =
+              cachedDrivePositionsRad[i].get(subTick) * SimulationConstants.WHEEL_RADIUS_METERS;
+          anglesRad[i] = cachedTurnPositionsRad[i].get(subTick);
+        }
+        odometry.update(distancesMeters, anglesRad, gyroReadingsRad.get(subTick));
+        poseEstimator.addOdometrySample(
+            periodStartSeconds + (subTick + 1) * arena.getSubTickSeconds(), odometry);
+      }
+
+      final Pose2d simulatedPose = driveSimulation.getSimulatedDriveTrainPose();
+      final double standardDeviation = parameters.visionStandardDeviationMeters();
+      if (standardDeviation > 0 && period % VISION_EVERY_N_PERIODS == 0) {
+        poseEstimator.addVisionMeasurement(
+            arena.getTimeSeconds(),
+            MathUtil.generateRandomNormal(visionRandom, simulatedPose.getX(), standardDeviation),
+            MathUtil.generateRandomNormal(visionRandom, simulatedPose.getY(), standardDeviation),
+            MathUtil.generateRandomNormal(
+                visionRandom,
+                simulatedPose.getRotation().getRadians(),
+                VISION_HEADING_STANDARD_DEVIATION_RAD),
+            standardDeviation,
+            standardDeviation,
+            VISION_HEADING_STANDARD_DEVIATION_RAD);
+      }
+
+      errorMeters =
+          Math.hypot(
+              poseEstimator.getXMeters() - simulatedPose.getX(),
+              poseEstimator.getYMeters() - simulatedPose.getY());
+      statistics.addSample(errorMeters);
+    }
+    statistics.finishTrial(errorMeters);
+  }
+
+  /**
+   * Runs every pose estimator with and without vision and prints the pose errors of each.
+   *
+   * @param args the amount of trials of each, 64 by default, and the sub-ticks per period, 5 by
+   *     default
+   */
+  public static void main(String... args) {
+    final int trials = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+    final int subTicksPerPeriod = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    final double durationSeconds = 15.0;
+    System.out.printf(
+        "%d trials of %.0f s on %d threads, %d sub-ticks per period%n",
+        trials, durationSeconds, ForkJoinPool.getCommonPoolParallelism(), subTicksPerPeriod);
+
+    for (PoseEstimatorMode estimatorMode : PoseEstimatorMode.values())
+      for (double visionStandardDeviationMeters : new double[] {0.0, 0.3}) {
+        final Parameters parameters =
+            new Parameters(
+                durationSeconds, subTicksPerPeriod, estimatorMode, visionStandardDeviationMeters);
+        final long startNanos = System.nanoTime();
+        final ErrorStatistics statistics = run(parameters, 0, trials);
+        System.out.printf(
+            "%-16s vision %.1f m: %s (%.1f wall s)%n",
+            estimatorMode,
+            visionStandardDeviationMeters,
+            statistics,
+            (System.nanoTime() - startNanos) / 1e9);
+      }
+    System.exit(0);
+  }
+}
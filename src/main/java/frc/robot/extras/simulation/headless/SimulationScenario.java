@@ -0,0 +1,60 @@
+package frc.robot.extras.simulation.headless;
+
+import frc.robot.extras.simulation.field.SimulatedField;
+
+/**
+ * A match situation run by {@link HeadlessSimulation}, such as an autonomous routine or a
+ * regression check.
+ *
+ * <p>A scenario sets up its robot code and drivetrain simulations on a fresh field, lets the runner
+ * step them for its duration, then checks where they ended up. A new instance is created for every
+ * run, so scenarios can keep their state in fields.
+ */
+public interface SimulationScenario {
+  /** Gets the name the results are reported under. */
+  default String getName() {
+    return getClass().getSimpleName();
+  }
+
+  /** Gets how long the scenario runs for, in simulated seconds. */
+  double getDurationSeconds();
+
+  /** Whether the robot is enabled in autonomous, or in teleop otherwise. */
+  default boolean isAutonomous() {
+    return true;
+  }
+
+  /**
+   * Creates the subsystems and drivetrain simulations of the scenario and schedules its commands.
+   * The robot is already enabled when this is called.
+   *
+   * @param field the empty field the scenario runs on, which the runner steps every period
+   */
+  void initialize(SimulatedField field);
+
+  /**
+   * Called every period, after the command scheduler runs and before the field is stepped.
+   *
+   * @param timeSeconds the simulated time since the scenario started
+   */
+  default void periodic(double timeSeconds) {}
+
+  /**
+   * Checks the state the scenario ended in, after the robot has been disabled.
+   *
+   * @return whether the scenario passed
+   */
+  default boolean verify() {
+    return true;
+  }
+
+  /**
+   * Describes the state the scenario ended in, such as how close it came to failing. Called after
+   * {@link #verify()}.
+   *
+   * @return the description reported with the result, empty by default
+   */
+  default String getSummary() {
+    return "";
+  }
+}
@@ -3,6 +3,7 @@ package frc.robot.extras.simulation.mechanismSim.swerve;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.extras.simulation.field.SimulatedField;
 import frc.robot.extras.util.GeomUtil;
 import org.dyn4j.dynamics.Body;
 import org.dyn4j.dynamics.Force;
@@ -37,6 +38,9 @@ public abstract class AbstractDriveTrainSimulation extends Body {
    */
   public final DriveTrainSimulationProfile profile;
 
+  /** The length of each sub-tick of the arena this drivetrain is on, in seconds. */
+  protected double subTickSeconds = SimulatedField.getSimulationDt();
+
   /**
    *
    *
@@ -106,6 +110,20 @@ public abstract class AbstractDriveTrainSimulation extends Body {
     super.setAngularVelocity(givenSpeeds.omegaRadiansPerSecond);
   }
 
+  /**
+   *
+   *
+   * <h2>Takes On the Timing and Random Numbers of an Arena.</h2>
+   *
+   * <p>This method is called by {@link SimulatedField#addDriveTrainSimulation} when the drivetrain
+   * is added to the arena, so you don't need to call it manually.
+   *
+   * @param field the arena the drivetrain is added to
+   */
+  public void setSimulatedField(SimulatedField field) {
+    this.subTickSeconds = field.getSubTickSeconds();
+  }
+
   /**
    *
    *
@@ -0,0 +1,34 @@
+package frc.robot.extras.simulation.mechanismSim.swerve;
+
+/**
+ * A read-only view of the readings a simulated sensor took during the sub-ticks of the last robot
+ * period, oldest first.
+ *
+ * <p>The view reads straight from the ring buffer of the simulation, so it copies nothing and
+ * always shows the latest period. Copy the readings out with {@link #copyTo(double[])} if they are
+ * needed after the next period is simulated.
+ */
+public interface CachedReadings {
+  /** Gets the amount of readings, one per sub-tick of a robot period. */
+  int size();
+
+  /**
+   * Gets a reading.
+   *
+   * @param k the index of the reading, 0 being the oldest and {@link #size()} - 1 the latest
+   * @return the reading
+   */
+  double get(int k);
+
+  /**
+   * Copies the readings, oldest first, into an array.
+   *
+   * @param out the array to copy into, at least {@link #size()} long
+   * @return the array
+   */
+  default double[] copyTo(double[] out) {
+    final int size = size();
+    for (int k = 0; k < size; k++) out[k] = get(k);
+    return out;
+  }
+}
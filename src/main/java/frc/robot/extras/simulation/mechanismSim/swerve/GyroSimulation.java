@@ -1,11 +1,12 @@
 package frc.robot.extras.simulation.mechanismSim.swerve;
 
-import static frc.robot.extras.simulation.field.SimulatedField.*;
-
 import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.BuildConstants;
+import frc.robot.extras.simulation.field.SimulatedField;
 import frc.robot.extras.util.MathUtil;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Simulation for a IMU module used as gyro.
@@ -20,9 +21,14 @@ public class GyroSimulation {
   private final double AVERAGE_DRIFTING_IN_30_SECS_MOTIONLESS_DEG,
       VELOCITY_MEASUREMENT_STANDARD_DEVIATION_PERCENT;
 
-  private Rotation2d gyroReading;
+  private double gyroReadingRad;
   private double measuredAngularVelocityRadPerSec, previousAngularVelocityRadPerSec;
-  private final Queue<Rotation2d> cachedRotations;
+  /* readings of the last robot period, as a ring buffer whose oldest reading is at the head */
+  private double[] cachedRotationsRad;
+  private int cacheHead;
+  private final CachedReadings cachedReadingsRad = new GyroCachedReadings();
+  private double subTickSeconds = SimulatedField.getSimulationDt();
+  private RandomGenerator random = new SplittableRandom(BuildConstants.GIT_SHA.hashCode());
 
   /**
    * creates a gyro simulation
@@ -40,10 +46,33 @@ public class GyroSimulation {
     this.VELOCITY_MEASUREMENT_STANDARD_DEVIATION_PERCENT =
         VELOCITY_MEASUREMENT_STANDARD_DEVIATION_PERCENT;
 
-    gyroReading = new Rotation2d();
+    gyroReadingRad = 0;
     this.previousAngularVelocityRadPerSec = this.measuredAngularVelocityRadPerSec = 0;
-    this.cachedRotations = new ConcurrentLinkedQueue<>();
-    for (int i = 0; i < SIMULATION_SUB_TICKS_IN_1_PERIOD; i++) cachedRotations.offer(gyroReading);
+    setSimulationTiming(subTickSeconds, SimulatedField.getSimulationSubTicksIn1Period());
+  }
+
+  /**
+   * sets the sub-tick length and the amount of readings cached per robot period, to match the arena
+   * the gyro runs in. This is called when the drivetrain is added to an arena.
+   *
+   * @param subTickSeconds the length of each sub-tick, in seconds
+   * @param subTicksPerPeriod the number of sub-ticks in each robot period
+   */
+  public void setSimulationTiming(double subTickSeconds, int subTicksPerPeriod) {
+    this.subTickSeconds = subTickSeconds;
+    cachedRotationsRad = new double[subTicksPerPeriod];
+    Arrays.fill(cachedRotationsRad, gyroReadingRad);
+    cacheHead = 0;
+  }
+
+  /**
+   * sets the random number generator the measurement noise and drifting are drawn from. This is
+   * called with a stream of the arena when the drivetrain is added to an arena.
+   *
+   * @param random the random number generator
+   */
+  public void setRandom(RandomGenerator random) {
+    this.random = random;
   }
 
   /**
@@ -55,7 +84,7 @@ public class GyroSimulation {
    * @param currentRotation the current rotation of the robot
    */
   public void setRotation(Rotation2d currentRotation) {
-    this.gyroReading = currentRotation;
+    this.gyroReadingRad = currentRotation.getRadians();
   }
 
   /**
@@ -63,7 +92,14 @@ public class GyroSimulation {
    *     <p>NOTE: the rotation increases continuously, it does not roll over every 360 degrees
    */
   public Rotation2d getGyroReading() {
-    return gyroReading;
+    return Rotation2d.fromRadians(gyroReadingRad);
+  }
+
+  /**
+   * @return the current reading of the gyro, in radians, without creating a {@link Rotation2d}
+   */
+  public double getGyroReadingRad() {
+    return gyroReadingRad;
   }
 
   /**
@@ -79,10 +115,22 @@ public class GyroSimulation {
    * href="https://v6.docs.ctr-electronics.com/en/stable/docs/application-notes/update-frequency-impact.html">high-frequency
    * odometers</a>.
    *
-   * @return the readings of the gyro during the last 5 simulation sub ticks
+   * @return the readings of the gyro during the sub-ticks of the last robot period
    */
   public Rotation2d[] getCachedGyroReadings() {
-    return cachedRotations.toArray(Rotation2d[]::new);
+    final Rotation2d[] readings = new Rotation2d[cachedRotationsRad.length];
+    for (int k = 0; k < readings.length; k++)
+      readings[k] = Rotation2d.fromRadians(cachedReadingsRad.get(k));
+    return readings;
+  }
+
+  /**
+   * gets the same readings as {@link #getCachedGyroReadings()}, in radians, without copying them.
+   *
+   * @return a view of the readings of the gyro during the sub-ticks of the last robot period
+   */
+  public CachedReadings getCachedGyroReadingsRadView() {
+    return cachedReadingsRad;
   }
 
   /**
@@ -91,17 +139,25 @@ public class GyroSimulation {
    * it 5 times in a roll.
    */
   public void updateSimulationSubTick(double actualAngularVelocityRadPerSec) {
-    final Rotation2d driftingDueToImpact = getDriftingDueToImpact(actualAngularVelocityRadPerSec);
-    gyroReading = gyroReading.plus(driftingDueToImpact);
+    gyroReadingRad += getDriftingDueToImpactRad(actualAngularVelocityRadPerSec);
+    gyroReadingRad += getGyroDThetaRad(actualAngularVelocityRadPerSec);
+    gyroReadingRad += getNoMotionDriftingRad();
 
-    final Rotation2d dTheta = getGyroDTheta(actualAngularVelocityRadPerSec);
-    gyroReading = gyroReading.plus(dTheta);
-
-    final Rotation2d noMotionDrifting = getNoMotionDrifting();
-    gyroReading = gyroReading.plus(noMotionDrifting);
+    cachedRotationsRad[cacheHead] = gyroReadingRad;
+    cacheHead = cacheHead + 1 == cachedRotationsRad.length ? 0 : cacheHead + 1;
+  }
 
-    cachedRotations.poll();
-    cachedRotations.offer(gyroReading);
+  private final class GyroCachedReadings implements CachedReadings {
+    @Override
+    public int size() {
+      return cachedRotationsRad.length;
+    }
+
+    @Override
+    public double get(int k) {
+      final int slot = cacheHead + k, length = cachedRotationsRad.length;
+      return cachedRotationsRad[slot >= length ? slot - length : slot];
+    }
   }
 
   /**
@@ -112,10 +168,10 @@ public class GyroSimulation {
    *
    * @return the amount of drifting that IMU will experience, if an impact is detected, 0 otherwise
    */
-  private Rotation2d getDriftingDueToImpact(double actualAngularVelocityRadPerSec) {
+  private double getDriftingDueToImpactRad(double actualAngularVelocityRadPerSec) {
     final double
         angularAccelerationRadPerSecSq =
-            (actualAngularVelocityRadPerSec - previousAngularVelocityRadPerSec) / SIMULATION_DT,
+            (actualAngularVelocityRadPerSec - previousAngularVelocityRadPerSec) / subTickSeconds,
         driftingDueToImpactDegUnlimitedAbsVal =
             Math.abs(angularAccelerationRadPerSecSq) > ANGULAR_ACCELERATION_THRESHOLD_START_DRIFTING
                 ? Math.abs(angularAccelerationRadPerSecSq)
@@ -129,25 +185,26 @@ public class GyroSimulation {
 
     previousAngularVelocityRadPerSec = actualAngularVelocityRadPerSec;
 
-    return Rotation2d.fromRadians(driftingDueToImpactDeg);
+    return driftingDueToImpactDeg;
   }
 
-  private Rotation2d getGyroDTheta(double actualAngularVelocityRadPerSec) {
+  private double getGyroDThetaRad(double actualAngularVelocityRadPerSec) {
     this.measuredAngularVelocityRadPerSec =
         MathUtil.generateRandomNormal(
+            random,
             actualAngularVelocityRadPerSec,
             VELOCITY_MEASUREMENT_STANDARD_DEVIATION_PERCENT
                 * Math.abs(actualAngularVelocityRadPerSec));
-    return Rotation2d.fromRadians(measuredAngularVelocityRadPerSec * SIMULATION_DT);
+    return measuredAngularVelocityRadPerSec * subTickSeconds;
   }
 
-  private Rotation2d getNoMotionDrifting() {
+  private double getNoMotionDriftingRad() {
     final double
         AVERAGE_DRIFTING_1_PERIOD =
-            this.AVERAGE_DRIFTING_IN_30_SECS_MOTIONLESS_DEG / 30 * SIMULATION_DT,
-        driftingInThisPeriod = MathUtil.generateRandomNormal(0, AVERAGE_DRIFTING_1_PERIOD);
+            this.AVERAGE_DRIFTING_IN_30_SECS_MOTIONLESS_DEG / 30 * subTickSeconds,
+        driftingInThisPeriod = MathUtil.generateRandomNormal(random, 0, AVERAGE_DRIFTING_1_PERIOD);
 
-    return Rotation2d.fromDegrees(driftingInThisPeriod);
+    return Math.toRadians(driftingInThisPeriod);
   }
 
   /**
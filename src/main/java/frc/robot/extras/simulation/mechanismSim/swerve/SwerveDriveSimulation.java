@@ -28,8 +28,8 @@ import org.dyn4j.geometry.Vector2;
  * <h3>Simulation Dynamics</h3>
  *
  * <ul>
- *   <li>1. Propelling forces generated by the drive motors, computed by {@link
- *       SwerveModuleSimulation#updateSimulationSubTickGetModuleForce(Vector2, Rotation2d, double)}.
+ *   <li>1. Propelling forces generated by the drive motors, computed for all modules at once by
+ *       {@link SwerveModuleArraySimulation#update}.
  *   <li>2. Friction forces generated by the wheels that "pull" the robot from its current ground
  *       velocity to the module velocities, both translational and rotational.
  *   <li>3. Centripetal forces generated by the steering when the drivetrain makes a turn.
@@ -62,8 +62,11 @@ import org.dyn4j.geometry.Vector2;
  */
 public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
   private final SwerveModuleSimulation[] moduleSimulations;
+  private final SwerveModuleArraySimulation moduleArraySimulation;
   private final GyroSimulation gyroSimulation;
   private final Translation2d[] moduleTranslations;
+  private final double[] moduleOffsetsX, moduleOffsetsY;
+  private boolean batchedModuleSimulation = true;
   private final SwerveDriveKinematics swerveDriveKinematics;
   private final double gravityForceOnEachModule;
 
@@ -113,7 +116,10 @@ public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
         initialPoseOnField);
 
     this.moduleSimulations = moduleSimulations;
+    this.moduleArraySimulation = SwerveModuleArraySimulation.attach(moduleSimulations);
     this.moduleTranslations = moduleTranslations;
+    this.moduleOffsetsX = new double[moduleSimulations.length];
+    this.moduleOffsetsY = new double[moduleSimulations.length];
     this.swerveDriveKinematics = new SwerveDriveKinematics(moduleTranslations);
     this.gyroSimulation = gyroSimulation;
 
@@ -169,6 +175,24 @@ public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
         initialPoseOnField);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The modules and the gyro take on the timing of the arena. Each of them also gets its own
+   * stream of random numbers split off the arena, in a fixed order, so the same seed always gives
+   * the same starting angles and gyro noise.
+   */
+  @Override
+  public void setSimulatedField(SimulatedField field) {
+    super.setSimulatedField(field);
+    for (SwerveModuleSimulation moduleSimulation : moduleSimulations)
+      moduleSimulation.setRandom(field.splitRandom());
+    moduleArraySimulation.setSimulationTiming(
+        field.getSubTickSeconds(), field.getSubTicksPerPeriod());
+    gyroSimulation.setSimulationTiming(field.getSubTickSeconds(), field.getSubTicksPerPeriod());
+    gyroSimulation.setRandom(field.splitRandom());
+  }
+
   /**
    *
    *
@@ -247,7 +271,7 @@ public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
         GeomUtil.getChassisSpeedsTranslationalComponent(moduleSpeedsFieldRelative)
             .getAngle()
             .minus(previousModuleSpeedsFieldRelative.getAngle());
-    final double orbitalAngularVelocity = dTheta.getRadians() / SimulatedField.getSimulationDt();
+    final double orbitalAngularVelocity = dTheta.getRadians() / subTickSeconds;
     final Rotation2d centripetalForceDirection =
         previousModuleSpeedsFieldRelative.getAngle().plus(Rotation2d.fromDegrees(90));
     final Vector2 centripetalFrictionForce =
@@ -328,6 +352,52 @@ public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
    * <p>The total friction force should not exceed the tire's grip limit.
    */
   private void simulateModulePropellingForces() {
+    if (!batchedModuleSimulation) {
+      simulateModulePropellingForcesOneByOne();
+      return;
+    }
+
+    /* the position of each module relative to the center of mass, in the world frame */
+    final double cos = getTransform().getCost(), sin = getTransform().getSint();
+    final Vector2 localCenter = getMass().getCenter();
+    for (int i = 0; i < moduleSimulations.length; i++) {
+      final double x = moduleTranslations[i].getX() - localCenter.x,
+          y = moduleTranslations[i].getY() - localCenter.y;
+      moduleOffsetsX[i] = x * cos - y * sin;
+      moduleOffsetsY[i] = x * sin + y * cos;
+    }
+
+    final Vector2 linearVelocity = super.getLinearVelocity();
+    moduleArraySimulation.update(
+        linearVelocity.x,
+        linearVelocity.y,
+        super.getAngularVelocity(),
+        cos,
+        sin,
+        moduleOffsetsX,
+        moduleOffsetsY,
+        gravityForceOnEachModule);
+
+    /* the same force and torque as applying each module force at the module */
+    double forceX = 0, forceY = 0, torque = 0;
+    for (int i = 0; i < moduleSimulations.length; i++) {
+      final double moduleForceX = moduleArraySimulation.getModuleForceX(i),
+          moduleForceY = moduleArraySimulation.getModuleForceY(i);
+      forceX += moduleForceX;
+      forceY += moduleForceY;
+      torque += moduleOffsetsX[i] * moduleForceY - moduleOffsetsY[i] * moduleForceX;
+    }
+    super.applyForce(new Vector2(forceX, forceY));
+    super.applyTorque(torque);
+  }
+
+  /**
+   * Updates the modules one at a time with {@link
+   * SwerveModuleSimulation#updateSimulationSubTickGetModuleForce}, applying each force at its
+   * module. This is how the modules were simulated before {@link SwerveModuleArraySimulation}, with
+   * a {@link BrushlessMotorSim} per turn motor, and is kept as the reference to check it against.
+   */
+  private void simulateModulePropellingForcesOneByOne() {
     for (int i = 0; i < moduleSimulations.length; i++) {
       final Vector2 moduleWorldPosition =
           getWorldPoint(GeomUtil.toDyn4jVector2(moduleTranslations[i]));
@@ -340,6 +410,16 @@ public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
     }
   }
 
+  /**
+   * Sets whether the modules are updated all at once by {@link SwerveModuleArraySimulation}, which
+   * is the default, or one at a time. Both give the same results, up to floating point rounding.
+   *
+   * @param batchedModuleSimulation whether to update the modules all at once
+   */
+  public void setBatchedModuleSimulation(boolean batchedModuleSimulation) {
+    this.batchedModuleSimulation = batchedModuleSimulation;
+  }
+
   /**
    *
    *
@@ -402,4 +482,9 @@ public class SwerveDriveSimulation extends AbstractDriveTrainSimulation {
   public SwerveModuleSimulation[] getModules() {
     return moduleSimulations;
   }
+
+  /** Gets the arrays that hold the state of every module of this drivetrain. */
+  public SwerveModuleArraySimulation getModuleArraySimulation() {
+    return moduleArraySimulation;
+  }
 }
@@ -0,0 +1,506 @@
+package frc.robot.extras.simulation.mechanismSim.swerve;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import frc.robot.extras.simulation.field.SimulatedField;
+
+/**
+ *
+ *
+ * <h1>The State of a Set of Swerve Modules, as a Structure of Arrays.</h1>
+ *
+ * <p>Every parameter and state variable of the modules is a primitive array with one entry per
+ * module, and the sensor readings cached for high-frequency odometry are primitive ring buffers.
+ * {@link SwerveModuleSimulation} objects are views of one index of these arrays.
+ *
+ * <p>{@link #update} steps every module through one sub-tick in a few straight loops over the
+ * arrays, without creating any objects. The loops only call static math helpers and have few
+ * branches, so the JIT can unroll them, and they map directly onto the lanes of the JDK Vector API.
+ * The motor models are the ones of {@link BrushlessMotorSim} and {@link DCMotor}, inlined with
+ * their constants precomputed.
+ */
+public final class SwerveModuleArraySimulation {
+  private static final double DRIVE_WHEEL_INERTIA = 0.01;
+  /* the part of the drive torque that spins the wheel freely when it skids */
+  private static final double SKIDDING_TORQUE_PERCENT = 0.3;
+  private static final double DRIVE_MAX_VOLTS = 12.0;
+  private static final double TURN_FRICTION_GAIN = 3.0;
+
+  /* the sensors whose readings are cached, for getCachedReading() */
+  static final int DRIVE_POSITION = 0, TURN_ABSOLUTE_POSITION = 1, TURN_RELATIVE_POSITION = 2;
+
+  final int moduleCount;
+  final SwerveModuleSimulation[] modules;
+
+  /* parameters of the drive motors */
+  private final double[] driveGearRatio,
+      driveCurrentLimitAmps,
+      driveFrictionVolts,
+      driveCurrentPerRadPerSec,
+      driveCurrentPerVolt,
+      driveTorquePerAmp,
+      driveVoltsPerRadPerSec,
+      driveVoltsPerNewtonMeter,
+      wheelRadiusMeters,
+      wheelCoefficientOfFriction;
+
+  /* parameters of the turn motors */
+  private final double[] turnGearRatio,
+      turnInertia,
+      turnFrictionTorque,
+      turnFreeSpeedRadPerSec,
+      turnCurrentPerRadPerSec,
+      turnCurrentPerVolt,
+      turnTorquePerAmp,
+      turnVoltsPerRadPerSec,
+      turnVoltsPerNewtonMeter,
+      turnCurrentLimitAmps;
+
+  /* state of the drive motors */
+  final double[] driveRequestedVolts,
+      driveAppliedVolts,
+      driveSupplyCurrentAmps,
+      driveUnGearedPositionRad,
+      driveUnGearedSpeedRadPerSec;
+
+  /* state of the turn motors, and the volts reported to the robot code */
+  final double[] turnRequestedVolts,
+      turnReportedVolts,
+      turnAppliedVolts,
+      turnCurrentAmps,
+      turnPositionRad,
+      turnVelocityRadPerSec;
+
+  /* sensor readings of the turn motors */
+  final double[] turnAbsolutePositionRad,
+      turnAbsoluteSpeedRadPerSec,
+      turnRelativeEncoderOffsetRad,
+      turnRelativePositionRad,
+      turnRelativeSpeedRadPerSec;
+
+  /* per sub-tick scratch space and outputs */
+  private final double[] driveTorque, wheelDirectionX, wheelDirectionY;
+  final double[] moduleForceX, moduleForceY;
+
+  /*
+   * Sensor readings of the last robot period, for high-frequency odometry. Module i owns the slots
+   * [i * cacheLength, (i + 1) * cacheLength), and the oldest reading is at its cache head.
+   */
+  private int cacheLength;
+  private double[] cachedDrivePositionsRad, cachedTurnAbsolutePositionsRad, cachedTurnRelativeRad;
+  private final int[] cacheHead;
+
+  private double subTickSeconds = SimulatedField.getSimulationDt();
+
+  /**
+   * Gathers modules into one set of arrays, copying their parameters and current state. From now
+   * on the modules are views of the returned arrays, each owning the slot at its index, and the
+   * arrays they were attached to before are no longer used by them.
+   *
+   * @param modules the modules, in the order of their indices
+   * @return the arrays now holding the state of the modules
+   */
+  public static SwerveModuleArraySimulation attach(SwerveModuleSimulation... modules) {
+    return new SwerveModuleArraySimulation(modules);
+  }
+
+  private SwerveModuleArraySimulation(SwerveModuleSimulation... modules) {
+    this.moduleCount = modules.length;
+    this.modules = modules.clone();
+
+    driveGearRatio = new double[moduleCount];
+    driveCurrentLimitAmps = new double[moduleCount];
+    driveFrictionVolts = new double[moduleCount];
+    driveCurrentPerRadPerSec = new double[moduleCount];
+    driveCurrentPerVolt = new double[moduleCount];
+    driveTorquePerAmp = new double[moduleCount];
+    driveVoltsPerRadPerSec = new double[moduleCount];
+    driveVoltsPerNewtonMeter = new double[moduleCount];
+    wheelRadiusMeters = new double[moduleCount];
+    wheelCoefficientOfFriction = new double[moduleCount];
+
+    turnGearRatio = new double[moduleCount];
+    turnInertia = new double[moduleCount];
+    turnFrictionTorque = new double[moduleCount];
+    turnFreeSpeedRadPerSec = new double[moduleCount];
+    turnCurrentPerRadPerSec = new double[moduleCount];
+    turnCurrentPerVolt = new double[moduleCount];
+    turnTorquePerAmp = new double[moduleCount];
+    turnVoltsPerRadPerSec = new double[moduleCount];
+    turnVoltsPerNewtonMeter = new double[moduleCount];
+    turnCurrentLimitAmps = new double[moduleCount];
+
+    driveRequestedVolts = new double[moduleCount];
+    driveAppliedVolts = new double[moduleCount];
+    driveSupplyCurrentAmps = new double[moduleCount];
+    driveUnGearedPositionRad = new double[moduleCount];
+    driveUnGearedSpeedRadPerSec = new double[moduleCount];
+
+    turnRequestedVolts = new double[moduleCount];
+    turnReportedVolts = new double[moduleCount];
+    turnAppliedVolts = new double[moduleCount];
+    turnCurrentAmps = new double[moduleCount];
+    turnPositionRad = new double[moduleCount];
+    turnVelocityRadPerSec = new double[moduleCount];
+
+    turnAbsolutePositionRad = new double[moduleCount];
+    turnAbsoluteSpeedRadPerSec = new double[moduleCount];
+    turnRelativeEncoderOffsetRad = new double[moduleCount];
+    turnRelativePositionRad = new double[moduleCount];
+    turnRelativeSpeedRadPerSec = new double[moduleCount];
+
+    driveTorque = new double[moduleCount];
+    wheelDirectionX = new double[moduleCount];
+    wheelDirectionY = new double[moduleCount];
+    moduleForceX = new double[moduleCount];
+    moduleForceY = new double[moduleCount];
+    cacheHead = new int[moduleCount];
+
+    for (int i = 0; i < moduleCount; i++) {
+      final SwerveModuleSimulation module = modules[i];
+      setDriveMotor(i, module.DRIVE_MOTOR);
+      driveGearRatio[i] = module.DRIVE_GEAR_RATIO;
+      driveCurrentLimitAmps[i] = module.DRIVE_CURRENT_LIMIT;
+      driveFrictionVolts[i] = module.DRIVE_FRICTION_VOLTAGE;
+      wheelRadiusMeters[i] = module.WHEEL_RADIUS_METERS;
+      wheelCoefficientOfFriction[i] = module.WHEELS_COEFFICIENT_OF_FRICTION;
+
+      setTurnMotor(i, module.TURN_MOTOR);
+      turnGearRatio[i] = module.TURN_GEAR_RATIO;
+      turnInertia[i] = module.TURN_ROTATIONAL_INERTIA;
+      turnFrictionTorque[i] =
+          module.TURN_MOTOR.getTorque(
+                  module.TURN_MOTOR.getCurrent(0, module.TURN_FRICTION_VOLTAGE))
+              * module.TURN_GEAR_RATIO;
+      turnCurrentLimitAmps[i] = Double.POSITIVE_INFINITY;
+    }
+
+    final SwerveModuleArraySimulation previous = modules[0].getArraySimulation();
+    setSimulationTiming(
+        previous == null ? subTickSeconds : previous.subTickSeconds,
+        previous == null ? SimulatedField.getSimulationSubTicksIn1Period() : previous.cacheLength);
+    for (int i = 0; i < moduleCount; i++) {
+      final SwerveModuleSimulation module = modules[i];
+      if (module.getArraySimulation() != null)
+        copyState(module.getArraySimulation(), module.getModuleIndex(), i);
+      module.bind(this, i);
+    }
+  }
+
+  /** Precomputes the constants of the {@link DCMotor} equations of a drive motor. */
+  private void setDriveMotor(int i, DCMotor motor) {
+    driveCurrentPerRadPerSec[i] = -1.0 / motor.KvRadPerSecPerVolt / motor.rOhms;
+    driveCurrentPerVolt[i] = 1.0 / motor.rOhms;
+    driveTorquePerAmp[i] = motor.KtNMPerAmp;
+    driveVoltsPerRadPerSec[i] = 1.0 / motor.KvRadPerSecPerVolt;
+    driveVoltsPerNewtonMeter[i] = 1.0 / motor.KtNMPerAmp * motor.rOhms;
+  }
+
+  /** Precomputes the constants of the {@link DCMotor} equations of a turn motor. */
+  private void setTurnMotor(int i, DCMotor motor) {
+    turnFreeSpeedRadPerSec[i] = motor.freeSpeedRadPerSec;
+    turnCurrentPerRadPerSec[i] = -1.0 / motor.KvRadPerSecPerVolt / motor.rOhms;
+    turnCurrentPerVolt[i] = 1.0 / motor.rOhms;
+    turnTorquePerAmp[i] = motor.KtNMPerAmp;
+    turnVoltsPerRadPerSec[i] = 1.0 / motor.KvRadPerSecPerVolt;
+    turnVoltsPerNewtonMeter[i] = 1.0 / motor.KtNMPerAmp * motor.rOhms;
+  }
+
+  /** Copies the state and the cached readings of one module of another set of arrays. */
+  private void copyState(SwerveModuleArraySimulation from, int fromIndex, int toIndex) {
+    final double[][] source = from.stateArrays(), destination = stateArrays();
+    for (int array = 0; array < source.length; array++)
+      destination[array][toIndex] = source[array][fromIndex];
+
+    for (int k = 0; k < cacheLength; k++) {
+      final int fromSlot = from.cacheSlot(fromIndex, Math.min(k, from.cacheLength - 1));
+      final int toSlot = toIndex * cacheLength + k;
+      cachedDrivePositionsRad[toSlot] = from.cachedDrivePositionsRad[fromSlot];
+      cachedTurnAbsolutePositionsRad[toSlot] = from.cachedTurnAbsolutePositionsRad[fromSlot];
+      cachedTurnRelativeRad[toSlot] = from.cachedTurnRelativeRad[fromSlot];
+    }
+    cacheHead[toIndex] = 0;
+  }
+
+  private double[][] stateArrays() {
+    return new double[][] {
+      driveRequestedVolts,
+      driveAppliedVolts,
+      driveSupplyCurrentAmps,
+      driveUnGearedPositionRad,
+      driveUnGearedSpeedRadPerSec,
+      turnRequestedVolts,
+      turnReportedVolts,
+      turnAppliedVolts,
+      turnCurrentAmps,
+      turnPositionRad,
+      turnVelocityRadPerSec,
+      turnAbsolutePositionRad,
+      turnAbsoluteSpeedRadPerSec,
+      turnRelativeEncoderOffsetRad,
+      turnRelativePositionRad,
+      turnRelativeSpeedRadPerSec
+    };
+  }
+
+  /**
+   * Sets the sub-tick length and the amount of sensor readings cached per robot period, and fills
+   * the caches of every module with its current readings.
+   *
+   * @param subTickSeconds the length of each sub-tick, in seconds
+   * @param subTicksPerPeriod the number of sub-ticks in each robot period
+   */
+  public void setSimulationTiming(double subTickSeconds, int subTicksPerPeriod) {
+    this.subTickSeconds = subTickSeconds;
+    this.cacheLength = subTicksPerPeriod;
+    cachedDrivePositionsRad = new double[moduleCount * subTicksPerPeriod];
+    cachedTurnAbsolutePositionsRad = new double[moduleCount * subTicksPerPeriod];
+    cachedTurnRelativeRad = new double[moduleCount * subTicksPerPeriod];
+    for (int i = 0; i < moduleCount; i++) {
+      cacheHead[i] = 0;
+      for (int k = 0; k < subTicksPerPeriod; k++) {
+        cachedDrivePositionsRad[i * subTicksPerPeriod + k] = driveUnGearedPositionRad[i];
+        cachedTurnAbsolutePositionsRad[i * subTicksPerPeriod + k] = turnAbsolutePositionRad[i];
+        cachedTurnRelativeRad[i * subTicksPerPeriod + k] = turnRelativePositionRad[i];
+      }
+    }
+  }
+
+  /**
+   * Steps every module through one sub-tick.
+   *
+   * <p>The ground velocity of each module is the chassis velocity plus the chassis angular velocity
+   * crossed with the position of the module relative to the center of mass. The forces are written
+   * to {@link #getModuleForceX} and {@link #getModuleForceY}, in the world frame.
+   *
+   * @param chassisVelocityX the world-relative x velocity of the center of mass, in m/s
+   * @param chassisVelocityY the world-relative y velocity of the center of mass, in m/s
+   * @param chassisAngularVelocity the angular velocity of the chassis, in rad/s
+   * @param headingCos the cosine of the heading of the chassis
+   * @param headingSin the sine of the heading of the chassis
+   * @param moduleOffsetX the world-relative x offset of each module from the center of mass
+   * @param moduleOffsetY the world-relative y offset of each module from the center of mass
+   * @param gravityForceOnModuleNewtons the weight carried by each module, in newtons
+   */
+  public void update(
+      double chassisVelocityX,
+      double chassisVelocityY,
+      double chassisAngularVelocity,
+      double headingCos,
+      double headingSin,
+      double[] moduleOffsetX,
+      double[] moduleOffsetY,
+      double gravityForceOnModuleNewtons) {
+    updateTurnMotors(0, moduleCount, RoboRioSim.getVInVoltage());
+    updateDriveTorques(0, moduleCount);
+    for (int i = 0; i < moduleCount; i++) {
+      final double groundVelocityX = chassisVelocityX - chassisAngularVelocity * moduleOffsetY[i];
+      final double groundVelocityY = chassisVelocityY + chassisAngularVelocity * moduleOffsetX[i];
+      updatePropellingForce(
+          i, groundVelocityX, groundVelocityY, headingCos, headingSin, gravityForceOnModuleNewtons);
+    }
+    updateDriveEncoders(0, moduleCount);
+  }
+
+  /**
+   * Caches the current readings of a module and moves its cache head on, for a module stepped
+   * through the sub-tick on its own by {@link
+   * SwerveModuleSimulation#updateSimulationSubTickGetModuleForce}.
+   */
+  void cacheReadings(int i) {
+    final int slot = cacheSlot(i, 0);
+    cachedTurnAbsolutePositionsRad[slot] = turnAbsolutePositionRad[i];
+    cachedTurnRelativeRad[slot] = turnRelativePositionRad[i];
+    cachedDrivePositionsRad[slot] = driveUnGearedPositionRad[i];
+    cacheHead[i] = cacheHead[i] + 1 == cacheLength ? 0 : cacheHead[i] + 1;
+  }
+
+  /** {@link BrushlessMotorSim#update}, then the turn sensor readings. */
+  private void updateTurnMotors(int from, int to, double batteryVolts) {
+    for (int i = from; i < to; i++) {
+      final double motorSpeed = turnVelocityRadPerSec[i] * turnGearRatio[i];
+
+      /* BrushlessMotorSim.constrainOutputVoltage() */
+      final double requestedVolts = turnRequestedVolts[i];
+      final double currentAtRequestedVolts =
+          turnCurrentPerRadPerSec[i] * motorSpeed + turnCurrentPerVolt[i] * requestedVolts;
+      double limitedVolts = requestedVolts;
+      if (Math.abs(currentAtRequestedVolts) > 1.2 * turnCurrentLimitAmps[i]) {
+        final double limitedCurrent =
+            Math.copySign(turnCurrentLimitAmps[i], currentAtRequestedVolts);
+        limitedVolts =
+            turnVoltsPerRadPerSec[i] * motorSpeed
+                + turnVoltsPerNewtonMeter[i] * (limitedCurrent * turnTorquePerAmp[i]);
+      }
+      if (Math.abs(limitedVolts) > Math.abs(requestedVolts)) limitedVolts = requestedVolts;
+      turnAppliedVolts[i] = MathUtil.clamp(limitedVolts, -batteryVolts, batteryVolts);
+
+      /* electric torque, always in brake mode */
+      turnCurrentAmps[i] =
+          turnCurrentPerRadPerSec[i] * motorSpeed + turnCurrentPerVolt[i] * turnAppliedVolts[i];
+      double torque = turnCurrentAmps[i] * turnTorquePerAmp[i] * turnGearRatio[i];
+
+      /* friction */
+      final double velocity = turnVelocityRadPerSec[i];
+      if (torque * velocity > 0)
+        torque = MathUtil.applyDeadband(torque, turnFrictionTorque[i], Double.POSITIVE_INFINITY);
+      else
+        torque +=
+            Math.copySign(
+                Math.min(
+                    Math.abs(velocity)
+                        * turnGearRatio[i]
+                        / turnFreeSpeedRadPerSec[i]
+                        * TURN_FRICTION_GAIN
+                        * turnFrictionTorque[i],
+                    turnFrictionTorque[i]),
+                -velocity);
+
+      turnVelocityRadPerSec[i] += torque / turnInertia[i] * subTickSeconds;
+      turnPositionRad[i] += turnVelocityRadPerSec[i] * subTickSeconds;
+
+      /* update the readings of the sensors */
+      turnAbsolutePositionRad[i] = turnPositionRad[i];
+      turnRelativePositionRad[i] = turnPositionRad[i] + turnRelativeEncoderOffsetRad[i];
+      turnAbsoluteSpeedRadPerSec[i] = turnVelocityRadPerSec[i];
+      turnRelativeSpeedRadPerSec[i] = turnVelocityRadPerSec[i] * turnGearRatio[i];
+
+      final int slot = cacheSlot(i, 0);
+      cachedTurnAbsolutePositionsRad[slot] = turnAbsolutePositionRad[i];
+      cachedTurnRelativeRad[slot] = turnRelativePositionRad[i];
+    }
+  }
+
+  /** The drive motor model, with its current limit and friction voltage, as the wheel torque. */
+  private void updateDriveTorques(int from, int to) {
+    for (int i = from; i < to; i++) {
+      final double motorSpeed = driveUnGearedSpeedRadPerSec[i];
+      final double requestedVolts = driveRequestedVolts[i];
+      final double currentAtRequestedVolts =
+          driveCurrentPerRadPerSec[i] * motorSpeed + driveCurrentPerVolt[i] * requestedVolts;
+
+      /* the motor controller cuts the voltage when the current exceeds 120% of the limit */
+      double appliedVolts = requestedVolts;
+      if (Math.abs(currentAtRequestedVolts) > 1.2 * driveCurrentLimitAmps[i]
+          && requestedVolts * driveSupplyCurrentAmps[i] > 0) {
+        final double limitedCurrent =
+            Math.copySign(driveCurrentLimitAmps[i], currentAtRequestedVolts);
+        appliedVolts =
+            driveVoltsPerRadPerSec[i] * motorSpeed
+                + driveVoltsPerNewtonMeter[i] * (limitedCurrent * driveTorquePerAmp[i]);
+      }
+      driveAppliedVolts[i] = MathUtil.clamp(appliedVolts, -DRIVE_MAX_VOLTS, DRIVE_MAX_VOLTS);
+
+      driveSupplyCurrentAmps[i] =
+          driveCurrentPerRadPerSec[i] * motorSpeed
+              + driveCurrentPerVolt[i]
+                  * MathUtil.applyDeadband(
+                      driveAppliedVolts[i], driveFrictionVolts[i], DRIVE_MAX_VOLTS);
+      driveTorque[i] = driveSupplyCurrentAmps[i] * driveTorquePerAmp[i] * driveGearRatio[i];
+    }
+  }
+
+  /** The force the wheel pushes the chassis with, and the wheel speed that results. */
+  private void updatePropellingForce(
+      int i,
+      double groundVelocityX,
+      double groundVelocityY,
+      double headingCos,
+      double headingSin,
+      double gravityForceOnModuleNewtons) {
+    final double grippingForceNewtons = gravityForceOnModuleNewtons * wheelCoefficientOfFriction[i];
+    final double theoreticalPropellingForceNewtons = driveTorque[i] / wheelRadiusMeters[i];
+    final boolean skidding = Math.abs(theoreticalPropellingForceNewtons) > grippingForceNewtons;
+    final double propellingForceNewtons =
+        skidding
+            ? Math.copySign(grippingForceNewtons, theoreticalPropellingForceNewtons)
+            : theoreticalPropellingForceNewtons;
+
+    /* the direction of the wheel in the world */
+    final double turnCos = Math.cos(turnAbsolutePositionRad[i]);
+    final double turnSin = Math.sin(turnAbsolutePositionRad[i]);
+    wheelDirectionX[i] = turnCos * headingCos - turnSin * headingSin;
+    wheelDirectionY[i] = turnCos * headingSin + turnSin * headingCos;
+    moduleForceX[i] = propellingForceNewtons * wheelDirectionX[i];
+    moduleForceY[i] = propellingForceNewtons * wheelDirectionY[i];
+
+    if (skidding)
+      /* if the chassis is skidding, part of the toque will cause the wheels to spin freely */
+      driveUnGearedSpeedRadPerSec[i] +=
+          driveTorque[i]
+              * SKIDDING_TORQUE_PERCENT
+              / DRIVE_WHEEL_INERTIA
+              * subTickSeconds
+              * driveGearRatio[i];
+    else
+      /* if the chassis is tightly gripped on floor, the floor velocity is projected to the wheel */
+      driveUnGearedSpeedRadPerSec[i] =
+          (groundVelocityX * wheelDirectionX[i] + groundVelocityY * wheelDirectionY[i])
+              / wheelRadiusMeters[i]
+              * driveGearRatio[i];
+  }
+
+  private void updateDriveEncoders(int from, int to) {
+    for (int i = from; i < to; i++) {
+      driveUnGearedPositionRad[i] += driveUnGearedSpeedRadPerSec[i] * subTickSeconds;
+      cachedDrivePositionsRad[cacheSlot(i, 0)] = driveUnGearedPositionRad[i];
+      cacheHead[i] = cacheHead[i] + 1 == cacheLength ? 0 : cacheHead[i] + 1;
+    }
+  }
+
+  /** Gets the slot of the k-th oldest cached reading of a module. */
+  private int cacheSlot(int i, int k) {
+    final int position = cacheHead[i] + k;
+    return i * cacheLength + (position >= cacheLength ? position - cacheLength : position);
+  }
+
+  /**
+   * Gets a cached reading of a module.
+   *
+   * @param sensor {@link #DRIVE_POSITION}, {@link #TURN_ABSOLUTE_POSITION} or {@link
+   *     #TURN_RELATIVE_POSITION}
+   * @param i the index of the module
+   * @param k the index of the reading, 0 being the oldest
+   * @return the reading, in radians
+   */
+  double getCachedReading(int sensor, int i, int k) {
+    final double[] readings =
+        switch (sensor) {
+          case DRIVE_POSITION -> cachedDrivePositionsRad;
+          case TURN_ABSOLUTE_POSITION -> cachedTurnAbsolutePositionsRad;
+          default -> cachedTurnRelativeRad;
+        };
+    return readings[cacheSlot(i, k)];
+  }
+
+  /** Gets the length of each sub-tick, in seconds. */
+  double getSubTickSeconds() {
+    return subTickSeconds;
+  }
+
+  /** Gets the amount of sensor readings cached for each module, one per sub-tick of a period. */
+  public int getCacheLength() {
+    return cacheLength;
+  }
+
+  /** Gets the number of modules. */
+  public int getModuleCount() {
+    return moduleCount;
+  }
+
+  /** Gets the module at an index, which is a view of these arrays. */
+  public SwerveModuleSimulation getModule(int i) {
+    return modules[i];
+  }
+
+  /** Gets the world-relative x force of a module in the last sub-tick, in newtons. */
+  public double getModuleForceX(int i) {
+    return moduleForceX[i];
+  }
+
+  /** Gets the world-relative y force of a module in the last sub-tick, in newtons. */
+  public double getModuleForceY(int i) {
+    return moduleForceY[i];
+  }
+}
@@ -1,8 +1,6 @@
 package frc.robot.extras.simulation.mechanismSim.swerve;
 
 import static edu.wpi.first.units.Units.Volts;
-import static frc.robot.extras.simulation.field.SimulatedField.SIMULATION_DT;
-import static frc.robot.extras.simulation.field.SimulatedField.SIMULATION_SUB_TICKS_IN_1_PERIOD;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -10,39 +8,41 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Voltage;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import frc.robot.BuildConstants;
+import java.util.SplittableRandom;
 import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 import org.dyn4j.geometry.Vector2;
 
+/**
+ * The simulation of one swerve module.
+ *
+ * <p>The state of the module lives in a {@link SwerveModuleArraySimulation}, of which this is a
+ * view. A module created on its own has arrays of its own, and {@link SwerveDriveSimulation}
+ * gathers its modules into one set of arrays, so they are all updated in a single loop.
+ */
 public class SwerveModuleSimulation {
-  private final DCMotor DRIVE_MOTOR;
-  private final BrushlessMotorSim turnMotorSim;
-  private final double DRIVE_CURRENT_LIMIT,
+  final DCMotor DRIVE_MOTOR, TURN_MOTOR;
+  final double DRIVE_CURRENT_LIMIT,
       DRIVE_GEAR_RATIO,
       TURN_GEAR_RATIO,
       DRIVE_FRICTION_VOLTAGE,
       TURN_FRICTION_VOLTAGE,
       WHEELS_COEFFICIENT_OF_FRICTION,
       WHEEL_RADIUS_METERS,
+      TURN_ROTATIONAL_INERTIA,
       DRIVE_WHEEL_INERTIA = 0.01;
-  private double driveMotorRequestedVolts = 0.0,
-      turnMotorAppliedVolts = 0.0,
-      driveMotorAppliedVolts = 0.0,
-      driveMotorSupplyCurrentAmps = 0.0,
-      turnMotorSupplyCurrentAmps = 0.0,
-      turnRelativeEncoderPositionRad = 0.0,
-      turnRelativeEncoderSpeedRadPerSec = 0.0,
-      turnAbsoluteEncoderSpeedRadPerSec = 0.0,
-      driveEncoderUnGearedPositionRad = 0.0,
-      driveEncoderUnGearedSpeedRadPerSec = 0.0;
-  private Rotation2d turnAbsoluteRotation = Rotation2d.fromRotations(Math.random());
-
-  private final double turnRelativeEncoderOffSet = (Math.random() - 0.5) * 30;
-
-  private final Queue<Double> cachedTurnRelativeEncoderPositionsRad,
-      cachedDriveEncoderUnGearedPositionsRad;
-  private final Queue<Rotation2d> cachedTurnAbsolutePositions;
+
+  /* only used by updateSimulationSubTickGetModuleForce(), which keeps its state in the arrays */
+  private final BrushlessMotorSim turnMotorSim;
+
+  private SwerveModuleArraySimulation arraySimulation;
+  private int index;
+
+  private final CachedReadings cachedDriveEncoderUnGearedPositionsRad,
+      cachedDriveWheelFinalPositionsRad,
+      cachedTurnRelativeEncoderPositionsRad,
+      cachedTurnAbsolutePositionsRad;
 
   public SwerveModuleSimulation(
       DCMotor driveMotor,
@@ -56,6 +56,7 @@ public class SwerveModuleSimulation {
       double wheelsRadiusMeters,
       double turnRotationalInertia) {
     DRIVE_MOTOR = driveMotor;
+    TURN_MOTOR = turnMotor;
     DRIVE_CURRENT_LIMIT = driveCurrentLimit;
     DRIVE_GEAR_RATIO = driveGearRatio;
     TURN_GEAR_RATIO = turnGearRatio;
@@ -63,63 +64,105 @@ public class SwerveModuleSimulation {
     TURN_FRICTION_VOLTAGE = turnFrictionVoltage;
     WHEELS_COEFFICIENT_OF_FRICTION = tireCoefficientOfFriction;
     WHEEL_RADIUS_METERS = wheelsRadiusMeters;
-
+    TURN_ROTATIONAL_INERTIA = turnRotationalInertia;
     this.turnMotorSim =
         new BrushlessMotorSim(
             turnMotor, TURN_GEAR_RATIO, turnRotationalInertia, TURN_FRICTION_VOLTAGE);
 
-    this.cachedDriveEncoderUnGearedPositionsRad = new ConcurrentLinkedQueue<>();
-    for (int i = 0; i < SIMULATION_SUB_TICKS_IN_1_PERIOD; i++)
-      cachedDriveEncoderUnGearedPositionsRad.offer(driveEncoderUnGearedPositionRad);
-    this.cachedTurnRelativeEncoderPositionsRad = new ConcurrentLinkedQueue<>();
-    for (int i = 0; i < SIMULATION_SUB_TICKS_IN_1_PERIOD; i++)
-      cachedTurnRelativeEncoderPositionsRad.offer(turnRelativeEncoderPositionRad);
-    this.cachedTurnAbsolutePositions = new ConcurrentLinkedQueue<>();
-    for (int i = 0; i < SIMULATION_SUB_TICKS_IN_1_PERIOD; i++)
-      cachedTurnAbsolutePositions.offer(turnAbsoluteRotation);
+    cachedDriveEncoderUnGearedPositionsRad =
+        new ModuleCachedReadings(SwerveModuleArraySimulation.DRIVE_POSITION, 1.0);
+    cachedDriveWheelFinalPositionsRad =
+        new ModuleCachedReadings(
+            SwerveModuleArraySimulation.DRIVE_POSITION, 1.0 / DRIVE_GEAR_RATIO);
+    cachedTurnRelativeEncoderPositionsRad =
+        new ModuleCachedReadings(SwerveModuleArraySimulation.TURN_RELATIVE_POSITION, 1.0);
+    cachedTurnAbsolutePositionsRad =
+        new ModuleCachedReadings(SwerveModuleArraySimulation.TURN_ABSOLUTE_POSITION, 1.0);
+
+    // The module owns the only slot of its own arrays until a drivetrain attaches it to shared ones
+    SwerveModuleArraySimulation.attach(this);
+    setRandom(new SplittableRandom(BuildConstants.GIT_SHA.hashCode()));
+  }
+
+  /** Makes this module a view of an index of a set of arrays, which hold its state from now on. */
+  void bind(SwerveModuleArraySimulation arraySimulation, int index) {
+    this.arraySimulation = arraySimulation;
+    this.index = index;
+  }
+
+  /** Gets the arrays holding the state of this module, or null while it is being created. */
+  SwerveModuleArraySimulation getArraySimulation() {
+    return arraySimulation;
+  }
+
+  /** Gets the index of this module in its arrays. */
+  int getModuleIndex() {
+    return index;
+  }
+
+  /**
+   * draws the unknown starting angle of the module and the offset of its relative turn encoder
+   * from a random number generator. This is called with a stream of the arena when the drivetrain
+   * is added to an arena, before the simulation starts.
+   *
+   * @param random the random number generator
+   */
+  public void setRandom(RandomGenerator random) {
+    final SwerveModuleArraySimulation state = arraySimulation;
+    state.turnAbsolutePositionRad[index] =
+        Rotation2d.fromRotations(random.nextDouble()).getRadians();
+    state.turnRelativeEncoderOffsetRad[index] = (random.nextDouble() - 0.5) * 30;
+    state.turnRelativePositionRad[index] =
+        state.turnAbsolutePositionRad[index] + state.turnRelativeEncoderOffsetRad[index];
+  }
 
-    this.turnRelativeEncoderPositionRad =
-        turnAbsoluteRotation.getRadians() + turnRelativeEncoderOffSet;
+  /**
+   * sets the sub-tick length and the amount of sensor readings cached per robot period, to match
+   * the arena the module runs in. This applies to every module sharing the arrays of this one.
+   *
+   * @param subTickSeconds the length of each sub-tick, in seconds
+   * @param subTicksPerPeriod the number of sub-ticks in each robot period
+   */
+  public void setSimulationTiming(double subTickSeconds, int subTicksPerPeriod) {
+    arraySimulation.setSimulationTiming(subTickSeconds, subTicksPerPeriod);
   }
 
   public void requestDriveVoltageOut(double volts) {
-    this.driveMotorRequestedVolts = volts;
+    arraySimulation.driveRequestedVolts[index] = volts;
   }
 
   public void requestTurnVoltageOut(double volts) {
-    this.turnMotorAppliedVolts = volts;
-    // this.turnMotorSim.setInputVoltage(MathUtil.applyDeadband(volts, turn_FRICTION_VOLTAGE,
-    // 12));
+    arraySimulation.turnReportedVolts[index] = volts;
+    // arraySimulation.turnRequestedVolts[index] = MathUtil.applyDeadband(volts,
+    // turn_FRICTION_VOLTAGE, 12);
   }
 
   public void requestDriveVoltageOut(Voltage volts) {
-    this.driveMotorRequestedVolts = volts.in(Volts);
+    requestDriveVoltageOut(volts.in(Volts));
   }
 
   public void requestTurnVoltageOut(Voltage volts) {
-    this.turnMotorAppliedVolts = volts.in(Volts);
-    // this.turnMotorSim.setInputVoltage(MathUtil.applyDeadband(volts, turn_FRICTION_VOLTAGE,
-    // 12));
+    requestTurnVoltageOut(volts.in(Volts));
   }
 
   public double getDriveMotorAppliedVolts() {
-    return driveMotorAppliedVolts;
+    return arraySimulation.driveAppliedVolts[index];
   }
 
   public double getTurnMotorAppliedVolts() {
-    return turnMotorAppliedVolts;
+    return arraySimulation.turnReportedVolts[index];
   }
 
   public double getDriveMotorSupplyCurrentAmps() {
-    return driveMotorSupplyCurrentAmps;
+    return arraySimulation.driveSupplyCurrentAmps[index];
   }
 
   public double getTurnMotorSupplyCurrentAmps() {
-    return turnMotorSupplyCurrentAmps;
+    return arraySimulation.turnCurrentAmps[index];
   }
 
   public double getDriveEncoderUnGearedPositionRad() {
-    return driveEncoderUnGearedPositionRad;
+    return arraySimulation.driveUnGearedPositionRad[index];
   }
 
   public double getDriveEncoderFinalPositionRad() {
@@ -127,7 +170,7 @@ public class SwerveModuleSimulation {
   }
 
   public double getDriveEncoderUnGearedSpeedRadPerSec() {
-    return driveEncoderUnGearedSpeedRadPerSec;
+    return arraySimulation.driveUnGearedSpeedRadPerSec[index];
   }
 
   public double getDriveWheelFinalSpeedRadPerSec() {
@@ -136,38 +179,95 @@ public class SwerveModuleSimulation {
 
   /** geared */
   public double getTurnRelativeEncoderPositionRad() {
-    return turnRelativeEncoderPositionRad;
+    return arraySimulation.turnRelativePositionRad[index];
   }
 
   /** geared */
   public double getTurnRelativeEncoderSpeedRadPerSec() {
-    return turnRelativeEncoderSpeedRadPerSec;
+    return arraySimulation.turnRelativeSpeedRadPerSec[index];
   }
 
   public Rotation2d getTurnAbsolutePosition() {
-    return turnAbsoluteRotation;
+    return Rotation2d.fromRadians(arraySimulation.turnAbsolutePositionRad[index]);
   }
 
   public double getTurnAbsoluteEncoderSpeedRadPerSec() {
-    return turnAbsoluteEncoderSpeedRadPerSec;
+    return arraySimulation.turnAbsoluteSpeedRadPerSec[index];
+  }
+
+  /**
+   * Gets the ungeared drive encoder positions of the last robot period, in radians, without
+   * copying them.
+   */
+  public CachedReadings getCachedDriveEncoderUnGearedPositionsRadView() {
+    return cachedDriveEncoderUnGearedPositionsRad;
+  }
+
+  /** Gets the drive wheel positions of the last robot period, in radians, without copying them. */
+  public CachedReadings getCachedDriveWheelFinalPositionsRadView() {
+    return cachedDriveWheelFinalPositionsRad;
+  }
+
+  /**
+   * Gets the geared turn relative encoder positions of the last robot period, in radians, without
+   * copying them.
+   */
+  public CachedReadings getCachedTurnRelativeEncoderPositionsRadView() {
+    return cachedTurnRelativeEncoderPositionsRad;
+  }
+
+  /**
+   * Gets the turn absolute positions of the last robot period, in radians, without copying them.
+   */
+  public CachedReadings getCachedTurnAbsolutePositionsRadView() {
+    return cachedTurnAbsolutePositionsRad;
   }
 
   public double[] getCachedDriveEncoderUnGearedPositionsRad() {
-    return cachedDriveEncoderUnGearedPositionsRad.stream().mapToDouble(value -> value).toArray();
+    return copyOf(cachedDriveEncoderUnGearedPositionsRad);
   }
 
   public double[] getCachedDriveWheelFinalPositionsRad() {
-    return cachedDriveEncoderUnGearedPositionsRad.stream()
-        .mapToDouble(value -> value / DRIVE_GEAR_RATIO)
-        .toArray();
+    return copyOf(cachedDriveWheelFinalPositionsRad);
   }
 
   public double[] getCachedTurnRelativeEncoderPositions() {
-    return cachedTurnRelativeEncoderPositionsRad.stream().mapToDouble(value -> value).toArray();
+    return copyOf(cachedTurnRelativeEncoderPositionsRad);
   }
 
   public Rotation2d[] getCachedTurnAbsolutePositions() {
-    return cachedTurnAbsolutePositions.toArray(Rotation2d[]::new);
+    final Rotation2d[] positions = new Rotation2d[cachedTurnAbsolutePositionsRad.size()];
+    for (int k = 0; k < positions.length; k++)
+      positions[k] = Rotation2d.fromRadians(cachedTurnAbsolutePositionsRad.get(k));
+    return positions;
+  }
+
+  private static double[] copyOf(CachedReadings readings) {
+    return readings.copyTo(new double[readings.size()]);
+  }
+
+  /**
+   * The cached readings of one sensor of this module. They are looked up through the module, so
+   * the view stays valid when {@link SwerveDriveSimulation} moves the module to its own arrays.
+   */
+  private final class ModuleCachedReadings implements CachedReadings {
+    private final int sensor;
+    private final double scale;
+
+    ModuleCachedReadings(int sensor, double scale) {
+      this.sensor = sensor;
+      this.scale = scale;
+    }
+
+    @Override
+    public int size() {
+      return arraySimulation.getCacheLength();
+    }
+
+    @Override
+    public double get(int k) {
+      return arraySimulation.getCachedReading(sensor, index, k) * scale;
+    }
   }
 
   protected double getGrippingForceNewtons(double gravityForceOnModuleNewtons) {
@@ -175,21 +275,28 @@ public class SwerveModuleSimulation {
   }
 
   /**
-   * updates the simulation sub-tick for this module, updating its inner status (sensor readings)
-   * and calculating a total force
+   * updates the simulation sub-tick for this module alone, updating its inner status (sensor
+   * readings) and calculating a total force.
+   *
+   * <p>This is the model the modules were simulated with before {@link
+   * SwerveModuleArraySimulation}, a {@link BrushlessMotorSim} for the turn motor and the {@link
+   * DCMotor} equations for the drive motor, run on the state in the arrays. {@link
+   * SwerveDriveSimulation} updates all of its modules at once with {@link
+   * SwerveModuleArraySimulation#update} instead, and this is kept as the reference it is checked
+   * and benchmarked against.
    *
-   * @param moduleCurrentGroundVelocityWorldRelative
+   * @param moduleCurrentGroundVelocityWorldRelative the velocity of the floor under the module
    * @return the propelling force that the module generates
    */
   public Vector2 updateSimulationSubTickGetModuleForce(
       Vector2 moduleCurrentGroundVelocityWorldRelative,
       Rotation2d robotRotation,
       double gravityForceOnModuleNewtons) {
-    updateturnSimulation();
+    updateTurnSimulation();
 
     /* the maximum gripping force that the wheel can generate */
     final double grippingForceNewtons = getGrippingForceNewtons(gravityForceOnModuleNewtons);
-    final Rotation2d moduleWorldRotation = this.turnAbsoluteRotation.plus(robotRotation);
+    final Rotation2d moduleWorldRotation = getTurnAbsolutePosition().plus(robotRotation);
     final Vector2 propellingForce =
         getPropellingForce(
             grippingForceNewtons, moduleWorldRotation, moduleCurrentGroundVelocityWorldRelative);
@@ -198,22 +305,23 @@ public class SwerveModuleSimulation {
     return propellingForce;
   }
 
-  /** */
-  private void updateturnSimulation() {
-    turnMotorSim.update(SIMULATION_DT);
+  private void updateTurnSimulation() {
+    final SwerveModuleArraySimulation state = arraySimulation;
+    turnMotorSim.setState(state.turnPositionRad[index], state.turnVelocityRadPerSec[index]);
+    turnMotorSim.requestVoltageOutput(state.turnRequestedVolts[index]);
+    turnMotorSim.update(state.getSubTickSeconds());
+    state.turnPositionRad[index] = turnMotorSim.getAngularPositionRad();
+    state.turnVelocityRadPerSec[index] = turnMotorSim.getAngularVelocityRadPerSec();
+    state.turnAppliedVolts[index] = turnMotorSim.getAppliedVolts();
+    state.turnCurrentAmps[index] = turnMotorSim.getCurrentDrawAmps();
 
     /* update the readings of the sensor */
-    this.turnAbsoluteRotation = Rotation2d.fromRadians(turnMotorSim.getAngularPositionRad());
-    this.turnRelativeEncoderPositionRad =
-        turnMotorSim.getAngularPositionRad() + turnRelativeEncoderOffSet;
-    this.turnAbsoluteEncoderSpeedRadPerSec = turnMotorSim.getAngularVelocityRadPerSec();
-    this.turnRelativeEncoderSpeedRadPerSec = turnAbsoluteEncoderSpeedRadPerSec * TURN_GEAR_RATIO;
-
-    /* cache sensor readings to queue for high-frequency odometry */
-    this.cachedTurnAbsolutePositions.poll();
-    this.cachedTurnAbsolutePositions.offer(turnAbsoluteRotation);
-    this.cachedTurnRelativeEncoderPositionsRad.poll();
-    this.cachedTurnRelativeEncoderPositionsRad.offer(turnRelativeEncoderPositionRad);
+    state.turnAbsolutePositionRad[index] = turnMotorSim.getAngularPositionRad();
+    state.turnRelativePositionRad[index] =
+        turnMotorSim.getAngularPositionRad() + state.turnRelativeEncoderOffsetRad[index];
+    state.turnAbsoluteSpeedRadPerSec[index] = turnMotorSim.getAngularVelocityRadPerSec();
+    state.turnRelativeSpeedRadPerSec[index] =
+        turnMotorSim.getAngularVelocityRadPerSec() * TURN_GEAR_RATIO;
   }
 
   private Vector2 getPropellingForce(
@@ -235,55 +343,65 @@ public class SwerveModuleSimulation {
                 moduleCurrentGroundVelocity.getAngleBetween(
                     new Vector2(moduleWorldRotation.getRadians())));
 
+    final double[] driveSpeedsRadPerSec = arraySimulation.driveUnGearedSpeedRadPerSec;
     if (skidding) {
       /* if the chassis is skidding, part of the toque will cause the wheels to spin freely */
       final double torqueOnWheel = driveWheelTorque * 0.3;
-      this.driveEncoderUnGearedSpeedRadPerSec +=
-          torqueOnWheel / DRIVE_WHEEL_INERTIA * SIMULATION_DT * DRIVE_GEAR_RATIO;
+      driveSpeedsRadPerSec[index] +=
+          torqueOnWheel
+              / DRIVE_WHEEL_INERTIA
+              * arraySimulation.getSubTickSeconds()
+              * DRIVE_GEAR_RATIO;
     } else // if the chassis is tightly gripped on floor, the floor velocity is projected to the
       // wheel
-      this.driveEncoderUnGearedSpeedRadPerSec =
+      driveSpeedsRadPerSec[index] =
           floorVelocityProjectionOnWheelDirectionMPS / WHEEL_RADIUS_METERS * DRIVE_GEAR_RATIO;
 
     return Vector2.create(propellingForceNewtons, moduleWorldRotation.getRadians());
   }
 
   private double getDriveWheelTorque() {
-    final double currentAtRequestedVolts =
-        DRIVE_MOTOR.getCurrent(this.driveEncoderUnGearedSpeedRadPerSec, driveMotorRequestedVolts);
+    final SwerveModuleArraySimulation state = arraySimulation;
+    final double speedRadPerSec = state.driveUnGearedSpeedRadPerSec[index],
+        requestedVolts = state.driveRequestedVolts[index];
+    final double currentAtRequestedVolts = DRIVE_MOTOR.getCurrent(speedRadPerSec, requestedVolts);
 
-    driveMotorAppliedVolts = driveMotorRequestedVolts;
+    double appliedVolts = requestedVolts;
     /* normally, motor controller starts cutting the supply voltage when the current exceed 150% the current limit */
     final boolean currentTooHigh = Math.abs(currentAtRequestedVolts) > 1.2 * DRIVE_CURRENT_LIMIT,
-        driveMotorTryingToAccelerate = driveMotorRequestedVolts * driveMotorSupplyCurrentAmps > 0;
+        driveMotorTryingToAccelerate = requestedVolts * state.driveSupplyCurrentAmps[index] > 0;
 
     if (currentTooHigh && driveMotorTryingToAccelerate) {
       /* activate current limit, cut down the applied voltage to match current limit */
       final double currentWithLimits = Math.copySign(DRIVE_CURRENT_LIMIT, currentAtRequestedVolts);
-      driveMotorAppliedVolts =
-          DRIVE_MOTOR.getVoltage(
-              DRIVE_MOTOR.getTorque(currentWithLimits), this.driveEncoderUnGearedSpeedRadPerSec);
+      appliedVolts =
+          DRIVE_MOTOR.getVoltage(DRIVE_MOTOR.getTorque(currentWithLimits), speedRadPerSec);
     }
 
-    driveMotorAppliedVolts = MathUtil.clamp(driveMotorAppliedVolts, -12, 12);
+    state.driveAppliedVolts[index] = appliedVolts = MathUtil.clamp(appliedVolts, -12, 12);
 
     /* calculate the actual supply current */
-    driveMotorSupplyCurrentAmps =
+    state.driveSupplyCurrentAmps[index] =
         DRIVE_MOTOR.getCurrent(
-            this.driveEncoderUnGearedSpeedRadPerSec,
-            MathUtil.applyDeadband(driveMotorAppliedVolts, DRIVE_FRICTION_VOLTAGE, 12));
+            speedRadPerSec, MathUtil.applyDeadband(appliedVolts, DRIVE_FRICTION_VOLTAGE, 12));
 
     /* calculate the torque generated,  */
-    final double torqueOnRotor = DRIVE_MOTOR.getTorque(driveMotorSupplyCurrentAmps);
+    final double torqueOnRotor = DRIVE_MOTOR.getTorque(state.driveSupplyCurrentAmps[index]);
     return torqueOnRotor * DRIVE_GEAR_RATIO;
   }
 
+  private void updateEncoderTicks() {
+    arraySimulation.driveUnGearedPositionRad[index] +=
+        arraySimulation.driveUnGearedSpeedRadPerSec[index] * arraySimulation.getSubTickSeconds();
+    arraySimulation.cacheReadings(index);
+  }
+
   /**
    * @return the current module state of this simulation module
    */
   protected SwerveModuleState getCurrentState() {
     return new SwerveModuleState(
-        getDriveWheelFinalSpeedRadPerSec() * WHEEL_RADIUS_METERS, turnAbsoluteRotation);
+        getDriveWheelFinalSpeedRadPerSec() * WHEEL_RADIUS_METERS, getTurnAbsolutePosition());
   }
 
   /**
@@ -296,16 +414,10 @@ public class SwerveModuleSimulation {
     return new SwerveModuleState(
         DRIVE_MOTOR.getSpeed(
                 DRIVE_MOTOR.getTorque(DRIVE_MOTOR.getCurrent(0, DRIVE_FRICTION_VOLTAGE)),
-                driveMotorAppliedVolts)
+                getDriveMotorAppliedVolts())
             / DRIVE_GEAR_RATIO
             * WHEEL_RADIUS_METERS,
-        turnAbsoluteRotation);
-  }
-
-  private void updateEncoderTicks() {
-    this.driveEncoderUnGearedPositionRad += this.driveEncoderUnGearedSpeedRadPerSec * SIMULATION_DT;
-    this.cachedDriveEncoderUnGearedPositionsRad.poll();
-    this.cachedDriveEncoderUnGearedPositionsRad.offer(driveEncoderUnGearedPositionRad);
+        getTurnAbsolutePosition());
   }
 
   public double getModuleTheoreticalSpeedMPS() {
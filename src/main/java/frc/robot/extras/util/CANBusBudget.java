@@ -0,0 +1,261 @@
+package frc.robot.extras.util;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.CANBus;
+import edu.wpi.first.wpilibj.Alert;
+import frc.robot.Constants.HardwareConstants;
+import frc.robot.Constants.LogPaths;
+import java.util.ArrayList;
+import java.util.List;
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Plans the update rates of every status signal on each CAN bus so they fit in the bus bandwidth.
+ *
+ * <p>Devices register their signals with a priority, the rate they want and the lowest rate they
+ * can live with, and reserve bandwidth for their control frames. Signals start at the rate they
+ * want. Once every device is created, {@link #apply()} lowers the rates of the least important
+ * signals first until the expected traffic fits in {@link
+ * HardwareConstants#CAN_BUS_TARGET_UTILIZATION} of the bus. Odometry signals are never lowered.
+ *
+ * <p>Each signal is counted as its own frame. Phoenix packs some signals into shared frames, so the
+ * planned load is an upper bound of the real one, which is logged next to it.
+ */
+public final class CANBusBudget {
+  /** How important a signal is, signals of lower priorities are slowed down first. */
+  public enum Priority {
+    /** Sampled by the odometry thread, never slowed down. */
+    ODOMETRY,
+    HIGH,
+    MEDIUM,
+    LOW
+  }
+
+  /** The rate Phoenix sends control frames at, per motor. */
+  public static final double CONTROL_FRAME_RATE_HZ = 100.0;
+
+  /** The lowest update rate Phoenix accepts, other than 0 to disable a signal. */
+  private static final double MIN_UPDATE_FREQUENCY_HZ = 4.0;
+
+  private static final double BUS_BITS_PER_SECOND = 1_000_000;
+
+  /** Worst-case length of an extended frame with 8 data bytes, including bit stuffing. */
+  private static final double BITS_PER_FRAME = 160;
+
+  private static final double BUS_CAPACITY_FRAMES_PER_SECOND =
+      BUS_BITS_PER_SECOND / BITS_PER_FRAME;
+
+  /* how often the measured bus utilization is read, in calls to updateTelemetry */
+  private static final int MEASUREMENT_PERIOD_CYCLES = 50;
+
+  private static final String BUDGET_PATH = LogPaths.SYSTEM_PERFORMANCE_PATH + "CANBusBudget/";
+
+  /**
+   * Plans the rates of the signals of one bus, without touching the devices. Signals are added one
+   * at a time and identified by the order they were added in.
+   */
+  public static final class BusPlanner {
+    private static final class PlannedSignal {
+      final Priority priority;
+      final double requestedHz;
+      final double minimumHz;
+      double plannedHz;
+
+      PlannedSignal(Priority priority, double requestedHz, double minimumHz) {
+        this.priority = priority;
+        this.requestedHz = requestedHz;
+        this.minimumHz = minimumHz;
+        this.plannedHz = requestedHz;
+      }
+    }
+
+    private final double capacityFramesPerSecond;
+    private final List<PlannedSignal> signals = new ArrayList<>();
+    private double reservedFramesPerSecond = 0.0;
+    private double plannedFramesPerSecond = 0.0;
+    private boolean overBudget = false;
+
+    /**
+     * Creates a planner for an empty bus.
+     *
+     * @param capacityFramesPerSecond how many frames the signals and reserved frames can use
+     */
+    public BusPlanner(double capacityFramesPerSecond) {
+      this.capacityFramesPerSecond = capacityFramesPerSecond;
+    }
+
+    /**
+     * Adds a signal. Its minimum rate is clamped between the lowest rate Phoenix accepts and the
+     * requested rate, and an odometry signal is never slowed down.
+     *
+     * @param priority how important the signal is
+     * @param requestedHz the rate the signal should be updated at
+     * @param minimumHz the lowest rate the signal can be slowed down to
+     * @return the index of the signal
+     */
+    public int add(Priority priority, double requestedHz, double minimumHz) {
+      final double minimum =
+          priority == Priority.ODOMETRY
+              ? requestedHz
+              : Math.max(MIN_UPDATE_FREQUENCY_HZ, Math.min(requestedHz, minimumHz));
+      signals.add(new PlannedSignal(priority, requestedHz, minimum));
+      return signals.size() - 1;
+    }
+
+    /**
+     * Reserves bandwidth for frames that are not status signals.
+     *
+     * @param framesPerSecond the amount of frames sent every second
+     */
+    public void reserve(double framesPerSecond) {
+      reservedFramesPerSecond += framesPerSecond;
+    }
+
+    /** Plans the rate of every signal, starting over from the requested rates. */
+    public void plan() {
+      double load = reservedFramesPerSecond;
+      for (PlannedSignal signal : signals) {
+        signal.plannedHz = signal.requestedHz;
+        load += signal.requestedHz;
+      }
+
+      // Slow down the lowest priorities first, spreading the cut evenly within a priority
+      final Priority[] priorities = Priority.values();
+      for (int p = priorities.length - 1; p > 0 && load > capacityFramesPerSecond; p--) {
+        double sheddable = 0.0;
+        for (PlannedSignal signal : signals)
+          if (signal.priority == priorities[p]) sheddable += signal.requestedHz - signal.minimumHz;
+        if (sheddable <= 0.0) continue;
+
+        final double scale = Math.max(0.0, 1.0 - (load - capacityFramesPerSecond) / sheddable);
+        for (PlannedSignal signal : signals)
+          if (signal.priority == priorities[p])
+            signal.plannedHz = signal.minimumHz + (signal.requestedHz - signal.minimumHz) * scale;
+        // Summing the cuts could leave the load a rounding error over capacity
+        load = scale > 0.0 ? capacityFramesPerSecond : load - sheddable;
+      }
+
+      plannedFramesPerSecond = load;
+      overBudget = load > capacityFramesPerSecond;
+    }
+
+    /** Gets the rate planned for a signal, its requested rate until {@link #plan()} is called. */
+    public double getPlannedHz(int index) {
+      return signals.get(index).plannedHz;
+    }
+
+    /** Gets the frames the bus is planned to carry every second, including reserved ones. */
+    public double getPlannedFramesPerSecond() {
+      return plannedFramesPerSecond;
+    }
+
+    /** Returns true if the bus is over capacity even with every signal at its minimum rate. */
+    public boolean isOverBudget() {
+      return overBudget;
+    }
+  }
+
+  private record RegisteredSignal(
+      BaseStatusSignal signal, BusPlanner planner, int index, double requestedHz) {}
+
+  private static final List<RegisteredSignal> registeredSignals = new ArrayList<>();
+  private static final DeviceCANBus[] buses = DeviceCANBus.values();
+  private static final BusPlanner[] planners = new BusPlanner[buses.length];
+  private static final CANBus[] canBuses = new CANBus[buses.length];
+  private static final String[] busPaths = new String[buses.length];
+  private static final Alert overBudgetAlert =
+      new Alert("CAN bus over budget even at minimum signal rates", Alert.AlertType.kWarning);
+
+  private static int telemetryCycles = 0;
+
+  static {
+    for (int i = 0; i < buses.length; i++) {
+      canBuses[i] = new CANBus(buses[i].name);
+      busPaths[i] = BUDGET_PATH + buses[i].name() + "/";
+      planners[i] =
+          new BusPlanner(
+              BUS_CAPACITY_FRAMES_PER_SECOND * HardwareConstants.CAN_BUS_TARGET_UTILIZATION);
+    }
+  }
+
+  private CANBusBudget() {}
+
+  /**
+   * Registers status signals and sets them to the requested rate until {@link #apply()} is called.
+   *
+   * @param bus the bus the signals are sent on
+   * @param priority how important the signals are
+   * @param requestedHz the rate the signals should be updated at
+   * @param minimumHz the lowest rate the signals can be slowed down to
+   * @param signals the signals
+   */
+  public static void register(
+      DeviceCANBus bus,
+      Priority priority,
+      double requestedHz,
+      double minimumHz,
+      BaseStatusSignal... signals) {
+    final BusPlanner planner = planners[bus.ordinal()];
+    for (BaseStatusSignal signal : signals)
+      registeredSignals.add(
+          new RegisteredSignal(
+              signal, planner, planner.add(priority, requestedHz, minimumHz), requestedHz));
+    BaseStatusSignal.setUpdateFrequencyForAll(requestedHz, signals);
+  }
+
+  /**
+   * Registers status signals that must always be updated at the requested rate.
+   *
+   * @param bus the bus the signals are sent on
+   * @param priority how important the signals are
+   * @param requestedHz the rate the signals should be updated at
+   * @param signals the signals
+   */
+  public static void register(
+      DeviceCANBus bus, Priority priority, double requestedHz, BaseStatusSignal... signals) {
+    register(bus, priority, requestedHz, requestedHz, signals);
+  }
+
+  /**
+   * Reserves bandwidth for frames that are not status signals, such as control requests.
+   *
+   * @param bus the bus the frames are sent on
+   * @param framesPerSecond the amount of frames sent every second
+   */
+  public static void reserve(DeviceCANBus bus, double framesPerSecond) {
+    planners[bus.ordinal()].reserve(framesPerSecond);
+  }
+
+  /** Plans the rate of every registered signal and applies the rates that changed. */
+  public static void apply() {
+    boolean anyOverBudget = false;
+    for (BusPlanner planner : planners) {
+      planner.plan();
+      anyOverBudget |= planner.isOverBudget();
+    }
+    overBudgetAlert.set(anyOverBudget);
+
+    for (RegisteredSignal registered : registeredSignals) {
+      final double plannedHz = registered.planner().getPlannedHz(registered.index());
+      if (plannedHz != registered.requestedHz())
+        registered.signal().setUpdateFrequency(plannedHz, HardwareConstants.TIMEOUT_S);
+    }
+  }
+
+  /** Logs the planned and measured utilization of each bus, call this every robot loop. */
+  public static void updateTelemetry() {
+    final boolean measure = telemetryCycles++ % MEASUREMENT_PERIOD_CYCLES == 0;
+    for (int i = 0; i < buses.length; i++) {
+      final double plannedFramesPerSecond = planners[i].getPlannedFramesPerSecond();
+      Logger.recordOutput(busPaths[i] + "PlannedFramesPerSecond", plannedFramesPerSecond);
+      Logger.recordOutput(
+          busPaths[i] + "PlannedUtilization",
+          plannedFramesPerSecond / BUS_CAPACITY_FRAMES_PER_SECOND);
+      Logger.recordOutput(busPaths[i] + "OverBudget", planners[i].isOverBudget());
+      // Reading the bus status is a native call, so it is only done once in a while
+      if (measure)
+        Logger.recordOutput(
+            busPaths[i] + "MeasuredUtilization", canBuses[i].getStatus().BusUtilization);
+    }
+  }
+}
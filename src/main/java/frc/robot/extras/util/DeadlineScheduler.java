@@ -0,0 +1,120 @@
+package frc.robot.extras.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a loop at a fixed rate by waiting for absolute deadlines instead of sleeping after the work.
+ *
+ * <p>Deadlines are spaced exactly one period apart from the first call, so the loop stays
+ * phase-locked no matter how long the work in each period takes. The thread parks until shortly
+ * before each deadline and then busy-waits the rest, trading a little CPU for wake-up accuracy.
+ *
+ * <p>If the work runs past the next deadline, the period is counted as an overrun and the loop runs
+ * again immediately. Deadlines that were missed entirely are skipped rather than run back to back.
+ */
+public final class DeadlineScheduler {
+  /** The time a scheduler reads and waits for, which tests can replace with a simulated one. */
+  public interface Clock {
+    /** Gets the current time in nanoseconds, from an arbitrary origin. */
+    long nanoTime();
+
+    /**
+     * Blocks the calling thread until a time.
+     *
+     * @param deadlineNanos the time to wait for, in nanoseconds from the same origin
+     */
+    void waitUntil(long deadlineNanos);
+  }
+
+  /** The system clock, parking until shortly before the deadline and busy-waiting the rest. */
+  private static final class SystemClock implements Clock {
+    private final long spinThresholdNanos;
+
+    private SystemClock(long spinThresholdNanos) {
+      this.spinThresholdNanos = spinThresholdNanos;
+    }
+
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+
+    @Override
+    public void waitUntil(long deadlineNanos) {
+      long remainingNanos;
+      while ((remainingNanos = deadlineNanos - System.nanoTime()) > spinThresholdNanos)
+        LockSupport.parkNanos(remainingNanos - spinThresholdNanos);
+      while (deadlineNanos - System.nanoTime() > 0) Thread.onSpinWait();
+    }
+  }
+
+  private final long periodNanos;
+  private final Clock clock;
+
+  private boolean started = false;
+  private long nextDeadlineNanos;
+
+  /* written by the scheduled thread only, read by any thread for telemetry */
+  private volatile long overruns = 0;
+  private volatile long skippedPeriods = 0;
+  private volatile long lastWakeUpLatenessNanos = 0;
+
+  /**
+   * Creates a deadline scheduler.
+   *
+   * @param periodSeconds the period of the loop
+   * @param spinThresholdSeconds how long before each deadline to stop parking and start
+   *     busy-waiting, 0 to only park
+   */
+  public DeadlineScheduler(double periodSeconds, double spinThresholdSeconds) {
+    this(periodSeconds, new SystemClock((long) (Math.max(0, spinThresholdSeconds) * 1e9)));
+  }
+
+  /**
+   * Creates a deadline scheduler that reads and waits for another clock.
+   *
+   * @param periodSeconds the period of the loop
+   * @param clock the clock deadlines are measured and waited for on
+   */
+  public DeadlineScheduler(double periodSeconds, Clock clock) {
+    if (periodSeconds <= 0) throw new IllegalArgumentException("period must be positive");
+    this.periodNanos = (long) (periodSeconds * 1e9);
+    this.clock = clock;
+  }
+
+  /** Blocks the calling thread until the next deadline. The first call returns immediately. */
+  public void waitForNextPeriod() {
+    final long now = clock.nanoTime();
+    if (!started) {
+      started = true;
+      nextDeadlineNanos = now;
+    }
+
+    final long latenessNanos = now - nextDeadlineNanos;
+    if (latenessNanos > 0) {
+      // The work of the previous period ran past this deadline
+      overruns++;
+      final long missedPeriods = latenessNanos / periodNanos;
+      skippedPeriods += missedPeriods;
+      nextDeadlineNanos += missedPeriods * periodNanos;
+    } else clock.waitUntil(nextDeadlineNanos);
+
+    lastWakeUpLatenessNanos = clock.nanoTime() - nextDeadlineNanos;
+    nextDeadlineNanos += periodNanos;
+  }
+
+  /** Gets the total amount of periods whose work ran past the next deadline. */
+  public long getOverruns() {
+    return overruns;
+  }
+
+  /** Gets the total amount of deadlines skipped because the work ran past them entirely. */
+  public long getSkippedPeriods() {
+    return skippedPeriods;
+  }
+
+  /** Gets how late the last wake-up was relative to its deadline, in seconds. */
+  public double getLastWakeUpLatenessSeconds() {
+    return lastWakeUpLatenessNanos / 1e9;
+  }
+}
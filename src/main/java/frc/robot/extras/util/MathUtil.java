@@ -1,16 +1,9 @@
 package frc.robot.extras.util;
 
 import edu.wpi.first.math.geometry.Rotation3d;
-import frc.robot.BuildConstants;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class MathUtil {
-  /**
-   * random object that generates random variables the seed is the hash of GIT_SHA this way when you
-   * do log-replay even the generated random numbers are the same
-   */
-  private static final Random random = new Random(BuildConstants.GIT_SHA.hashCode());
-
   public static double linearInterpretationWithBounding(
       double x1, double y1, double x2, double y2, double x) {
     final double minX = Math.min(x1, x2), maxX = Math.max(x1, x2);
@@ -22,14 +15,17 @@ public class MathUtil {
   }
 
   /**
-   * using the random number generator of a fixed seed, generate the next random normal variable
+   * generate the next random normal variable from a given random number generator, such as a
+   * stream of a simulation arena, so runs with the same seed see the same numbers
    *
+   * @param random the random number generator to draw from
    * @param mean the center of the distribution
    * @param stdDev the standard deviation of the distribution
    * @return the next random variable x from the distribution
    */
-  public static double generateRandomNormal(double mean, double stdDev) {
-    double u1 = random.nextDouble();
+  public static double generateRandomNormal(RandomGenerator random, double mean, double stdDev) {
+    // 1 - u keeps u1 in (0, 1], so the logarithm stays finite
+    double u1 = 1.0 - random.nextDouble();
     double u2 = random.nextDouble();
     // Box–Muller transform https://en.wikipedia.org/wiki/Box%E2%80%93Muller_transform
     double z0 = Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
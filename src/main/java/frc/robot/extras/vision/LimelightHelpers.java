@@ -482,38 +482,81 @@ public class LimelightHelpers {
 
   private static PoseEstimate getBotPoseEstimate(String limelightName, String entryName) {
     var poseEntry = LimelightHelpers.getLimelightNTTableEntry(limelightName, entryName);
-    var poseArray = poseEntry.getDoubleArray(new double[0]);
-    var pose = toPose2D(poseArray);
+    return toPoseEstimate(poseEntry.getDoubleArray(new double[0]), poseEntry.getLastChange());
+  }
+
+  /**
+   * Decodes a botpose array received from NetworkTables into a PoseEstimate.
+   *
+   * @param poseArray the botpose array
+   * @param lastChangeMicros the time the array was published at, in microseconds
+   */
+  public static PoseEstimate toPoseEstimate(double[] poseArray, long lastChangeMicros) {
+    PoseEstimate estimate = new PoseEstimate();
+    decodePoseEstimate(poseArray, lastChangeMicros, estimate);
+    return estimate;
+  }
+
+  /**
+   * Decodes a botpose array received from NetworkTables into an existing PoseEstimate.
+   *
+   * <p>The raw fiducials of the estimate are reused, and only reallocated when the amount of tags
+   * changes. The pose is only replaced when it changes, so decoding repeated frames, such as frames
+   * without tags, creates no garbage.
+   *
+   * @param poseArray the botpose array
+   * @param lastChangeMicros the time the array was published at, in microseconds
+   * @param estimate the estimate to decode into
+   */
+  public static void decodePoseEstimate(
+      double[] poseArray, long lastChangeMicros, PoseEstimate estimate) {
+    boolean hasPose = poseArray.length >= 6;
+    double x = hasPose ? poseArray[0] : 0;
+    double y = hasPose ? poseArray[1] : 0;
+    double yawRadians = hasPose ? Units.degreesToRadians(poseArray[5]) : 0;
+    if (estimate.pose.getX() != x
+        || estimate.pose.getY() != y
+        || estimate.pose.getRotation().getRadians() != yawRadians) {
+      estimate.pose = new Pose2d(x, y, new Rotation2d(yawRadians));
+    }
+
     double latency = extractBotPoseEntry(poseArray, 6);
-    int tagCount = (int) extractBotPoseEntry(poseArray, 7);
-    double tagSpan = extractBotPoseEntry(poseArray, 8);
-    double tagDist = extractBotPoseEntry(poseArray, 9);
-    double tagArea = extractBotPoseEntry(poseArray, 10);
+    int tagCount = Math.max(0, (int) extractBotPoseEntry(poseArray, 7));
+    estimate.latency = latency;
+    estimate.tagCount = tagCount;
+    estimate.tagSpan = extractBotPoseEntry(poseArray, 8);
+    estimate.avgTagDist = extractBotPoseEntry(poseArray, 9);
+    estimate.avgTagArea = extractBotPoseEntry(poseArray, 10);
     // getlastchange() in microseconds, ll latency in milliseconds
-    var timestamp = (poseEntry.getLastChange() / 1000000.0) - (latency / 1000.0);
+    estimate.timestampSeconds = (lastChangeMicros / 1000000.0) - (latency / 1000.0);
 
-    RawFiducial[] rawFiducials = new RawFiducial[tagCount];
-    int valsPerFiducial = 7;
-    int expectedTotalVals = 11 + valsPerFiducial * tagCount;
-
-    if (poseArray.length != expectedTotalVals) {
-      // Don't populate fiducials
-    } else {
+    if (estimate.rawFiducials == null || estimate.rawFiducials.length != tagCount) {
+      RawFiducial[] oldFiducials =
+          estimate.rawFiducials == null ? new RawFiducial[0] : estimate.rawFiducials;
+      estimate.rawFiducials = new RawFiducial[tagCount];
       for (int i = 0; i < tagCount; i++) {
-        int baseIndex = 11 + (i * valsPerFiducial);
-        int id = (int) poseArray[baseIndex];
-        double txnc = poseArray[baseIndex + 1];
-        double tync = poseArray[baseIndex + 2];
-        double ta = poseArray[baseIndex + 3];
-        double distToCamera = poseArray[baseIndex + 4];
-        double distToRobot = poseArray[baseIndex + 5];
-        double ambiguity = poseArray[baseIndex + 6];
-        rawFiducials[i] = new RawFiducial(id, txnc, tync, ta, distToCamera, distToRobot, ambiguity);
+        estimate.rawFiducials[i] =
+            i < oldFiducials.length && oldFiducials[i] != null
+                ? oldFiducials[i]
+                : new RawFiducial(0, 0, 0, 0, 0, 0, 0);
       }
     }
 
-    return new PoseEstimate(
-        pose, timestamp, latency, tagCount, tagSpan, tagDist, tagArea, rawFiducials);
+    int valsPerFiducial = 7;
+    int expectedTotalVals = 11 + valsPerFiducial * tagCount;
+    boolean hasFiducials = poseArray.length == expectedTotalVals;
+    for (int i = 0; i < tagCount; i++) {
+      int baseIndex = 11 + (i * valsPerFiducial);
+      RawFiducial fiducial = estimate.rawFiducials[i];
+      // Fiducials are zeroed if the array does not hold them
+      fiducial.id = hasFiducials ? (int) poseArray[baseIndex] : 0;
+      fiducial.txnc = hasFiducials ? poseArray[baseIndex + 1] : 0;
+      fiducial.tync = hasFiducials ? poseArray[baseIndex + 2] : 0;
+      fiducial.ta = hasFiducials ? poseArray[baseIndex + 3] : 0;
+      fiducial.distToCamera = hasFiducials ? poseArray[baseIndex + 4] : 0;
+      fiducial.distToRobot = hasFiducials ? poseArray[baseIndex + 5] : 0;
+      fiducial.ambiguity = hasFiducials ? poseArray[baseIndex + 6] : 0;
+    }
   }
 
   private static void printPoseEstimate(PoseEstimate pose) {
@@ -0,0 +1,185 @@
+package frc.robot.extras.vision;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+
+/**
+ * Decodes the fiducial part of a Limelight JSON dump by streaming over its tokens.
+ *
+ * <p>{@link LimelightHelpers#getLatestResults} binds the whole dump to an object graph, including
+ * every target type and pose the pipeline publishes. This decoder only extracts the fiducial IDs,
+ * corners and field-space poses, plus the latencies and the robot pose, into the primitive arrays
+ * of a reusable {@link FiducialResults}. Everything else is skipped without being bound.
+ */
+public final class LimelightResultsDecoder {
+  /** The most fiducials kept from one dump, the rest are skipped. */
+  public static final int MAX_FIDUCIALS = 32;
+
+  /** The most corners kept per fiducial. */
+  public static final int MAX_CORNERS = 4;
+
+  /** The amount of values in a pose: x, y, z, roll, pitch and yaw. */
+  public static final int POSE_SIZE = 6;
+
+  /** The fiducial results of one dump, in storage that is reused for every dump. */
+  public static final class FiducialResults {
+    public boolean valid;
+    public double latencyPipelineMS;
+    public double latencyCaptureMS;
+    public double timestampLimelightPublishMS;
+
+    /** The robot pose in the blue alliance field space: x, y, z, roll, pitch, yaw. */
+    public final double[] botposeWpiBlue = new double[POSE_SIZE];
+
+    public int fiducialCount;
+    public final int[] fiducialIds = new int[MAX_FIDUCIALS];
+
+    /** The amount of corners of each fiducial. */
+    public final int[] cornerCounts = new int[MAX_FIDUCIALS];
+
+    /** The corners of each fiducial in pixels, as x, y pairs, {@link #MAX_CORNERS} per fiducial. */
+    public final double[] cornersPixels = new double[MAX_FIDUCIALS * MAX_CORNERS * 2];
+
+    /** The robot pose in field space from each fiducial, {@link #POSE_SIZE} per fiducial. */
+    public final double[] robotPosesFieldSpace = new double[MAX_FIDUCIALS * POSE_SIZE];
+
+    /** The time spent decoding the dump, in milliseconds. */
+    public double latencyDecodeMS;
+
+    private void clear() {
+      valid = false;
+      latencyPipelineMS = 0;
+      latencyCaptureMS = 0;
+      timestampLimelightPublishMS = 0;
+      for (int i = 0; i < POSE_SIZE; i++) botposeWpiBlue[i] = 0;
+      fiducialCount = 0;
+    }
+  }
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * Decodes the latest JSON dump of a Limelight.
+   *
+   * @param limelightName the name of the Limelight
+   * @param results the results to decode into
+   * @return false if the dump could not be decoded
+   */
+  public boolean decodeLatest(String limelightName, FiducialResults results) {
+    return decode(LimelightHelpers.getJSONDump(limelightName), results);
+  }
+
+  /**
+   * Decodes a JSON dump.
+   *
+   * @param json the JSON dump
+   * @param results the results to decode into, cleared first
+   * @return false if the dump could not be decoded, in which case the results are partial
+   */
+  public boolean decode(String json, FiducialResults results) {
+    final long start = System.nanoTime();
+    results.clear();
+    boolean decoded = false;
+    try (JsonParser parser = jsonFactory.createParser(json)) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        decodeResults(parser, results);
+        decoded = true;
+      }
+    } catch (IOException e) {
+      decoded = false;
+    }
+    results.latencyDecodeMS = (System.nanoTime() - start) * 1e-6;
+    return decoded;
+  }
+
+  /** Decodes the results object, which older firmware wraps in a "Results" object. */
+  private static void decodeResults(JsonParser parser, FiducialResults results)
+      throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.currentName();
+      final JsonToken value = parser.nextToken();
+      switch (field) {
+        case "Results" -> {
+          if (value == JsonToken.START_OBJECT) decodeResults(parser, results);
+          else parser.skipChildren();
+        }
+        case "v" -> results.valid = parser.getValueAsInt() != 0;
+        case "tl" -> results.latencyPipelineMS = parser.getValueAsDouble();
+        case "cl" -> results.latencyCaptureMS = parser.getValueAsDouble();
+        case "ts" -> results.timestampLimelightPublishMS = parser.getValueAsDouble();
+        case "botpose_wpiblue" -> readDoubles(parser, results.botposeWpiBlue, 0, POSE_SIZE);
+        case "Fiducial" -> decodeFiducials(parser, results);
+        default -> parser.skipChildren();
+      }
+    }
+  }
+
+  private static void decodeFiducials(JsonParser parser, FiducialResults results)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.START_OBJECT) {
+      if (results.fiducialCount == MAX_FIDUCIALS) {
+        parser.skipChildren();
+        continue;
+      }
+      final int index = results.fiducialCount++;
+      results.fiducialIds[index] = -1;
+      results.cornerCounts[index] = 0;
+      for (int i = 0; i < POSE_SIZE; i++) results.robotPosesFieldSpace[index * POSE_SIZE + i] = 0;
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.currentName();
+        parser.nextToken();
+        switch (field) {
+          case "fID" -> results.fiducialIds[index] = parser.getValueAsInt(-1);
+          case "pts" -> results.cornerCounts[index] = readCorners(parser, results, index);
+          case "t6r_fs" ->
+              readDoubles(parser, results.robotPosesFieldSpace, index * POSE_SIZE, POSE_SIZE);
+          default -> parser.skipChildren();
+        }
+      }
+    }
+  }
+
+  /** Reads an array of [x, y] pairs, returning the amount of corners kept. */
+  private static int readCorners(JsonParser parser, FiducialResults results, int fiducialIndex)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return 0;
+    }
+    int corners = 0;
+    while (parser.nextToken() == JsonToken.START_ARRAY) {
+      if (corners == MAX_CORNERS) {
+        parser.skipChildren();
+        continue;
+      }
+      readDoubles(parser, results.cornersPixels, (fiducialIndex * MAX_CORNERS + corners) * 2, 2);
+      corners++;
+    }
+    return corners;
+  }
+
+  /** Reads up to {@code length} numbers of the current array into {@code destination}. */
+  private static void readDoubles(JsonParser parser, double[] destination, int offset, int length)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    int count = 0;
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+      if (token.isNumeric() && count < length) {
+        destination[offset + count++] = parser.getDoubleValue();
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+}
@@ -10,6 +10,8 @@ import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.util.Units;
+import frc.robot.subsystems.swerve.poseEstimator.KalmanPoseEstimator;
+import frc.robot.subsystems.swerve.poseEstimator.SwervePoseEstimator;
 
 /** Add your docs here. */
 public class SwerveConstants {
@@ -19,6 +21,27 @@ public class SwerveConstants {
     public static final double Y_POS_TRUST = 0.03; // Meters
     public static final double ANGLE_TRUST = Units.degreesToRadians(1); // Radians
 
+    /** The estimators that can fuse the odometry and vision. */
+    public enum PoseEstimatorMode {
+      /** {@link SwervePoseEstimator}, trusting odometry by the constant trusts above. */
+      ODOMETRY_HISTORY,
+      /** {@link KalmanPoseEstimator}, which also estimates the velocity and the gyro bias. */
+      EXTENDED_KALMAN
+    }
+
+    public static final PoseEstimatorMode POSE_ESTIMATOR_MODE = PoseEstimatorMode.ODOMETRY_HISTORY;
+
+    /** The noise of the filter used by {@link PoseEstimatorMode#EXTENDED_KALMAN}. */
+    public static final KalmanPoseEstimator.ProcessModel KALMAN_PROCESS_MODEL =
+        new KalmanPoseEstimator.ProcessModel(
+            4.0, // Linear acceleration, meters per second squared
+            8.0, // Angular acceleration, radians per second squared
+            0.01, // Gyro bias drift, radians per second per root second
+            0.05, // Wheel velocity, meters per second
+            0.1, // Wheel rotation rate, radians per second
+            0.01, // Gyro rotation rate, radians per second
+            1.0); // Slip scale
+
     // Wheel base and track width are measured by the center of the swerve modules, not the frame of
     // the robot
     // Distance between centers of right and left wheels on robot
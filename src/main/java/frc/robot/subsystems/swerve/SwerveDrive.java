@@ -2,11 +2,8 @@ package frc.robot.subsystems.swerve;
 
 import static edu.wpi.first.units.Units.*;
 
-import edu.wpi.first.math.VecBuilder;
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
@@ -15,15 +12,28 @@ import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.HardwareConstants;
+import frc.robot.Constants.Mode;
+import frc.robot.Robot;
+import frc.robot.extras.debug.LoopProfiler;
+import frc.robot.extras.debug.LoopProfiler.Category;
+import frc.robot.extras.simulation.field.SimulatedField;
 import frc.robot.extras.util.DeviceCANBus;
 import frc.robot.extras.util.TimeUtil;
 import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
 import frc.robot.subsystems.swerve.gyroIO.GyroInputsAutoLogged;
 import frc.robot.subsystems.swerve.gyroIO.GyroInterface;
 import frc.robot.subsystems.swerve.moduleIO.ModuleInterface;
+import frc.robot.subsystems.swerve.odometryThread.OdometryInterpolation;
 import frc.robot.subsystems.swerve.odometryThread.OdometryThread;
 import frc.robot.subsystems.swerve.odometryThread.OdometryThreadInputsAutoLogged;
+import frc.robot.subsystems.swerve.poseEstimator.KalmanPoseEstimator;
+import frc.robot.subsystems.swerve.poseEstimator.PoseEstimatorInterface;
+import frc.robot.subsystems.swerve.poseEstimator.SwerveOdometry;
+import frc.robot.subsystems.swerve.poseEstimator.SwervePoseEstimator;
 import frc.robot.subsystems.vision.VisionConstants;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
@@ -34,12 +44,31 @@ public class SwerveDrive extends SubsystemBase {
   private final OdometryThreadInputsAutoLogged odometryThreadInputs;
   private final SwerveModule[] swerveModules;
 
-  private Rotation2d rawGyroRotation;
-  private final SwerveModulePosition[] lastModulePositions;
-  private final SwerveDrivePoseEstimator poseEstimator;
+  private double rawGyroYawRad;
+  private final SwerveOdometry odometry;
+  private final double[] sampleDistancesMeters = new double[4];
+  private final double[] sampleAnglesRad = new double[4];
+  private final PoseEstimatorInterface poseEstimator;
+
+  /* the standard deviations used for measurements added without their own */
+  private double visionXStandardDeviation = VisionConstants.VISION_X_POS_TRUST;
+  private double visionYStandardDeviation = VisionConstants.VISION_Y_POS_TRUST;
+  private double visionThetaStandardDeviation = VisionConstants.VISION_ANGLE_TRUST;
+
+  /* the last pose handed out by getPose(), only replaced when the estimate moves */
+  private Pose2d estimatedPose = new Pose2d();
+  private double estimatedPoseX = 0.0, estimatedPoseY = 0.0, estimatedPoseHeadingRad = 0.0;
+
+  private static final Comparator<VisionMeasurement> BY_TIMESTAMP =
+      Comparator.comparingDouble(VisionMeasurement::timestampSeconds);
 
   private final OdometryThread odometryThread;
 
+  private final LoopProfiler.Section periodicSection =
+      LoopProfiler.getInstance().section("SwerveDrive.periodic()", Category.SUBSYSTEM);
+  private final LoopProfiler.Section processInputsSection =
+      LoopProfiler.getInstance().section("Drive", Category.LOGGER);
+
   private final Alert gyroDisconnectedAlert =
       new Alert("Gyro Hardware Fault", Alert.AlertType.kError);
   private SwerveDriveKinematics kinematics;
@@ -51,9 +80,31 @@ public class SwerveDrive extends SubsystemBase {
       ModuleInterface frontRightModuleIO,
       ModuleInterface backLeftModuleIO,
       ModuleInterface backRightModuleIO) {
+    this(
+        gyroIO,
+        frontLeftModuleIO,
+        frontRightModuleIO,
+        backLeftModuleIO,
+        backRightModuleIO,
+        createPoseEstimator());
+  }
+
+  /**
+   * Creates a swerve drive that fuses its odometry and vision with a given pose estimator.
+   *
+   * @param poseEstimator the estimator, which should cover {@link
+   *     PoseEstimatorInterface#HISTORY_SECONDS} at the odometry rate
+   */
+  public SwerveDrive(
+      GyroInterface gyroIO,
+      ModuleInterface frontLeftModuleIO,
+      ModuleInterface frontRightModuleIO,
+      ModuleInterface backLeftModuleIO,
+      ModuleInterface backRightModuleIO,
+      PoseEstimatorInterface poseEstimator) {
     this.gyroIO = gyroIO;
     this.gyroInputs = new GyroInputsAutoLogged();
-    this.rawGyroRotation = new Rotation2d();
+    this.rawGyroYawRad = 0.0;
 
     setKinematics(DriveConstants.DRIVE_KINEMATICS);
     swerveModules =
@@ -64,25 +115,8 @@ public class SwerveDrive extends SubsystemBase {
           new SwerveModule(backRightModuleIO, "BackRight")
         };
 
-    lastModulePositions =
-        new SwerveModulePosition[] {
-          new SwerveModulePosition(),
-          new SwerveModulePosition(),
-          new SwerveModulePosition(),
-          new SwerveModulePosition()
-        };
-    poseEstimator =
-        new SwerveDrivePoseEstimator(
-            getKinematics(),
-            rawGyroRotation,
-            lastModulePositions,
-            new Pose2d(),
-            VecBuilder.fill(
-                DriveConstants.X_POS_TRUST, DriveConstants.Y_POS_TRUST, DriveConstants.ANGLE_TRUST),
-            VecBuilder.fill(
-                VisionConstants.VISION_X_POS_TRUST,
-                VisionConstants.VISION_Y_POS_TRUST,
-                VisionConstants.VISION_ANGLE_TRUST));
+    odometry = new SwerveOdometry(DriveConstants.MODULE_TRANSLATIONS);
+    this.poseEstimator = poseEstimator;
 
     this.odometryThread = OdometryThread.createInstance(DeviceCANBus.RIO);
     this.odometryThreadInputs = new OdometryThreadInputsAutoLogged();
@@ -91,6 +125,29 @@ public class SwerveDrive extends SubsystemBase {
     gyroDisconnectedAlert.set(false);
   }
 
+  /** Creates the pose estimator selected by {@link DriveConstants#POSE_ESTIMATOR_MODE}. */
+  private static PoseEstimatorInterface createPoseEstimator() {
+    // The simulation takes one odometry sample per sub-tick, which can be faster than the hardware
+    final double odometryFrequency =
+        Robot.CURRENT_ROBOT_MODE == Mode.SIM
+            ? Math.max(
+                HardwareConstants.SIGNAL_FREQUENCY,
+                SimulatedField.getSimulationSubTicksIn1Period() / Robot.defaultPeriodSecs)
+            : HardwareConstants.SIGNAL_FREQUENCY;
+    final int historyCapacity =
+        (int) Math.ceil(PoseEstimatorInterface.HISTORY_SECONDS * odometryFrequency);
+    return switch (DriveConstants.POSE_ESTIMATOR_MODE) {
+      case ODOMETRY_HISTORY ->
+          new SwervePoseEstimator(
+              DriveConstants.X_POS_TRUST,
+              DriveConstants.Y_POS_TRUST,
+              DriveConstants.ANGLE_TRUST,
+              historyCapacity);
+      case EXTENDED_KALMAN ->
+          new KalmanPoseEstimator(DriveConstants.KALMAN_PROCESS_MODEL, historyCapacity);
+    };
+  }
+
   public SwerveDriveKinematics getKinematics() {
     return kinematics;
   }
@@ -125,7 +182,40 @@ public class SwerveDrive extends SubsystemBase {
    */
   public void addPoseEstimatorVisionMeasurement(
       Pose2d visionMeasurement, double currentTimeStampSeconds) {
-    poseEstimator.addVisionMeasurement(visionMeasurement, currentTimeStampSeconds);
+    poseEstimator.addVisionMeasurement(
+        currentTimeStampSeconds,
+        visionMeasurement.getX(),
+        visionMeasurement.getY(),
+        visionMeasurement.getRotation().getRadians(),
+        visionXStandardDeviation,
+        visionYStandardDeviation,
+        visionThetaStandardDeviation);
+  }
+
+  /**
+   * Updates the pose estimator with every vision measurement collected in one loop, each with its
+   * own standard deviations so one camera's confidence never applies to another camera's pose.
+   *
+   * <p>The measurements are applied oldest first. The estimator accepts them in any order: a
+   * measurement older than some of its corrections is fused at its timestamp and the newer
+   * corrections are fused again on top of it, so nothing is lost. Sorting only saves that work, in
+   * this order each measurement is the newest and is fused once.
+   *
+   * @param measurements the measurements, sorted by timestamp in place
+   */
+  public void addPoseEstimatorVisionMeasurements(List<VisionMeasurement> measurements) {
+    measurements.sort(BY_TIMESTAMP);
+    for (int i = 0; i < measurements.size(); i++) {
+      final VisionMeasurement measurement = measurements.get(i);
+      poseEstimator.addVisionMeasurement(
+          measurement.timestampSeconds(),
+          measurement.pose().getX(),
+          measurement.pose().getY(),
+          measurement.pose().getRotation().getRadians(),
+          measurement.xStandardDeviation(),
+          measurement.yStandardDeviation(),
+          measurement.thetaStandardDeviation());
+    }
   }
 
   /**
@@ -138,16 +228,19 @@ public class SwerveDrive extends SubsystemBase {
    */
   public void setPoseEstimatorVisionConfidence(
       double xStandardDeviation, double yStandardDeviation, double thetaStandardDeviation) {
-    poseEstimator.setVisionMeasurementStdDevs(
-        VecBuilder.fill(xStandardDeviation, yStandardDeviation, thetaStandardDeviation));
+    visionXStandardDeviation = xStandardDeviation;
+    visionYStandardDeviation = yStandardDeviation;
+    visionThetaStandardDeviation = thetaStandardDeviation;
   }
 
   public void periodic() {
+    periodicSection.start();
     final double t0 = TimeUtil.getRealTimeSeconds();
     fetchOdometryInputs();
     Logger.recordOutput(
         "SystemPerformance/OdometryFetchingTimeMS", (TimeUtil.getRealTimeSeconds() - t0) * 1000);
     modulesPeriodic();
+    periodicSection.stop();
   }
 
   /**
@@ -170,19 +263,26 @@ public class SwerveDrive extends SubsystemBase {
     return velocity;
   }
 
-  /** Processes odometry inputs */
+  /**
+   * Processes odometry inputs. The odometry thread hands over its samples as one batch in {@link
+   * OdometryThread#updateInputs}, so the sampler keeps running while the inputs are logged.
+   */
   void fetchOdometryInputs() {
-    odometryThread.lockOdometry();
     odometryThread.updateInputs(odometryThreadInputs);
+    processInputsSection.start();
     Logger.processInputs("Drive/OdometryThread", odometryThreadInputs);
+    processInputsSection.stop();
 
-    for (SwerveModule module : swerveModules) module.updateOdometryInputs();
+    for (SwerveModule module : swerveModules) {
+      module.updateOdometryInputs();
+      module.updateOdometryPositions(odometryThreadInputs.measurementTimeStamps);
+    }
 
     gyroIO.updateInputs(gyroInputs);
+    processInputsSection.start();
     Logger.processInputs("Drive/Gyro", gyroInputs);
+    processInputsSection.stop();
     gyroDisconnectedAlert.set(!gyroInputs.isConnected);
-
-    odometryThread.unlockOdometry();
   }
 
   private void modulesPeriodic() {
@@ -230,56 +330,41 @@ public class SwerveDrive extends SubsystemBase {
     for (int i = 0; i < 4; i++) {
       swerveModules[i].runSetpoint(desiredStates[i]);
     }
+    // Stage every module first so all eight requests go out back to back
+    for (SwerveModule module : swerveModules) module.flushOutputs();
   }
 
   /**
    * Updates the pose estimator with the pose calculated from the swerve modules.
    *
+   * <p>Runs for every odometry sample, so it only works on pre-allocated primitive buffers.
+   *
    * @param timestampIndex index of the timestamp to sample the pose at
    */
   private void addPoseEstimatorSwerveMeasurement(int timestampIndex) {
-    final SwerveModulePosition[] modulePositions = getModulesPosition(timestampIndex),
-        moduleDeltas = getModulesDelta(modulePositions);
-
-    if (gyroInputs.isConnected) {
-      rawGyroRotation = gyroInputs.odometryYawPositions[timestampIndex];
-    } else {
-      Twist2d twist = getKinematics().toTwist2d(moduleDeltas);
-      rawGyroRotation = rawGyroRotation.plus(new Rotation2d(twist.dtheta));
-    }
-
-    poseEstimator.updateWithTime(
-        odometryThreadInputs.measurementTimeStamps[timestampIndex],
-        rawGyroRotation,
-        modulePositions);
-  }
-
-  /**
-   * Gets the modules positions, sampled at the indexed timestamp.
-   *
-   * @param timestampIndex the timestamp index to sample.
-   * @return a list of SwerveModulePosition, containing relative drive position and absolute turn
-   *     rotation at the sampled timestamp.
-   */
-  private SwerveModulePosition[] getModulesPosition(int timestampIndex) {
-    SwerveModulePosition[] swerveModulePositions = new SwerveModulePosition[swerveModules.length];
-    for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++)
-      swerveModulePositions[moduleIndex] =
-          swerveModules[moduleIndex].getOdometryPositions()[timestampIndex];
-    return swerveModulePositions;
-  }
-
-  private SwerveModulePosition[] getModulesDelta(SwerveModulePosition[] freshModulesPosition) {
-    SwerveModulePosition[] deltas = new SwerveModulePosition[swerveModules.length];
+    final double timestampSeconds = odometryThreadInputs.measurementTimeStamps[timestampIndex];
     for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++) {
-      final double deltaDistanceMeters =
-          freshModulesPosition[moduleIndex].distanceMeters
-              - lastModulePositions[moduleIndex].distanceMeters;
-      deltas[moduleIndex] =
-          new SwerveModulePosition(deltaDistanceMeters, freshModulesPosition[moduleIndex].angle);
-      lastModulePositions[moduleIndex] = freshModulesPosition[moduleIndex];
+      sampleDistancesMeters[moduleIndex] =
+          swerveModules[moduleIndex].getOdometryDistancesMeters()[timestampIndex];
+      sampleAnglesRad[moduleIndex] =
+          swerveModules[moduleIndex].getOdometryAnglesRad()[timestampIndex];
     }
-    return deltas;
+
+    // The yaw is captured at its own instants, so resample it onto the common time grid
+    final double gyroYawRad =
+        gyroInputs.isConnected
+            ? Math.toRadians(
+                OdometryInterpolation.interpolate(
+                    gyroInputs.odometryYawTimestamps,
+                    gyroInputs.odometryYawPositionsDegrees,
+                    timestampSeconds,
+                    Math.toDegrees(rawGyroYawRad)))
+            : Double.NaN;
+    odometry.update(sampleDistancesMeters, sampleAnglesRad, gyroYawRad);
+    rawGyroYawRad =
+        gyroInputs.isConnected ? gyroYawRad : rawGyroYawRad + odometry.getWheelDeltaHeadingRad();
+
+    poseEstimator.addOdometrySample(timestampSeconds, odometry);
   }
 
   /** Returns the module states (turn angles and drive velocities) for all the modules. */
@@ -300,7 +385,36 @@ public class SwerveDrive extends SubsystemBase {
   /** Gets the fused pose from the pose estimator. */
   @AutoLogOutput(key = "Odometry/RobotPosition")
   public Pose2d getPose() {
-    return poseEstimator.getEstimatedPosition();
+    if (estimatedPoseX != poseEstimator.getXMeters()
+        || estimatedPoseY != poseEstimator.getYMeters()
+        || estimatedPoseHeadingRad != poseEstimator.getHeadingRad()) {
+      estimatedPoseX = poseEstimator.getXMeters();
+      estimatedPoseY = poseEstimator.getYMeters();
+      estimatedPoseHeadingRad = poseEstimator.getHeadingRad();
+      estimatedPose =
+          new Pose2d(estimatedPoseX, estimatedPoseY, new Rotation2d(estimatedPoseHeadingRad));
+    }
+    return estimatedPose;
+  }
+
+  /**
+   * Gets the fused pose at a past timestamp without creating a pose, for checking vision against.
+   *
+   * @param timestampSeconds the timestamp
+   * @param pose the array to write the x and y in meters and the heading in radians into
+   */
+  public void getPoseAt(double timestampSeconds, double[] pose) {
+    poseEstimator.sampleEstimate(timestampSeconds, pose);
+  }
+
+  /**
+   * Gets how uncertain the fused pose is, for checking vision against.
+   *
+   * @param covariance the array to write the row-major 3x3 covariance of the x and y in meters and
+   *     the heading in radians into
+   */
+  public void getPoseCovariance(double[] covariance) {
+    poseEstimator.getPoseCovariance(covariance);
   }
 
   /** Gets the current gyro yaw */
@@ -314,6 +428,16 @@ public class SwerveDrive extends SubsystemBase {
    * @param pose pose to set
    */
   public void setPose(Pose2d pose) {
-    poseEstimator.resetPosition(rawGyroRotation, getModulePositions(), pose);
+    final SwerveModulePosition[] modulePositions = getModulePositions();
+    poseEstimator.resetPosition(pose.getX(), pose.getY(), pose.getRotation().getRadians());
+
+    for (int moduleIndex = 0; moduleIndex < 4; moduleIndex++)
+      sampleDistancesMeters[moduleIndex] = modulePositions[moduleIndex].distanceMeters;
+    odometry.resetPosition(
+        pose.getX(),
+        pose.getY(),
+        pose.getRotation().getRadians(),
+        gyroInputs.isConnected ? rawGyroYawRad : Double.NaN,
+        sampleDistancesMeters);
   }
 }
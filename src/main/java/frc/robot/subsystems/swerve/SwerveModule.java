@@ -5,21 +5,37 @@ import static edu.wpi.first.units.Units.Volts;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.extras.debug.LoopProfiler;
+import frc.robot.extras.debug.LoopProfiler.Category;
 import frc.robot.subsystems.swerve.SwerveConstants.ModuleConstants;
 import frc.robot.subsystems.swerve.moduleIO.ModuleInputsAutoLogged;
 import frc.robot.subsystems.swerve.moduleIO.ModuleInterface;
+import frc.robot.subsystems.swerve.odometryThread.OdometryInterpolation;
+import frc.robot.subsystems.swerve.odometryThread.OdometryThread;
 import org.littletonrobotics.junction.Logger;
 
 public class SwerveModule extends SubsystemBase {
   private final ModuleInterface io;
   private final String name;
+  private final String inputsKey;
   private final ModuleInputsAutoLogged inputs = new ModuleInputsAutoLogged();
 
-  SwerveModulePosition[] odometryPositions = new SwerveModulePosition[] {};
+  /* shared with the drive, whose periodic() updates the module inputs */
+  private final LoopProfiler.Section processInputsSection =
+      LoopProfiler.getInstance().section("Drive", Category.LOGGER);
+
+  /*
+   * odometry positions resampled onto the common time grid, updated in place every cycle. They only
+   * grow past the odometry buffer capacity in simulation, which has one sample per sub-tick.
+   */
+  private double[] odometryDistancesMeters = new double[OdometryThread.ODOMETRY_BUFFER_CAPACITY];
+  private double[] odometryAnglesRad = new double[OdometryThread.ODOMETRY_BUFFER_CAPACITY];
+  private int odometryPositionsCount = 0;
 
   private final Alert hardwareFaultAlert;
 
@@ -27,6 +43,7 @@ public class SwerveModule extends SubsystemBase {
     super("Module-" + name);
     this.io = io;
     this.name = name;
+    this.inputsKey = "Drive/Module-" + name;
     this.hardwareFaultAlert =
         new Alert("Module-" + name + " Hardware Fault", Alert.AlertType.kError);
     this.hardwareFaultAlert.set(false);
@@ -36,10 +53,45 @@ public class SwerveModule extends SubsystemBase {
 
   public void updateOdometryInputs() {
     io.updateInputs(inputs);
-    Logger.processInputs("Drive/Module-" + name, inputs);
+    processInputsSection.start();
+    Logger.processInputs(inputsKey, inputs);
+    processInputsSection.stop();
     this.hardwareFaultAlert.set(!inputs.isConnected);
   }
 
+  /**
+   * Resamples the drive and turn positions received this cycle onto the common odometry time grid.
+   * The drive and turn signals are captured at different instants, so each is interpolated using
+   * its own timestamps.
+   *
+   * @param measurementTimeStamps the common time grid, in seconds
+   */
+  public void updateOdometryPositions(double[] measurementTimeStamps) {
+    if (measurementTimeStamps.length > odometryDistancesMeters.length) {
+      odometryDistancesMeters = new double[measurementTimeStamps.length];
+      odometryAnglesRad = new double[measurementTimeStamps.length];
+    }
+    // Update the pre-allocated odometry positions in place
+    odometryPositionsCount = measurementTimeStamps.length;
+    for (int i = 0; i < odometryPositionsCount; i++) {
+      final double drivePosition =
+          OdometryInterpolation.interpolate(
+              inputs.odometryDriveTimestamps,
+              inputs.odometryDrivePositions,
+              measurementTimeStamps[i],
+              inputs.drivePosition);
+      final double turnRotations =
+          OdometryInterpolation.interpolateAngle(
+              inputs.odometryTurnTimestamps,
+              inputs.odometryTurnPositions,
+              measurementTimeStamps[i],
+              1.0,
+              inputs.turnAbsolutePosition.getRotations());
+      odometryDistancesMeters[i] = ModuleConstants.DRIVE_TO_METERS * drivePosition;
+      odometryAnglesRad[i] = Units.rotationsToRadians(turnRotations);
+    }
+  }
+
   @Override
   public void periodic() {}
 
@@ -61,6 +113,11 @@ public class SwerveModule extends SubsystemBase {
     io.setDesiredState(state);
   }
 
+  /** Sends the outputs staged by {@link #runSetpoint}. */
+  public void flushOutputs() {
+    io.flushOutputs();
+  }
+
   /** Returns the current turn angle of the module. */
   public Rotation2d getTurnRotation() {
     return inputs.turnAbsolutePosition;
@@ -85,9 +142,27 @@ public class SwerveModule extends SubsystemBase {
     return new SwerveModuleState(getDriveVelocityMetersPerSec(), getTurnRotation());
   }
 
-  /** Returns the module positions received this cycle. */
-  public SwerveModulePosition[] getOdometryPositions() {
-    return odometryPositions;
+  /**
+   * Returns the drive distances received this cycle in meters, on the common odometry time grid.
+   * Only the first {@link #getOdometryPositionsCount()} entries are valid, and they are updated in
+   * place every cycle.
+   */
+  public double[] getOdometryDistancesMeters() {
+    return odometryDistancesMeters;
+  }
+
+  /**
+   * Returns the turn angles received this cycle in radians, on the common odometry time grid. Only
+   * the first {@link #getOdometryPositionsCount()} entries are valid, and they are updated in place
+   * every cycle.
+   */
+  public double[] getOdometryAnglesRad() {
+    return odometryAnglesRad;
+  }
+
+  /** Returns the amount of module positions received this cycle. */
+  public int getOdometryPositionsCount() {
+    return odometryPositionsCount;
   }
 
   /**
@@ -97,7 +172,7 @@ public class SwerveModule extends SubsystemBase {
    * @return a SwerveModulePosition object containing position and rotation
    */
   public SwerveModulePosition getPosition() {
-    double position = ModuleConstants.DRIVE_TO_METERS * getDrivePositionMeters();
+    double position = getDrivePositionMeters();
     Rotation2d rotation = getTurnRotation();
     return new SwerveModulePosition(position, rotation);
   }
@@ -0,0 +1,78 @@
+package frc.robot.subsystems.swerve;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * A pose measured by vision, with its own confidence, ready to be fused by {@link SwerveDrive}.
+ *
+ * <p>Measurements are mutable so a caller that collects them every loop can keep a pool and {@link
+ * #set} them again instead of allocating one per frame. The standard deviations are primitives
+ * for the same reason: the pose estimator takes them as doubles, so no matrix is built.
+ */
+public final class VisionMeasurement {
+  private Pose2d pose = new Pose2d();
+  private double timestampSeconds;
+  private double xStandardDeviation, yStandardDeviation, thetaStandardDeviation;
+
+  /** Creates an empty measurement to be filled with {@link #set}. */
+  public VisionMeasurement() {}
+
+  /**
+   * Creates a measurement.
+   *
+   * @see #set
+   */
+  public VisionMeasurement(
+      Pose2d pose,
+      double timestampSeconds,
+      double xStandardDeviation,
+      double yStandardDeviation,
+      double thetaStandardDeviation) {
+    set(pose, timestampSeconds, xStandardDeviation, yStandardDeviation, thetaStandardDeviation);
+  }
+
+  /**
+   * Replaces every value of this measurement.
+   *
+   * @param pose the pose of the robot
+   * @param timestampSeconds the FPGA time the pose was captured at, in seconds
+   * @param xStandardDeviation the x standard deviation in meters
+   * @param yStandardDeviation the y standard deviation in meters
+   * @param thetaStandardDeviation the theta standard deviation in radians. Lower numbers equal
+   *     higher confidence.
+   * @return this measurement
+   */
+  public VisionMeasurement set(
+      Pose2d pose,
+      double timestampSeconds,
+      double xStandardDeviation,
+      double yStandardDeviation,
+      double thetaStandardDeviation) {
+    this.pose = pose;
+    this.timestampSeconds = timestampSeconds;
+    this.xStandardDeviation = xStandardDeviation;
+    this.yStandardDeviation = yStandardDeviation;
+    this.thetaStandardDeviation = thetaStandardDeviation;
+    return this;
+  }
+
+  public Pose2d pose() {
+    return pose;
+  }
+
+  public double timestampSeconds() {
+    return timestampSeconds;
+  }
+
+  public double xStandardDeviation() {
+    return xStandardDeviation;
+  }
+
+  public double yStandardDeviation() {
+    return yStandardDeviation;
+  }
+
+  public double thetaStandardDeviation() {
+    return thetaStandardDeviation;
+  }
+}
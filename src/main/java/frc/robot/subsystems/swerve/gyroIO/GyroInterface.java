@@ -12,7 +12,7 @@ public interface GyroInterface {
     public Rotation2d yawDegreesRotation2d = new Rotation2d();
     public double yawVelocity = 0.0;
 
-    public Rotation2d[] odometryYawPositions = new Rotation2d[] {};
+    public double[] odometryYawPositionsDegrees = new double[] {};
     public double[] odometryYawTimestamps = new double[] {};
   }
 
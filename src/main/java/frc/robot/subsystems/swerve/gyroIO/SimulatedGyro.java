@@ -3,11 +3,15 @@ package frc.robot.subsystems.swerve.gyroIO;
 import static edu.wpi.first.units.Units.DegreesPerSecond;
 import static edu.wpi.first.units.Units.RadiansPerSecond;
 
+import frc.robot.extras.simulation.AlternatingArrays;
 import frc.robot.extras.simulation.OdometryTimestampsSim;
+import frc.robot.extras.simulation.mechanismSim.swerve.CachedReadings;
 import frc.robot.extras.simulation.mechanismSim.swerve.GyroSimulation;
 
 public class SimulatedGyro implements GyroInterface {
   private final GyroSimulation gyroSimulation;
+  private final AlternatingArrays odometryYawPositions = new AlternatingArrays(),
+      odometryYawTimestamps = new AlternatingArrays();
 
   public SimulatedGyro(GyroSimulation gyroSimulation) {
     this.gyroSimulation = gyroSimulation;
@@ -16,8 +20,12 @@ public class SimulatedGyro implements GyroInterface {
   @Override
   public void updateInputs(GyroInputs inputs) {
     inputs.isConnected = true;
-    inputs.odometryYawPositions = gyroSimulation.getCachedGyroReadings();
-    inputs.odometryYawTimestamps = OdometryTimestampsSim.getTimestamps();
+    final CachedReadings cachedGyroReadingsRad = gyroSimulation.getCachedGyroReadingsRadView();
+    inputs.odometryYawPositionsDegrees = odometryYawPositions.next(cachedGyroReadingsRad.size());
+    for (int i = 0; i < inputs.odometryYawPositionsDegrees.length; i++)
+      inputs.odometryYawPositionsDegrees[i] = Math.toDegrees(cachedGyroReadingsRad.get(i));
+    inputs.odometryYawTimestamps = odometryYawTimestamps.next(cachedGyroReadingsRad.size());
+    OdometryTimestampsSim.fillTimestamps(inputs.odometryYawTimestamps);
     inputs.yawDegreesRotation2d = gyroSimulation.getGyroReading();
     inputs.yawVelocity =
         RadiansPerSecond.of(gyroSimulation.getMeasuredAngularVelocityRadPerSec())
@@ -21,7 +21,10 @@ public interface ModuleInterface {
     public double turnAppliedVolts = 0.0;
     public double turnCurrentAmps = 0.0;
 
-    public double[] odometryTimestamps = new double[] {};
+    public double[] odometryDrivePositions = new double[] {};
+    public double[] odometryDriveTimestamps = new double[] {};
+    public double[] odometryTurnPositions = new double[] {};
+    public double[] odometryTurnTimestamps = new double[] {};
 
     public double turnPosition = 0.0;
   }
@@ -40,6 +43,12 @@ public interface ModuleInterface {
    */
   default void setDesiredState(SwerveModuleState desiredState) {}
 
+  /**
+   * Sends the outputs staged by {@link #setDesiredState}. Implementations that apply the desired
+   * state right away do not need to override this.
+   */
+  default void flushOutputs() {}
+
   default void setDriveVoltage(Voltage voltage) {}
 
   default void setTurnVoltage(Voltage voltage) {}
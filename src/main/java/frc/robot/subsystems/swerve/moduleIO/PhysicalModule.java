@@ -1,11 +1,11 @@
 package frc.robot.subsystems.swerve.moduleIO;
 
-import static edu.wpi.first.units.Units.*;
-
 import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.ControlRequest;
+import com.ctre.phoenix6.controls.DutyCycleOut;
 import com.ctre.phoenix6.controls.MotionMagicVoltage;
 import com.ctre.phoenix6.controls.VelocityVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
@@ -16,16 +16,17 @@ import com.ctre.phoenix6.signals.FeedbackSensorSourceValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.units.measure.Angle;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Voltage;
 import frc.robot.Constants.HardwareConstants;
+import frc.robot.extras.util.CANBusBudget;
+import frc.robot.extras.util.CANBusBudget.Priority;
 import frc.robot.extras.util.DeviceCANBus;
 import frc.robot.subsystems.swerve.SwerveConstants.ModuleConfig;
 import frc.robot.subsystems.swerve.SwerveConstants.ModuleConstants;
 import frc.robot.subsystems.swerve.odometryThread.OdometryThread;
-import java.util.Queue;
+import frc.robot.subsystems.swerve.odometryThread.OdometryThread.OdometryDoubleInput;
 
 public class PhysicalModule implements ModuleInterface {
   private final TalonFX driveMotor;
@@ -35,13 +36,22 @@ public class PhysicalModule implements ModuleInterface {
   private final VoltageOut voltageOut = new VoltageOut(0.0);
   private final VelocityVoltage velocityRequest = new VelocityVoltage(0.0);
   private final MotionMagicVoltage mmPositionRequest = new MotionMagicVoltage(0.0);
+  private final DutyCycleOut neutralRequest = new DutyCycleOut(0.0);
+
+  /* requests staged by setDesiredState and sent by flushOutputs, null when nothing is staged */
+  private ControlRequest stagedDriveRequest = null;
+  private ControlRequest stagedTurnRequest = null;
+  private final SwerveModuleState setpoint = new SwerveModuleState();
+
+  /* latest turn angle sampled by the odometry thread, so setpoints need no blocking CAN read */
+  private Rotation2d turnAngle = new Rotation2d();
 
-  private final Queue<Angle> drivePosition;
+  private final OdometryDoubleInput drivePosition;
   private final StatusSignal<AngularVelocity> driveVelocity;
   private final StatusSignal<Voltage> driveMotorAppliedVoltage;
   private final StatusSignal<Current> driveMotorCurrent;
 
-  private final Queue<Angle> turnEncoderAbsolutePosition;
+  private final OdometryDoubleInput turnEncoderAbsolutePosition;
   private final StatusSignal<AngularVelocity> turnEncoderVelocity;
   private final StatusSignal<Voltage> turnMotorAppliedVolts;
   private final StatusSignal<Current> turnMotorCurrent;
@@ -119,10 +129,28 @@ public class PhysicalModule implements ModuleInterface {
           turnMotorCurrent
         };
 
+    CANBusBudget.register(
+        DeviceCANBus.RIO,
+        Priority.ODOMETRY,
+        HardwareConstants.SIGNAL_FREQUENCY,
+        driveMotor.getPosition(),
+        turnEncoder.getAbsolutePosition());
+    CANBusBudget.register(
+        DeviceCANBus.RIO, Priority.HIGH, 50.0, 20.0, driveVelocity, turnEncoderVelocity);
+    CANBusBudget.register(
+        DeviceCANBus.RIO,
+        Priority.LOW,
+        50.0,
+        4.0,
+        driveMotorAppliedVoltage,
+        driveMotorCurrent,
+        turnMotorAppliedVolts,
+        turnMotorCurrent);
+    CANBusBudget.reserve(DeviceCANBus.RIO, 2 * CANBusBudget.CONTROL_FRAME_RATE_HZ);
+
     driveMotor.setPosition(0.0);
     turnMotor.setPosition(0.0);
 
-    BaseStatusSignal.setUpdateFrequencyForAll(50.0, periodicallyRefreshedSignals);
     driveMotor.optimizeBusUtilization();
     turnMotor.optimizeBusUtilization();
   }
@@ -134,23 +162,16 @@ public class PhysicalModule implements ModuleInterface {
     inputs.driveVelocity = driveVelocity.getValueAsDouble();
 
     // Handle drive positions
-    if (!drivePosition.isEmpty()) {
-      Angle driveRelativePosition = Rotations.zero();
-      for (Angle angle : drivePosition) {
-        driveRelativePosition = angle;
-      }
-      inputs.drivePosition = driveRelativePosition.in(Rotations);
-      drivePosition.clear();
-    }
+    inputs.odometryDrivePositions = drivePosition.getSamples();
+    inputs.odometryDriveTimestamps = drivePosition.getTimestamps();
+    inputs.drivePosition = drivePosition.getLatest(inputs.drivePosition);
 
     // Handle turn absolute positions
-    if (!turnEncoderAbsolutePosition.isEmpty()) {
-      Rotation2d turnPosition = new Rotation2d();
-      for (Angle angle : turnEncoderAbsolutePosition) {
-        turnPosition = Rotation2d.fromRotations(angle.in(Rotations));
-      }
-      inputs.turnAbsolutePosition = turnPosition;
-      turnEncoderAbsolutePosition.clear();
+    inputs.odometryTurnPositions = turnEncoderAbsolutePosition.getSamples();
+    inputs.odometryTurnTimestamps = turnEncoderAbsolutePosition.getTimestamps();
+    if (turnEncoderAbsolutePosition.getSampleCount() > 0) {
+      turnAngle = Rotation2d.fromRotations(turnEncoderAbsolutePosition.getLatest(0.0));
+      inputs.turnAbsolutePosition = turnAngle;
     }
 
     inputs.turnPosition = turnMotor.getPosition().getValueAsDouble();
@@ -175,19 +196,21 @@ public class PhysicalModule implements ModuleInterface {
     turnMotor.setControl(voltageOut.withOutput(volts));
   }
 
+  /**
+   * Stages the requests for the desired state. Nothing is sent until {@link #flushOutputs()}, so
+   * the drive can send the requests of every module back to back.
+   */
   @Override
   public void setDesiredState(SwerveModuleState desiredState) {
-    double turnRotations = getTurnRotations();
     // Optimize the reference state to avoid spinning further than 90 degrees
-    SwerveModuleState setpoint =
-        new SwerveModuleState(desiredState.speedMetersPerSecond, desiredState.angle);
-
-    setpoint.optimize(Rotation2d.fromRotations(turnRotations));
-    setpoint.cosineScale(Rotation2d.fromRotations(turnRotations));
+    setpoint.speedMetersPerSecond = desiredState.speedMetersPerSecond;
+    setpoint.angle = desiredState.angle;
+    setpoint.optimize(turnAngle);
+    setpoint.cosineScale(turnAngle);
 
     if (Math.abs(setpoint.speedMetersPerSecond) < 0.01) {
-      driveMotor.set(0);
-      turnMotor.set(0);
+      stagedDriveRequest = neutralRequest;
+      stagedTurnRequest = neutralRequest;
       return;
     }
 
@@ -197,15 +220,21 @@ public class PhysicalModule implements ModuleInterface {
             * ModuleConstants.DRIVE_GEAR_RATIO
             / ModuleConstants.WHEEL_CIRCUMFERENCE_METERS;
 
-    driveMotor.setControl(velocityRequest.withVelocity(RotationsPerSecond.of(desiredDriveRPS)));
-    turnMotor.setControl(
-        mmPositionRequest.withPosition(Rotations.of(setpoint.angle.getRotations())));
+    stagedDriveRequest = velocityRequest.withVelocity(desiredDriveRPS);
+    stagedTurnRequest = mmPositionRequest.withPosition(setpoint.angle.getRotations());
+  }
+
+  @Override
+  public void flushOutputs() {
+    if (stagedDriveRequest != null) driveMotor.setControl(stagedDriveRequest);
+    if (stagedTurnRequest != null) turnMotor.setControl(stagedTurnRequest);
+    stagedDriveRequest = null;
+    stagedTurnRequest = null;
   }
 
+  /** Returns the latest turn angle sampled by the odometry thread, without a CAN read. */
   public double getTurnRotations() {
-    turnEncoder.getAbsolutePosition().refresh();
-    return Rotation2d.fromRotations(turnEncoder.getAbsolutePosition().getValueAsDouble())
-        .getRotations();
+    return turnAngle.getRotations();
   }
 
   @Override
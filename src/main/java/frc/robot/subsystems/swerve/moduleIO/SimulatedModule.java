@@ -10,7 +10,9 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.units.measure.Voltage;
+import frc.robot.extras.simulation.AlternatingArrays;
 import frc.robot.extras.simulation.OdometryTimestampsSim;
+import frc.robot.extras.simulation.mechanismSim.swerve.CachedReadings;
 import frc.robot.extras.simulation.mechanismSim.swerve.SwerveModuleSimulation;
 import frc.robot.subsystems.swerve.SwerveConstants.ModuleConstants;
 
@@ -24,6 +26,10 @@ public class SimulatedModule implements ModuleInterface {
   private final ProfiledPIDController turnPID = new ProfiledPIDController(5, 0, 0, turnConstraints);
   private final SimpleMotorFeedforward turnFF = new SimpleMotorFeedforward(5, 0, 0);
 
+  private final AlternatingArrays odometryTimestamps = new AlternatingArrays(),
+      odometryDrivePositions = new AlternatingArrays(),
+      odometryTurnPositions = new AlternatingArrays();
+
   public SimulatedModule(SwerveModuleSimulation moduleSimulation) {
     this.moduleSimulation = moduleSimulation;
   }
@@ -47,7 +53,19 @@ public class SimulatedModule implements ModuleInterface {
     inputs.turnAppliedVolts = moduleSimulation.getTurnMotorAppliedVolts();
     inputs.turnCurrentAmps = Math.abs(moduleSimulation.getTurnMotorSupplyCurrentAmps());
 
-    inputs.odometryTimestamps = OdometryTimestampsSim.getTimestamps();
+    final CachedReadings drivePositionsRad =
+        moduleSimulation.getCachedDriveWheelFinalPositionsRadView();
+    final CachedReadings turnPositionsRad =
+        moduleSimulation.getCachedTurnAbsolutePositionsRadView();
+    inputs.odometryDriveTimestamps = odometryTimestamps.next(drivePositionsRad.size());
+    OdometryTimestampsSim.fillTimestamps(inputs.odometryDriveTimestamps);
+    inputs.odometryTurnTimestamps = inputs.odometryDriveTimestamps;
+    inputs.odometryDrivePositions = odometryDrivePositions.next(drivePositionsRad.size());
+    for (int i = 0; i < inputs.odometryDrivePositions.length; i++)
+      inputs.odometryDrivePositions[i] = Units.radiansToRotations(drivePositionsRad.get(i));
+    inputs.odometryTurnPositions = odometryTurnPositions.next(turnPositionsRad.size());
+    for (int i = 0; i < inputs.odometryTurnPositions.length; i++)
+      inputs.odometryTurnPositions[i] = Units.radiansToRotations(turnPositionsRad.get(i));
   }
 
   @Override
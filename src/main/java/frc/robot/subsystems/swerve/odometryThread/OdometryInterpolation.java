@@ -0,0 +1,81 @@
+package frc.robot.subsystems.swerve.odometryThread;
+
+/**
+ * Resamples odometry signals, each captured with its own timestamps, onto a common time grid.
+ *
+ * <p>Timestamps are expected in ascending order. Samples are interpolated linearly and held
+ * constant outside of the captured range.
+ */
+public final class OdometryInterpolation {
+  private OdometryInterpolation() {}
+
+  /**
+   * Interpolates a continuous signal at the given time.
+   *
+   * @param timestamps the capture time of each sample, in seconds
+   * @param values the samples
+   * @param timestampSeconds the time to sample the signal at
+   * @param fallback the value returned if there are no samples
+   * @return the interpolated value
+   */
+  public static double interpolate(
+      double[] timestamps, double[] values, double timestampSeconds, double fallback) {
+    final int count = Math.min(timestamps.length, values.length);
+    if (count == 0) return fallback;
+
+    final int lowerIndex = findLowerIndex(timestamps, count, timestampSeconds);
+    if (lowerIndex < 0) return values[0];
+    if (lowerIndex == count - 1) return values[count - 1];
+
+    final double t = interpolationFactor(timestamps, lowerIndex, timestampSeconds);
+    return values[lowerIndex] + (values[lowerIndex + 1] - values[lowerIndex]) * t;
+  }
+
+  /**
+   * Interpolates a wrapping angle at the given time, along the shortest arc between samples.
+   *
+   * @param timestamps the capture time of each sample, in seconds
+   * @param values the samples
+   * @param timestampSeconds the time to sample the signal at
+   * @param fullTurn the value of one full turn in the unit of the samples, e.g. 1 for rotations
+   * @param fallback the value returned if there are no samples
+   * @return the interpolated angle, not wrapped
+   */
+  public static double interpolateAngle(
+      double[] timestamps,
+      double[] values,
+      double timestampSeconds,
+      double fullTurn,
+      double fallback) {
+    final int count = Math.min(timestamps.length, values.length);
+    if (count == 0) return fallback;
+
+    final int lowerIndex = findLowerIndex(timestamps, count, timestampSeconds);
+    if (lowerIndex < 0) return values[0];
+    if (lowerIndex == count - 1) return values[count - 1];
+
+    final double t = interpolationFactor(timestamps, lowerIndex, timestampSeconds);
+    final double delta = values[lowerIndex + 1] - values[lowerIndex];
+    final double shortestDelta = delta - fullTurn * Math.round(delta / fullTurn);
+    return values[lowerIndex] + shortestDelta * t;
+  }
+
+  /** Returns the last index whose timestamp is at or before the given time, or -1 if none. */
+  private static int findLowerIndex(double[] timestamps, int count, double timestampSeconds) {
+    int low = 0, high = count - 1, result = -1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      if (timestamps[middle] <= timestampSeconds) {
+        result = middle;
+        low = middle + 1;
+      } else high = middle - 1;
+    }
+    return result;
+  }
+
+  private static double interpolationFactor(
+      double[] timestamps, int lowerIndex, double timestampSeconds) {
+    final double span = timestamps[lowerIndex + 1] - timestamps[lowerIndex];
+    return span <= 0 ? 1.0 : (timestampSeconds - timestamps[lowerIndex]) / span;
+  }
+}
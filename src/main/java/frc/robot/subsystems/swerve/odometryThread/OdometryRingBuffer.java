@@ -0,0 +1,123 @@
+package frc.robot.subsystems.swerve.odometryThread;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pre-allocated, single-producer/single-consumer ring buffer of fixed-width {@code double} rows.
+ *
+ * <p>Each row holds one odometry sample: the timestamp followed by one column per registered
+ * input. The odometry thread is the only producer and the main robot loop is the only consumer, so
+ * no lock is needed. A row is handed from the producer to the consumer by publishing the write
+ * index after the row is filled, and handed back by publishing the read index after it is drained.
+ */
+public final class OdometryRingBuffer {
+  private final int rowWidth;
+  private final int capacity;
+  private final int indexMask;
+  private final double[] rows;
+
+  /** Index of the next row to be written. Only advanced by the producer. */
+  private final AtomicLong writeIndex = new AtomicLong();
+
+  /** Index of the next row to be read. Only advanced by the consumer. */
+  private final AtomicLong readIndex = new AtomicLong();
+
+  /** Rows rejected because the consumer fell behind. Only written by the producer. */
+  private volatile long droppedRows = 0;
+
+  /* producer-owned cursor for the row currently being filled */
+  private int claimedRowOffset = -1;
+  /* consumer-owned cursor for the batch currently being read */
+  private long batchStartIndex = 0;
+  private int batchSize = 0;
+
+  /**
+   * Creates a ring buffer.
+   *
+   * @param capacity the maximum amount of rows that can be buffered, must be a power of two
+   * @param rowWidth the amount of columns in each row
+   */
+  public OdometryRingBuffer(int capacity, int rowWidth) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+      throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+    if (rowWidth <= 0)
+      throw new IllegalArgumentException("rowWidth must be positive, got " + rowWidth);
+    this.capacity = capacity;
+    this.rowWidth = rowWidth;
+    this.indexMask = capacity - 1;
+    this.rows = new double[capacity * rowWidth];
+  }
+
+  /**
+   * Claims the next free row for writing. Producer side only.
+   *
+   * @return true if a row was claimed, false if the buffer is full and the sample is dropped
+   */
+  public boolean tryClaim() {
+    final long index = writeIndex.get();
+    if (index - readIndex.get() >= capacity) {
+      droppedRows++;
+      claimedRowOffset = -1;
+      return false;
+    }
+    claimedRowOffset = (int) (index & indexMask) * rowWidth;
+    return true;
+  }
+
+  /**
+   * Writes a value to the claimed row. Producer side only.
+   *
+   * @param column the column to write
+   * @param value the value to write
+   */
+  public void put(int column, double value) {
+    rows[claimedRowOffset + column] = value;
+  }
+
+  /** Makes the claimed row visible to the consumer. Producer side only. */
+  public void publish() {
+    if (claimedRowOffset < 0) return;
+    claimedRowOffset = -1;
+    writeIndex.lazySet(writeIndex.get() + 1);
+  }
+
+  /**
+   * Starts reading every row published so far. Consumer side only.
+   *
+   * <p>The returned rows stay valid and unchanged until {@link #endRead()} is called.
+   *
+   * @return the amount of rows in the batch
+   */
+  public int beginRead() {
+    batchStartIndex = readIndex.get();
+    batchSize = (int) (writeIndex.get() - batchStartIndex);
+    return batchSize;
+  }
+
+  /**
+   * Reads a value from the current batch. Consumer side only.
+   *
+   * @param row the row in the batch, from 0 (oldest) to the batch size - 1 (newest)
+   * @param column the column to read
+   * @return the value
+   */
+  public double get(int row, int column) {
+    return rows[(int) ((batchStartIndex + row) & indexMask) * rowWidth + column];
+  }
+
+  /** Returns the rows of the current batch to the producer. Consumer side only. */
+  public void endRead() {
+    readIndex.lazySet(batchStartIndex + batchSize);
+    batchSize = 0;
+  }
+
+  /** Returns the maximum amount of rows that can be buffered. */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** Returns the total amount of rows dropped since the buffer was created. */
+  public long getDroppedRows() {
+    return droppedRows;
+  }
+}
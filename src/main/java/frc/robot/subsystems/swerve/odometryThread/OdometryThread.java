@@ -5,45 +5,149 @@ import com.ctre.phoenix6.StatusSignal;
 import edu.wpi.first.units.measure.Angle;
 import frc.robot.Constants.HardwareConstants;
 import frc.robot.Robot;
+import frc.robot.extras.simulation.AlternatingArrays;
+import frc.robot.extras.simulation.OdometryTimestampsSim;
+import frc.robot.extras.simulation.field.SimulatedField;
 import frc.robot.extras.util.DeviceCANBus;
 import frc.robot.extras.util.TimeUtil;
-import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.function.Supplier;
+import java.util.function.DoubleSupplier;
 import org.littletonrobotics.junction.AutoLog;
 
 public interface OdometryThread {
+  /** The maximum amount of samples buffered between two robot loops. */
+  int ODOMETRY_BUFFER_CAPACITY = 16;
+
+  /** The ring buffer column holding the timestamp of each sample. */
+  int TIMESTAMP_COLUMN = 0;
+
+  /** The ring buffer column holding the time since the previous sample, in seconds. */
+  int SAMPLE_PERIOD_COLUMN = 1;
+
+  /** The ring buffer column holding the time spent waiting on the CAN bus, in seconds. */
+  int CAN_WAIT_TIME_COLUMN = 2;
+
+  /** The first ring buffer column holding a registered input. */
+  int FIRST_INPUT_COLUMN = 3;
+
+  /** The amount of ring buffer columns per registered input: its value and its timestamp. */
+  int COLUMNS_PER_INPUT = 2;
+
+  /**
+   * A high-frequency input sampled by the odometry thread.
+   *
+   * <p>Each input owns two columns of the odometry ring buffer: the sampled value and the time it
+   * was captured at. The samples drained every robot loop are copied into exact-length arrays that
+   * are reused, so reading them does not create garbage.
+   */
   final class OdometryDoubleInput {
-    private final Supplier<Angle> supplier;
-    private final Queue<Angle> queue;
+    private final DoubleSupplier supplier;
+    private final DoubleSupplier timestampSupplier;
+    private final SampleColumn values;
+    private final SampleColumn timestamps;
+
+    OdometryDoubleInput(DoubleSupplier supplier, DoubleSupplier timestampSupplier, int column) {
+      this.supplier = supplier;
+      this.timestampSupplier = timestampSupplier;
+      this.values = new SampleColumn(column);
+      this.timestamps = new SampleColumn(column + 1);
+    }
+
+    /** Reads the current value of the input and writes it to the claimed ring buffer row. */
+    void sampleTo(OdometryRingBuffer ringBuffer) {
+      ringBuffer.put(values.getColumn(), supplier.getAsDouble());
+      ringBuffer.put(timestamps.getColumn(), timestampSupplier.getAsDouble());
+    }
+
+    /** Copies this input's columns out of the batch currently being read from the ring buffer. */
+    void drainFrom(OdometryRingBuffer ringBuffer, int batchSize) {
+      values.drainFrom(ringBuffer, batchSize);
+      timestamps.drainFrom(ringBuffer, batchSize);
+    }
+
+    /**
+     * Gets the samples received in the last robot loop, oldest first, in the unit of the
+     * registered supplier. The returned array must not be modified.
+     */
+    public double[] getSamples() {
+      return values.getSamples();
+    }
 
-    public OdometryDoubleInput(Supplier<Angle> signal) {
-      this.supplier = signal;
-      // Create a queue with a capacity of 10
-      this.queue = new ArrayBlockingQueue<>(10);
+    /**
+     * Gets the time each sample received in the last robot loop was captured at, in seconds. The
+     * returned array must not be modified.
+     */
+    public double[] getTimestamps() {
+      return timestamps.getSamples();
     }
 
-    public void cacheInputToQueue() {
-      this.queue.offer(supplier.get());
+    /** Gets the amount of samples received in the last robot loop. */
+    public int getSampleCount() {
+      return values.getSamples().length;
+    }
+
+    /**
+     * Gets the newest sample received in the last robot loop.
+     *
+     * @param fallback the value returned if no samples were received
+     */
+    public double getLatest(double fallback) {
+      final double[] samples = values.getSamples();
+      return samples.length == 0 ? fallback : samples[samples.length - 1];
     }
   }
 
   List<OdometryDoubleInput> registeredInputs = new ArrayList<>();
   List<BaseStatusSignal> registeredStatusSignals = new ArrayList<>();
 
-  static Queue<Angle> registerSignalInput(StatusSignal<Angle> signal) {
+  /**
+   * Registers a status signal to be sampled at {@link HardwareConstants#SIGNAL_FREQUENCY}.
+   *
+   * <p>Each sample is timestamped with the best timestamp the signal has, which is the device or
+   * CANivore hardware timestamp when available.
+   *
+   * @param signal the signal, its samples are stored in rotations
+   * @return the handle to read the samples from
+   */
+  static OdometryDoubleInput registerSignalInput(StatusSignal<Angle> signal) {
     signal.setUpdateFrequency(HardwareConstants.SIGNAL_FREQUENCY, HardwareConstants.TIMEOUT_S);
     registeredStatusSignals.add(signal);
-    return registerInput(signal.asSupplier());
+    return registerInput(
+        signal::getValueAsDouble,
+        () ->
+            TimeUtil.getRealTimeSeconds()
+                - signal.getAllTimestamps().getBestTimestamp().getLatency());
+  }
+
+  /**
+   * Registers an input to be sampled at {@link HardwareConstants#SIGNAL_FREQUENCY}, timestamped
+   * with the time it is read at.
+   *
+   * @param supplier the supplier of the input, called from the odometry thread
+   * @return the handle to read the samples from
+   */
+  static OdometryDoubleInput registerInput(DoubleSupplier supplier) {
+    return registerInput(supplier, TimeUtil::getRealTimeSeconds);
   }
 
-  static Queue<Angle> registerInput(Supplier<Angle> supplier) {
-    final OdometryDoubleInput odometryDoubleInput = new OdometryDoubleInput(supplier);
+  /**
+   * Registers an input to be sampled at {@link HardwareConstants#SIGNAL_FREQUENCY}.
+   *
+   * @param supplier the supplier of the input, called from the odometry thread
+   * @param timestampSupplier the supplier of the time the input was captured at, in seconds,
+   *     called from the odometry thread right after the input
+   * @return the handle to read the samples from
+   */
+  static OdometryDoubleInput registerInput(
+      DoubleSupplier supplier, DoubleSupplier timestampSupplier) {
+    final OdometryDoubleInput odometryDoubleInput =
+        new OdometryDoubleInput(
+            supplier,
+            timestampSupplier,
+            FIRST_INPUT_COLUMN + COLUMNS_PER_INPUT * registeredInputs.size());
     registeredInputs.add(odometryDoubleInput);
-    return odometryDoubleInput.queue;
+    return odometryDoubleInput;
   }
 
   static OdometryThread createInstance(DeviceCANBus canBus) {
@@ -60,26 +164,47 @@ public interface OdometryThread {
 
   @AutoLog
   class OdometryThreadInputs {
+    /** The common time grid every odometry signal is interpolated onto. */
     public double[] measurementTimeStamps = new double[0];
+
+    /** Samples dropped since the last cycle because the buffer was full. */
+    public int droppedSamples = 0;
+
+    public long totalDroppedSamples = 0;
+    public double sampleRateHz = 0.0;
+
+    /* inter-sample period over the last second of samples */
+    public double minSamplePeriodMS = 0.0;
+    public double meanSamplePeriodMS = 0.0;
+    public double p99SamplePeriodMS = 0.0;
+    public double maxSamplePeriodMS = 0.0;
+
+    /* time spent refreshing or waiting for the status signals, over the last second of samples */
+    public double meanCANWaitTimeMS = 0.0;
+    public double maxCANWaitTimeMS = 0.0;
+
+    /** Sampling periods since the last cycle whose work ran past the next deadline. */
+    public int schedulerOverruns = 0;
+
+    public long totalSchedulerOverruns = 0;
+    public long totalSkippedPeriods = 0;
+    public double lastWakeUpLatenessMS = 0.0;
   }
 
   void updateInputs(OdometryThreadInputs inputs);
 
   default void start() {}
 
-  default void lockOdometry() {}
-
-  default void unlockOdometry() {}
-
   final class OdometryThreadSim implements OdometryThread {
+    /* two arrays are alternated, so the one logged in the previous cycle is never rewritten */
+    private final AlternatingArrays measurementTimeStamps = new AlternatingArrays();
+
     @Override
     public void updateInputs(OdometryThreadInputs inputs) {
-      inputs.measurementTimeStamps = new double[SimulationConstants.SIMULATION_TICKS_IN_1_PERIOD];
-      final double robotStartingTimeStamps = TimeUtil.getLogTimeSeconds(),
-          iterationPeriodSeconds =
-              Robot.defaultPeriodSecs / SimulationConstants.SIMULATION_TICKS_IN_1_PERIOD;
-      for (int i = 0; i < SimulationConstants.SIMULATION_TICKS_IN_1_PERIOD; i++)
-        inputs.measurementTimeStamps[i] = robotStartingTimeStamps + i * iterationPeriodSeconds;
+      // Use the same time grid as the simulated sensor readings, one sample per sub-tick
+      inputs.measurementTimeStamps =
+          measurementTimeStamps.next(SimulatedField.getInstance().getSubTicksPerPeriod());
+      OdometryTimestampsSim.fillTimestamps(inputs.measurementTimeStamps);
     }
   }
 }
@@ -2,31 +2,57 @@
 package frc.robot.subsystems.swerve.odometryThread;
 
 import com.ctre.phoenix6.BaseStatusSignal;
+import edu.wpi.first.wpilibj.Threads;
 import frc.robot.Constants.HardwareConstants;
+import frc.robot.extras.debug.RollingHistogram;
+import frc.robot.extras.util.DeadlineScheduler;
 import frc.robot.extras.util.DeviceCANBus;
 import frc.robot.extras.util.TimeUtil;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class OdometryThreadReal extends Thread implements OdometryThread {
+  /* timing statistics cover the last second of samples, in 0.1 ms buckets up to 20 ms */
+  private static final int TELEMETRY_WINDOW_SAMPLES = (int) HardwareConstants.SIGNAL_FREQUENCY;
+  private static final double TELEMETRY_BUCKET_WIDTH_MS = 0.1;
+  private static final int TELEMETRY_BUCKET_COUNT = 200;
+
   DeviceCANBus canBus;
 
   private final OdometryDoubleInput[] odometryDoubleInputs;
   private final BaseStatusSignal[] statusSignals;
-  private final Queue<Double> timeStampsQueue;
-  private final Lock lock = new ReentrantLock();
+  private final SampleColumn measurementTimeStamps;
+  private final OdometryRingBuffer ringBuffer;
+  private final DeadlineScheduler scheduler =
+      new DeadlineScheduler(
+          1.0 / HardwareConstants.SIGNAL_FREQUENCY, HardwareConstants.ODOMETRY_SPIN_THRESHOLD_S);
+
+  /* only accessed from the odometry thread */
+  private double previousSampleTimeSeconds = Double.NaN;
+  private double canWaitTimeSeconds = 0.0;
+
+  /* only accessed from the main robot loop */
+  private final RollingHistogram samplePeriodsMS =
+      new RollingHistogram(
+          TELEMETRY_WINDOW_SAMPLES, TELEMETRY_BUCKET_WIDTH_MS, TELEMETRY_BUCKET_COUNT);
+  private final RollingHistogram canWaitTimesMS =
+      new RollingHistogram(
+          TELEMETRY_WINDOW_SAMPLES, TELEMETRY_BUCKET_WIDTH_MS, TELEMETRY_BUCKET_COUNT);
+  private long previousTotalDroppedSamples = 0;
+  private long previousTotalSchedulerOverruns = 0;
+  private double previousUpdateTimeSeconds = Double.NaN;
 
   public OdometryThreadReal(
       DeviceCANBus canBus,
       OdometryDoubleInput[] odometryDoubleInputs,
       BaseStatusSignal[] statusSignals) {
     this.canBus = canBus;
-    // Create a queue with a capacity of 10
-    this.timeStampsQueue = new ArrayBlockingQueue<>(10);
+    this.measurementTimeStamps = new SampleColumn(TIMESTAMP_COLUMN);
     this.odometryDoubleInputs = odometryDoubleInputs;
     this.statusSignals = statusSignals;
+    // One row holds the timestamp, the timing telemetry and every registered input
+    this.ringBuffer =
+        new OdometryRingBuffer(
+            ODOMETRY_BUFFER_CAPACITY,
+            FIRST_INPUT_COLUMN + COLUMNS_PER_INPUT * odometryDoubleInputs.length);
 
     setName("OdometryThread");
     setDaemon(true);
@@ -39,29 +65,49 @@ public class OdometryThreadReal extends Thread implements OdometryThread {
 
   @Override
   public void run() {
+    if (HardwareConstants.ODOMETRY_THREAD_PRIORITY > 0)
+      Threads.setCurrentThreadPriority(true, HardwareConstants.ODOMETRY_THREAD_PRIORITY);
     while (true) odometryPeriodic();
   }
 
   private void odometryPeriodic() {
     refreshSignalsAndBlockThread();
+    final double sampleTimeSeconds = TimeUtil.getRealTimeSeconds();
+    final double samplePeriodSeconds = sampleTimeSeconds - previousSampleTimeSeconds;
+    previousSampleTimeSeconds = sampleTimeSeconds;
 
-    lock.lock();
-    timeStampsQueue.offer(estimateAverageTimeStamps());
-    for (OdometryDoubleInput odometryDoubleInput : odometryDoubleInputs)
-      odometryDoubleInput.cacheInputToQueue();
-    lock.unlock();
+    // Nothing is shared with the main loop other than the ring buffer, so this never blocks
+    if (ringBuffer.tryClaim()) {
+      ringBuffer.put(TIMESTAMP_COLUMN, estimateAverageTimeStamps());
+      ringBuffer.put(SAMPLE_PERIOD_COLUMN, samplePeriodSeconds);
+      ringBuffer.put(CAN_WAIT_TIME_COLUMN, canWaitTimeSeconds);
+      for (OdometryDoubleInput odometryDoubleInput : odometryDoubleInputs)
+        odometryDoubleInput.sampleTo(ringBuffer);
+      ringBuffer.publish();
+    }
   }
 
   private void refreshSignalsAndBlockThread() {
     switch (canBus) {
       case RIO -> {
-        TimeUtil.delay(1.0 / HardwareConstants.SIGNAL_FREQUENCY);
-        BaseStatusSignal.refreshAll();
+        // Wait for an absolute deadline, so the time spent refreshing does not shift the phase
+        scheduler.waitForNextPeriod();
+        final double canWaitStartSeconds = TimeUtil.getRealTimeSeconds();
+        BaseStatusSignal.refreshAll(statusSignals);
+        canWaitTimeSeconds = TimeUtil.getRealTimeSeconds() - canWaitStartSeconds;
+      }
+      case CANIVORE -> {
+        final double canWaitStartSeconds = TimeUtil.getRealTimeSeconds();
+        BaseStatusSignal.waitForAll(HardwareConstants.TIMEOUT_S, statusSignals);
+        canWaitTimeSeconds = TimeUtil.getRealTimeSeconds() - canWaitStartSeconds;
       }
-      case CANIVORE -> BaseStatusSignal.waitForAll(HardwareConstants.TIMEOUT_S, statusSignals);
     }
   }
 
+  /**
+   * Estimates the common time grid point of a sample. Every input also carries its own capture
+   * timestamp, and is interpolated onto this grid by the consumer.
+   */
   private double estimateAverageTimeStamps() {
     double currentTime = TimeUtil.getRealTimeSeconds(), totalLatency = 0;
     for (BaseStatusSignal signal : statusSignals)
@@ -71,20 +117,53 @@ public class OdometryThreadReal extends Thread implements OdometryThread {
     return currentTime - totalLatency / statusSignals.length;
   }
 
+  /**
+   * Takes every sample published since the last call as one consistent batch. The samples of all
+   * registered inputs are copied out here, so the modules and the gyro can log them afterwards
+   * without holding up the odometry thread.
+   */
   @Override
   public void updateInputs(OdometryThreadInputs inputs) {
-    inputs.measurementTimeStamps = new double[timeStampsQueue.size()];
-    for (int i = 0; i < inputs.measurementTimeStamps.length && !timeStampsQueue.isEmpty(); i++)
-      inputs.measurementTimeStamps[i] = timeStampsQueue.poll();
-  }
+    final int batchSize = ringBuffer.beginRead();
+    measurementTimeStamps.drainFrom(ringBuffer, batchSize);
+    for (OdometryDoubleInput odometryDoubleInput : odometryDoubleInputs)
+      odometryDoubleInput.drainFrom(ringBuffer, batchSize);
+    for (int row = 0; row < batchSize; row++) {
+      final double samplePeriodSeconds = ringBuffer.get(row, SAMPLE_PERIOD_COLUMN);
+      // The very first sample has no period
+      if (!Double.isNaN(samplePeriodSeconds)) samplePeriodsMS.record(samplePeriodSeconds * 1000);
+      canWaitTimesMS.record(ringBuffer.get(row, CAN_WAIT_TIME_COLUMN) * 1000);
+    }
+    ringBuffer.endRead();
 
-  @Override
-  public void lockOdometry() {
-    lock.lock();
+    inputs.measurementTimeStamps = measurementTimeStamps.getSamples();
+    updateTelemetry(inputs, batchSize);
   }
 
-  @Override
-  public void unlockOdometry() {
-    lock.unlock();
+  private void updateTelemetry(OdometryThreadInputs inputs, int batchSize) {
+    final long totalDroppedSamples = ringBuffer.getDroppedRows();
+    inputs.droppedSamples = (int) (totalDroppedSamples - previousTotalDroppedSamples);
+    inputs.totalDroppedSamples = totalDroppedSamples;
+    previousTotalDroppedSamples = totalDroppedSamples;
+
+    final double updateTimeSeconds = TimeUtil.getRealTimeSeconds();
+    final double elapsedSeconds = updateTimeSeconds - previousUpdateTimeSeconds;
+    inputs.sampleRateHz = elapsedSeconds > 0 ? batchSize / elapsedSeconds : 0.0;
+    previousUpdateTimeSeconds = updateTimeSeconds;
+
+    inputs.minSamplePeriodMS = samplePeriodsMS.getMin();
+    inputs.meanSamplePeriodMS = samplePeriodsMS.getMean();
+    inputs.p99SamplePeriodMS = samplePeriodsMS.getPercentile(0.99);
+    inputs.maxSamplePeriodMS = samplePeriodsMS.getMax();
+
+    inputs.meanCANWaitTimeMS = canWaitTimesMS.getMean();
+    inputs.maxCANWaitTimeMS = canWaitTimesMS.getMax();
+
+    final long totalSchedulerOverruns = scheduler.getOverruns();
+    inputs.schedulerOverruns = (int) (totalSchedulerOverruns - previousTotalSchedulerOverruns);
+    inputs.totalSchedulerOverruns = totalSchedulerOverruns;
+    previousTotalSchedulerOverruns = totalSchedulerOverruns;
+    inputs.totalSkippedPeriods = scheduler.getSkippedPeriods();
+    inputs.lastWakeUpLatenessMS = scheduler.getLastWakeUpLatenessSeconds() * 1000;
   }
 }
@@ -0,0 +1,47 @@
+package frc.robot.subsystems.swerve.odometryThread;
+
+/**
+ * One column of the {@link OdometryRingBuffer}, drained every robot loop into exact-length arrays
+ * that are allocated once per length and then reused.
+ */
+final class SampleColumn {
+  private final int column;
+
+  /*
+   * alternates between two sets of arrays, so an array that was handed to the logger in the
+   * previous cycle is never rewritten while it might still be serialized
+   */
+  private final double[][][] sampleArrays =
+      new double[2][OdometryThread.ODOMETRY_BUFFER_CAPACITY + 1][];
+  private int generation = 0;
+  private double[] samples = new double[0];
+
+  SampleColumn(int column) {
+    this.column = column;
+  }
+
+  int getColumn() {
+    return column;
+  }
+
+  /**
+   * Copies this column out of the batch currently being read from the ring buffer.
+   *
+   * @param ringBuffer the ring buffer, between {@link OdometryRingBuffer#beginRead()} and {@link
+   *     OdometryRingBuffer#endRead()}
+   * @param batchSize the amount of rows in the batch
+   */
+  void drainFrom(OdometryRingBuffer ringBuffer, int batchSize) {
+    generation ^= 1;
+    double[] destination = sampleArrays[generation][batchSize];
+    if (destination == null)
+      destination = sampleArrays[generation][batchSize] = new double[batchSize];
+    for (int row = 0; row < batchSize; row++) destination[row] = ringBuffer.get(row, column);
+    samples = destination;
+  }
+
+  /** Gets the samples drained last, oldest first. The returned array must not be modified. */
+  double[] getSamples() {
+    return samples;
+  }
+}
@@ -0,0 +1,338 @@
+package frc.robot.subsystems.swerve.poseEstimator;
+
+/**
+ * Extended Kalman filter pose estimator, run once per odometry sample.
+ *
+ * <p>The state is the field pose, the field-relative velocity and the gyro rate bias: [x, y,
+ * theta, vx, vy, omega, bias]. Each sample predicts the state forwards with the constant velocity
+ * {@link ProcessModel}, then corrects it with the robot-relative velocity measured by the wheels
+ * and the rate measured by the gyro. The wheels are trusted less while they slip, which {@link
+ * SwerveOdometry#getSlipMeters} measures from how much the modules disagree with each other, so a
+ * collision or wheel spin is carried by the gyro and the velocity state instead of the wheels.
+ *
+ * <p>Every measurement has a diagonal covariance, so they are applied one row at a time and no
+ * matrix is ever inverted. All the math is done on preallocated primitive arrays.
+ *
+ * <p>Late vision measurements are not replayed: they are moved forwards by the motion of the
+ * estimate since their timestamp, found in a {@link PoseHistory}, and applied to the current state.
+ */
+public final class KalmanPoseEstimator implements PoseEstimatorInterface {
+  /**
+   * The process and measurement noise of the filter.
+   *
+   * @param linearAccelerationStandardDeviation how fast the velocity can change, in m/s^2
+   * @param angularAccelerationStandardDeviation how fast the rotation rate can change, in rad/s^2
+   * @param gyroBiasDriftStandardDeviation how fast the gyro bias can drift, in rad/s per sqrt(s)
+   * @param wheelVelocityStandardDeviation the noise of the velocity from the wheels, in m/s
+   * @param wheelAngularVelocityStandardDeviation the noise of the rotation rate from the wheels, in
+   *     rad/s
+   * @param gyroRateStandardDeviation the noise of the rotation rate from the gyro, in rad/s
+   * @param slipScale how much the wheel noise grows with the slip speed, 1 adds the slip speed to
+   *     the velocity standard deviation
+   * @throws IllegalArgumentException if a measurement standard deviation is not positive, or the
+   *     process noise or slip scale is negative
+   */
+  public record ProcessModel(
+      double linearAccelerationStandardDeviation,
+      double angularAccelerationStandardDeviation,
+      double gyroBiasDriftStandardDeviation,
+      double wheelVelocityStandardDeviation,
+      double wheelAngularVelocityStandardDeviation,
+      double gyroRateStandardDeviation,
+      double slipScale) {
+    public ProcessModel {
+      // The wheel noise is scaled relative to its standard deviation, which must not be 0
+      if (!(wheelVelocityStandardDeviation > 0
+          && wheelAngularVelocityStandardDeviation > 0
+          && gyroRateStandardDeviation > 0))
+        throw new IllegalArgumentException("measurement standard deviations must be positive");
+      if (!(linearAccelerationStandardDeviation >= 0
+          && angularAccelerationStandardDeviation >= 0
+          && gyroBiasDriftStandardDeviation >= 0
+          && slipScale >= 0))
+        throw new IllegalArgumentException("process noise and slip scale must not be negative");
+    }
+  }
+
+  private static final int X = 0, Y = 1, THETA = 2, VX = 3, VY = 4, OMEGA = 5, BIAS = 6;
+  private static final int STATES = 7;
+
+  /* the initial standard deviations of the pose, velocity and bias after a reset */
+  private static final double INITIAL_POSE_STANDARD_DEVIATION = 0.1;
+  private static final double INITIAL_VELOCITY_STANDARD_DEVIATION = 1.0;
+  private static final double INITIAL_BIAS_STANDARD_DEVIATION = 0.05;
+
+  private final ProcessModel processModel;
+  private final PoseHistory history;
+
+  private final double[] state = new double[STATES];
+
+  /* the row-major state covariance */
+  private final double[] covariance = new double[STATES * STATES];
+
+  /* scratch space of a measurement update */
+  private final double[] measurementRow = new double[STATES];
+  private final double[] covarianceTimesRow = new double[STATES];
+
+  private double lastTimestampSeconds = Double.NaN;
+
+  /**
+   * Creates the estimator at the origin.
+   *
+   * @param processModel the process and measurement noise
+   * @param historyCapacity the most past poses kept to move late vision measurements forwards. It
+   *     should cover {@link #HISTORY_SECONDS} at the odometry rate.
+   */
+  public KalmanPoseEstimator(ProcessModel processModel, int historyCapacity) {
+    this.processModel = processModel;
+    this.history = new PoseHistory(historyCapacity);
+    covariance[BIAS * STATES + BIAS] =
+        INITIAL_BIAS_STANDARD_DEVIATION * INITIAL_BIAS_STANDARD_DEVIATION;
+    resetPosition(0, 0, 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The robot is assumed to be stopped. The gyro bias is kept, since it does not depend on where
+   * the robot is.
+   */
+  @Override
+  public void resetPosition(double xMeters, double yMeters, double headingRad) {
+    final double biasVariance = covariance[BIAS * STATES + BIAS];
+    for (int i = 0; i < covariance.length; i++) covariance[i] = 0;
+    for (int i = X; i <= THETA; i++)
+      covariance[i * STATES + i] =
+          INITIAL_POSE_STANDARD_DEVIATION * INITIAL_POSE_STANDARD_DEVIATION;
+    for (int i = VX; i <= OMEGA; i++)
+      covariance[i * STATES + i] =
+          INITIAL_VELOCITY_STANDARD_DEVIATION * INITIAL_VELOCITY_STANDARD_DEVIATION;
+    covariance[BIAS * STATES + BIAS] = biasVariance;
+
+    state[X] = xMeters;
+    state[Y] = yMeters;
+    state[THETA] = headingRad;
+    state[VX] = state[VY] = state[OMEGA] = 0;
+    history.clear();
+    lastTimestampSeconds = Double.NaN;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Samples that are not newer than the last one are ignored.
+   */
+  @Override
+  public void addOdometrySample(double timestampSeconds, SwerveOdometry odometry) {
+    if (Double.isNaN(lastTimestampSeconds)) {
+      lastTimestampSeconds = timestampSeconds;
+      history.add(timestampSeconds, state[X], state[Y], state[THETA]);
+      return;
+    }
+    final double dt = timestampSeconds - lastTimestampSeconds;
+    if (dt <= 0) return;
+    lastTimestampSeconds = timestampSeconds;
+
+    predict(dt);
+
+    // The wheels measure the velocity in the robot frame, trusted less while they slip
+    final double slipSpeed = odometry.getSlipMeters() / dt;
+    final double wheelVelocityStandardDeviation =
+        processModel.wheelVelocityStandardDeviation() + processModel.slipScale() * slipSpeed;
+    final double wheelVariance = wheelVelocityStandardDeviation * wheelVelocityStandardDeviation;
+    final double wheelSlipRatio =
+        wheelVelocityStandardDeviation / processModel.wheelVelocityStandardDeviation();
+
+    double cos = Math.cos(state[THETA]), sin = Math.sin(state[THETA]);
+    clearMeasurementRow();
+    measurementRow[THETA] = -sin * state[VX] + cos * state[VY];
+    measurementRow[VX] = cos;
+    measurementRow[VY] = sin;
+    update(
+        odometry.getWheelDxMeters() / dt - (cos * state[VX] + sin * state[VY]), wheelVariance);
+
+    cos = Math.cos(state[THETA]);
+    sin = Math.sin(state[THETA]);
+    clearMeasurementRow();
+    measurementRow[THETA] = -cos * state[VX] - sin * state[VY];
+    measurementRow[VX] = -sin;
+    measurementRow[VY] = cos;
+    update(
+        odometry.getWheelDyMeters() / dt - (-sin * state[VX] + cos * state[VY]), wheelVariance);
+
+    final double wheelAngularStandardDeviation =
+        processModel.wheelAngularVelocityStandardDeviation() * wheelSlipRatio;
+    clearMeasurementRow();
+    measurementRow[OMEGA] = 1;
+    update(
+        odometry.getWheelDeltaHeadingRad() / dt - state[OMEGA],
+        wheelAngularStandardDeviation * wheelAngularStandardDeviation);
+
+    // The gyro measures the rotation rate plus its bias
+    final double gyroDeltaHeadingRad = odometry.getGyroDeltaHeadingRad();
+    if (!Double.isNaN(gyroDeltaHeadingRad)) {
+      clearMeasurementRow();
+      measurementRow[OMEGA] = 1;
+      measurementRow[BIAS] = 1;
+      update(
+          gyroDeltaHeadingRad / dt - (state[OMEGA] + state[BIAS]),
+          processModel.gyroRateStandardDeviation() * processModel.gyroRateStandardDeviation());
+    }
+
+    history.add(timestampSeconds, state[X], state[Y], state[THETA]);
+  }
+
+  /**
+   * Predicts the state forwards with constant velocity, adding the noise of a random acceleration
+   * and a random walk of the bias.
+   */
+  private void predict(double dt) {
+    state[X] += state[VX] * dt;
+    state[Y] += state[VY] * dt;
+    state[THETA] += state[OMEGA] * dt;
+
+    // P = F P F^T, where F adds dt times each velocity to its position. Rows and columns 3 to 5
+    // are not changed by either step, so both are done in place.
+    for (int position = X; position <= THETA; position++)
+      for (int column = 0; column < STATES; column++)
+        covariance[position * STATES + column] += dt * covariance[(position + 3) * STATES + column];
+    for (int row = 0; row < STATES; row++)
+      for (int position = X; position <= THETA; position++)
+        covariance[row * STATES + position] += dt * covariance[row * STATES + position + 3];
+
+    addAccelerationNoise(X, dt, processModel.linearAccelerationStandardDeviation());
+    addAccelerationNoise(Y, dt, processModel.linearAccelerationStandardDeviation());
+    addAccelerationNoise(THETA, dt, processModel.angularAccelerationStandardDeviation());
+    final double biasDrift = processModel.gyroBiasDriftStandardDeviation();
+    covariance[BIAS * STATES + BIAS] += biasDrift * biasDrift * dt;
+  }
+
+  /** Adds the discrete white noise acceleration covariance of a position and its velocity. */
+  private void addAccelerationNoise(int position, double dt, double standardDeviation) {
+    final int velocity = position + 3;
+    final double variance = standardDeviation * standardDeviation;
+    final double dt2 = dt * dt;
+    covariance[position * STATES + position] += dt2 * dt2 / 4 * variance;
+    covariance[position * STATES + velocity] += dt2 * dt / 2 * variance;
+    covariance[velocity * STATES + position] += dt2 * dt / 2 * variance;
+    covariance[velocity * STATES + velocity] += dt2 * variance;
+  }
+
+  private void clearMeasurementRow() {
+    for (int i = 0; i < STATES; i++) measurementRow[i] = 0;
+  }
+
+  /**
+   * Applies one scalar measurement, whose Jacobian is in the measurement row.
+   *
+   * @param innovation the measured value minus the value predicted from the state
+   * @param variance the variance of the measurement
+   */
+  private void update(double innovation, double variance) {
+    double innovationVariance = variance;
+    for (int row = 0; row < STATES; row++) {
+      double sum = 0;
+      for (int column = 0; column < STATES; column++)
+        sum += covariance[row * STATES + column] * measurementRow[column];
+      covarianceTimesRow[row] = sum;
+      innovationVariance += measurementRow[row] * sum;
+    }
+    if (!(innovationVariance > 0)) return;
+
+    // K = P h / s, x += K innovation, P -= K h^T P, which is symmetric as P h h^T P / s
+    for (int row = 0; row < STATES; row++) {
+      state[row] += covarianceTimesRow[row] / innovationVariance * innovation;
+      for (int column = 0; column < STATES; column++)
+        covariance[row * STATES + column] -=
+            covarianceTimesRow[row] * covarianceTimesRow[column] / innovationVariance;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The measurement is moved forwards by how far the estimate moved since its timestamp, then
+   * applied to the current state.
+   */
+  @Override
+  public boolean addVisionMeasurement(
+      double timestampSeconds,
+      double xMeters,
+      double yMeters,
+      double headingRad,
+      double xStandardDeviation,
+      double yStandardDeviation,
+      double thetaStandardDeviation) {
+    if (history.size() == 0) return false;
+    if (timestampSeconds < history.newestTimestamp() - HISTORY_SECONDS) return false;
+
+    // The motion of the estimate since the timestamp, in the robot frame at the timestamp
+    history.sample(timestampSeconds);
+    final double cosThen = Math.cos(history.sampleHeading);
+    final double sinThen = Math.sin(history.sampleHeading);
+    final double fieldDx = state[X] - history.sampleX, fieldDy = state[Y] - history.sampleY;
+    final double robotDx = fieldDx * cosThen + fieldDy * sinThen;
+    final double robotDy = -fieldDx * sinThen + fieldDy * cosThen;
+    final double dTheta = state[THETA] - history.sampleHeading;
+
+    // The same motion applied to the measured pose
+    final double cosMeasured = Math.cos(headingRad), sinMeasured = Math.sin(headingRad);
+    final double measuredX = xMeters + robotDx * cosMeasured - robotDy * sinMeasured;
+    final double measuredY = yMeters + robotDx * sinMeasured + robotDy * cosMeasured;
+    final double measuredHeading = headingRad + dTheta;
+
+    clearMeasurementRow();
+    measurementRow[X] = 1;
+    update(measuredX - state[X], xStandardDeviation * xStandardDeviation);
+    clearMeasurementRow();
+    measurementRow[Y] = 1;
+    update(measuredY - state[Y], yStandardDeviation * yStandardDeviation);
+    clearMeasurementRow();
+    measurementRow[THETA] = 1;
+    update(
+        Math.IEEEremainder(measuredHeading - state[THETA], 2 * Math.PI),
+        thetaStandardDeviation * thetaStandardDeviation);
+    return true;
+  }
+
+  @Override
+  public void sampleEstimate(double timestampSeconds, double[] pose) {
+    if (history.size() == 0) {
+      pose[0] = state[X];
+      pose[1] = state[Y];
+      pose[2] = state[THETA];
+      return;
+    }
+    history.sample(timestampSeconds);
+    pose[0] = history.sampleX;
+    pose[1] = history.sampleY;
+    pose[2] = history.sampleHeading;
+  }
+
+  @Override
+  public void getPoseCovariance(double[] covariance) {
+    for (int row = X; row <= THETA; row++)
+      for (int column = X; column <= THETA; column++)
+        covariance[row * 3 + column] = this.covariance[row * STATES + column];
+  }
+
+  @Override
+  public double getXMeters() {
+    return state[X];
+  }
+
+  @Override
+  public double getYMeters() {
+    return state[Y];
+  }
+
+  @Override
+  public double getHeadingRad() {
+    return state[THETA];
+  }
+
+  /** Gets the estimated gyro rate bias, in radians per second. */
+  public double getGyroBiasRadPerSec() {
+    return state[BIAS];
+  }
+}
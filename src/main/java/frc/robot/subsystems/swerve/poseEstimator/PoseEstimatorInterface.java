@@ -0,0 +1,70 @@
+package frc.robot.subsystems.swerve.poseEstimator;
+
+/** A pose estimator fed by the samples of {@link SwerveOdometry} and by vision measurements. */
+public interface PoseEstimatorInterface {
+  /** How long odometry samples are kept for, vision measurements older than this are ignored. */
+  double HISTORY_SECONDS = 1.5;
+
+  /**
+   * Resets the estimate to a pose.
+   *
+   * @param xMeters the x position of the robot on the field
+   * @param yMeters the y position of the robot on the field
+   * @param headingRad the heading of the robot on the field
+   */
+  void resetPosition(double xMeters, double yMeters, double headingRad);
+
+  /**
+   * Adds one odometry sample, after it was integrated by the odometry.
+   *
+   * @param timestampSeconds the time of the sample
+   * @param odometry the odometry, updated with the sample
+   */
+  void addOdometrySample(double timestampSeconds, SwerveOdometry odometry);
+
+  /**
+   * Fuses a vision measurement.
+   *
+   * @param timestampSeconds the time the measurement was captured at
+   * @param xMeters the measured x position
+   * @param yMeters the measured y position
+   * @param headingRad the measured heading
+   * @param xStandardDeviation how much the measured x is trusted, in meters
+   * @param yStandardDeviation how much the measured y is trusted, in meters
+   * @param thetaStandardDeviation how much the measured heading is trusted, in radians
+   * @return false if the measurement was older than the history and ignored
+   */
+  boolean addVisionMeasurement(
+      double timestampSeconds,
+      double xMeters,
+      double yMeters,
+      double headingRad,
+      double xStandardDeviation,
+      double yStandardDeviation,
+      double thetaStandardDeviation);
+
+  /**
+   * Gets the estimated pose at a past timestamp, clamped to the history.
+   *
+   * @param timestampSeconds the timestamp
+   * @param pose the array to write the x and y in meters and the heading in radians into
+   */
+  void sampleEstimate(double timestampSeconds, double[] pose);
+
+  /**
+   * Gets how uncertain the current estimate is.
+   *
+   * @param covariance the array to write the row-major 3x3 covariance of the x and y in meters and
+   *     the heading in radians into
+   */
+  void getPoseCovariance(double[] covariance);
+
+  /** Gets the estimated x position of the robot on the field, in meters. */
+  double getXMeters();
+
+  /** Gets the estimated y position of the robot on the field, in meters. */
+  double getYMeters();
+
+  /** Gets the estimated heading of the robot on the field, in radians, not wrapped. */
+  double getHeadingRad();
+}
@@ -0,0 +1,93 @@
+package frc.robot.subsystems.swerve.poseEstimator;
+
+/**
+ * A bounded history of timestamped poses in primitive ring arrays, sampled by binary search.
+ *
+ * <p>Samples are kept in timestamp order. Once the ring is full, each new sample overwrites the
+ * oldest one.
+ */
+final class PoseHistory {
+  private final int mask;
+  private final double[] timestamps;
+  private final double[] xs, ys, headings;
+  private int start = 0, count = 0;
+
+  /* the output of the last call to sample() */
+  double sampleX, sampleY, sampleHeading;
+
+  /**
+   * Creates an empty history.
+   *
+   * @param capacity the most samples kept, rounded up to a power of two
+   */
+  PoseHistory(int capacity) {
+    if (capacity < 2)
+      throw new IllegalArgumentException("the history must hold at least two samples");
+    final int size = Integer.highestOneBit(capacity - 1) << 1;
+    mask = size - 1;
+    timestamps = new double[size];
+    xs = new double[size];
+    ys = new double[size];
+    headings = new double[size];
+  }
+
+  /** Forgets every sample. */
+  void clear() {
+    count = 0;
+  }
+
+  /** Gets the amount of samples kept. */
+  int size() {
+    return count;
+  }
+
+  /** Gets the timestamp of the newest sample, the history must not be empty. */
+  double newestTimestamp() {
+    return timestamps[(start + count - 1) & mask];
+  }
+
+  /**
+   * Adds a sample. A sample that is not newer than the newest one replaces the history from its
+   * timestamp on.
+   */
+  void add(double timestampSeconds, double xMeters, double yMeters, double headingRad) {
+    while (count > 0 && newestTimestamp() >= timestampSeconds) count--;
+    if (count == mask + 1) {
+      start = (start + 1) & mask;
+      count--;
+    }
+    final int index = (start + count++) & mask;
+    timestamps[index] = timestampSeconds;
+    xs[index] = xMeters;
+    ys[index] = yMeters;
+    headings[index] = headingRad;
+  }
+
+  /**
+   * Samples the history at a timestamp into the sample fields, interpolating between the two
+   * samples around it and clamping to the oldest and newest sample. The history must not be empty.
+   */
+  void sample(double timestampSeconds) {
+    // Binary search for the first sample after the timestamp
+    int low = 0, high = count;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (timestamps[(start + middle) & mask] <= timestampSeconds) low = middle + 1;
+      else high = middle;
+    }
+    if (low == 0 || low == count) {
+      final int index = (start + (low == 0 ? 0 : count - 1)) & mask;
+      sampleX = xs[index];
+      sampleY = ys[index];
+      sampleHeading = headings[index];
+      return;
+    }
+    final int before = (start + low - 1) & mask;
+    final int after = (start + low) & mask;
+    final double t =
+        (timestampSeconds - timestamps[before]) / (timestamps[after] - timestamps[before]);
+    sampleX = xs[before] + (xs[after] - xs[before]) * t;
+    sampleY = ys[before] + (ys[after] - ys[before]) * t;
+    sampleHeading = headings[before] + (headings[after] - headings[before]) * t;
+  }
+}
@@ -0,0 +1,247 @@
+package frc.robot.subsystems.swerve.poseEstimator;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Allocation-free swerve odometry, integrating module positions and gyro yaw into a field pose.
+ *
+ * <p>All state lives in primitive fields and arrays allocated up front. The forward kinematics (the
+ * pseudo-inverse of the swerve inverse kinematics matrix) are precomputed once, so each update is a
+ * fixed amount of arithmetic with no objects created, unlike {@code SwerveDriveKinematics.toTwist2d}
+ * and {@code Pose2d.exp}.
+ */
+public final class SwerveOdometry {
+  private final int moduleCount;
+
+  /* 3 x (2 * moduleCount) row-major matrix mapping module displacements to a chassis twist */
+  private final double[] forwardKinematics;
+
+  private final double[] moduleX, moduleY;
+
+  /* the robot-relative displacement of each module in the current update */
+  private final double[] moduleDxMeters, moduleDyMeters;
+
+  private final double[] previousDistancesMeters;
+  private boolean hasPreviousDistances = false;
+  private double previousGyroYawRad = Double.NaN;
+
+  private double xMeters = 0.0, yMeters = 0.0, headingRad = 0.0;
+  private double wheelDeltaHeadingRad = 0.0;
+  private double wheelDxMeters = 0.0, wheelDyMeters = 0.0;
+  private double gyroDeltaHeadingRad = Double.NaN;
+  private double slipMeters = 0.0;
+
+  /**
+   * Creates the odometry.
+   *
+   * @param moduleTranslations the position of each module relative to the robot center, in the
+   *     same order as the positions passed to {@link #update}
+   */
+  public SwerveOdometry(Translation2d... moduleTranslations) {
+    if (moduleTranslations.length < 2)
+      throw new IllegalArgumentException("swerve odometry needs at least two modules");
+    this.moduleCount = moduleTranslations.length;
+    this.previousDistancesMeters = new double[moduleCount];
+    this.forwardKinematics = computeForwardKinematics(moduleTranslations);
+    this.moduleX = new double[moduleCount];
+    this.moduleY = new double[moduleCount];
+    this.moduleDxMeters = new double[moduleCount];
+    this.moduleDyMeters = new double[moduleCount];
+    for (int module = 0; module < moduleCount; module++) {
+      moduleX[module] = moduleTranslations[module].getX();
+      moduleY[module] = moduleTranslations[module].getY();
+    }
+  }
+
+  /**
+   * Computes (M^T M)^-1 M^T, where M is the inverse kinematics matrix with the rows [1, 0, -y] and
+   * [0, 1, x] for each module.
+   */
+  private static double[] computeForwardKinematics(Translation2d[] moduleTranslations) {
+    final int columns = 2 * moduleTranslations.length;
+    double sumX = 0, sumY = 0, sumSquares = 0;
+    for (Translation2d translation : moduleTranslations) {
+      sumX += translation.getX();
+      sumY += translation.getY();
+      sumSquares += translation.getX() * translation.getX() + translation.getY() * translation.getY();
+    }
+
+    // M^T M = [[n, 0, -sumY], [0, n, sumX], [-sumY, sumX, sumSquares]], inverted by cofactors
+    final double n = moduleTranslations.length;
+    final double[][] a = {{n, 0, -sumY}, {0, n, sumX}, {-sumY, sumX, sumSquares}};
+    final double determinant =
+        a[0][0] * (a[1][1] * a[2][2] - a[1][2] * a[2][1])
+            - a[0][1] * (a[1][0] * a[2][2] - a[1][2] * a[2][0])
+            + a[0][2] * (a[1][0] * a[2][1] - a[1][1] * a[2][0]);
+    if (Math.abs(determinant) < 1e-12)
+      throw new IllegalArgumentException("module translations must not be collinear");
+    final double[][] inverse = new double[3][3];
+    for (int row = 0; row < 3; row++)
+      for (int column = 0; column < 3; column++) {
+        final int r1 = (column + 1) % 3, r2 = (column + 2) % 3;
+        final int c1 = (row + 1) % 3, c2 = (row + 2) % 3;
+        inverse[row][column] = (a[r1][c1] * a[r2][c2] - a[r1][c2] * a[r2][c1]) / determinant;
+      }
+
+    final double[] forwardKinematics = new double[3 * columns];
+    for (int module = 0; module < moduleTranslations.length; module++) {
+      final double x = moduleTranslations[module].getX(), y = moduleTranslations[module].getY();
+      for (int row = 0; row < 3; row++) {
+        // Columns of M^T for this module are [1, 0, -y] and [0, 1, x]
+        forwardKinematics[row * columns + 2 * module] = inverse[row][0] - inverse[row][2] * y;
+        forwardKinematics[row * columns + 2 * module + 1] = inverse[row][1] + inverse[row][2] * x;
+      }
+    }
+    return forwardKinematics;
+  }
+
+  /**
+   * Resets the odometry to a pose.
+   *
+   * @param xMeters the x position of the robot on the field
+   * @param yMeters the y position of the robot on the field
+   * @param headingRad the heading of the robot on the field
+   * @param gyroYawRad the current gyro yaw, or NaN if the gyro is unavailable
+   * @param distancesMeters the current distance driven by each module
+   */
+  public void resetPosition(
+      double xMeters,
+      double yMeters,
+      double headingRad,
+      double gyroYawRad,
+      double[] distancesMeters) {
+    this.xMeters = xMeters;
+    this.yMeters = yMeters;
+    this.headingRad = headingRad;
+    this.previousGyroYawRad = gyroYawRad;
+    System.arraycopy(distancesMeters, 0, previousDistancesMeters, 0, moduleCount);
+    this.hasPreviousDistances = true;
+    this.wheelDeltaHeadingRad = 0.0;
+    this.wheelDxMeters = 0.0;
+    this.wheelDyMeters = 0.0;
+    this.gyroDeltaHeadingRad = Double.NaN;
+    this.slipMeters = 0.0;
+  }
+
+  /**
+   * Integrates one odometry sample.
+   *
+   * <p>The heading change comes from the gyro when it is available for this sample and the last
+   * one, and from the wheels otherwise.
+   *
+   * @param distancesMeters the distance driven by each module
+   * @param anglesRad the angle of each module
+   * @param gyroYawRad the gyro yaw, or NaN if the gyro is unavailable
+   */
+  public void update(double[] distancesMeters, double[] anglesRad, double gyroYawRad) {
+    final int columns = 2 * moduleCount;
+    double dx = 0, dy = 0, dTheta = 0;
+    if (hasPreviousDistances) {
+      for (int module = 0; module < moduleCount; module++) {
+        final double delta = distancesMeters[module] - previousDistancesMeters[module];
+        final double moduleDx = moduleDxMeters[module] = delta * Math.cos(anglesRad[module]);
+        final double moduleDy = moduleDyMeters[module] = delta * Math.sin(anglesRad[module]);
+        dx += forwardKinematics[2 * module] * moduleDx;
+        dx += forwardKinematics[2 * module + 1] * moduleDy;
+        dy += forwardKinematics[columns + 2 * module] * moduleDx;
+        dy += forwardKinematics[columns + 2 * module + 1] * moduleDy;
+        dTheta += forwardKinematics[2 * columns + 2 * module] * moduleDx;
+        dTheta += forwardKinematics[2 * columns + 2 * module + 1] * moduleDy;
+      }
+    }
+    // How far the modules moved away from the rigid body motion fitted to them
+    double squaredSlip = 0;
+    if (hasPreviousDistances) {
+      for (int module = 0; module < moduleCount; module++) {
+        final double errorX = moduleDxMeters[module] - (dx - dTheta * moduleY[module]);
+        final double errorY = moduleDyMeters[module] - (dy + dTheta * moduleX[module]);
+        squaredSlip += errorX * errorX + errorY * errorY;
+      }
+    }
+    slipMeters = Math.sqrt(squaredSlip / moduleCount);
+
+    System.arraycopy(distancesMeters, 0, previousDistancesMeters, 0, moduleCount);
+    hasPreviousDistances = true;
+    wheelDeltaHeadingRad = dTheta;
+    wheelDxMeters = dx;
+    wheelDyMeters = dy;
+
+    gyroDeltaHeadingRad = Double.NaN;
+    if (!Double.isNaN(gyroYawRad)) {
+      if (!Double.isNaN(previousGyroYawRad)) {
+        gyroDeltaHeadingRad = Math.IEEEremainder(gyroYawRad - previousGyroYawRad, 2 * Math.PI);
+        dTheta = gyroDeltaHeadingRad;
+      }
+      previousGyroYawRad = gyroYawRad;
+    } else previousGyroYawRad = Double.NaN;
+
+    integrate(dx, dy, dTheta);
+  }
+
+  /** Applies a robot-relative twist to the pose, the same way as {@code Pose2d.exp}. */
+  private void integrate(double dx, double dy, double dTheta) {
+    final double sinTheta = Math.sin(dTheta), cosTheta = Math.cos(dTheta);
+    final double s, c;
+    if (Math.abs(dTheta) < 1e-9) {
+      s = 1.0 - dTheta * dTheta / 6.0;
+      c = 0.5 * dTheta;
+    } else {
+      s = sinTheta / dTheta;
+      c = (1 - cosTheta) / dTheta;
+    }
+    final double robotDx = dx * s - dy * c, robotDy = dx * c + dy * s;
+    final double cosHeading = Math.cos(headingRad), sinHeading = Math.sin(headingRad);
+    xMeters += robotDx * cosHeading - robotDy * sinHeading;
+    yMeters += robotDx * sinHeading + robotDy * cosHeading;
+    headingRad += dTheta;
+  }
+
+  /** Gets the x position of the robot on the field, in meters. */
+  public double getXMeters() {
+    return xMeters;
+  }
+
+  /** Gets the y position of the robot on the field, in meters. */
+  public double getYMeters() {
+    return yMeters;
+  }
+
+  /** Gets the heading of the robot on the field, in radians, not wrapped. */
+  public double getHeadingRad() {
+    return headingRad;
+  }
+
+  /** Gets the heading change measured by the wheels alone in the last update, in radians. */
+  public double getWheelDeltaHeadingRad() {
+    return wheelDeltaHeadingRad;
+  }
+
+  /** Gets the forwards displacement measured by the wheels in the last update, in meters. */
+  public double getWheelDxMeters() {
+    return wheelDxMeters;
+  }
+
+  /** Gets the leftwards displacement measured by the wheels in the last update, in meters. */
+  public double getWheelDyMeters() {
+    return wheelDyMeters;
+  }
+
+  /** Gets the heading change measured by the gyro in the last update, or NaN without a gyro. */
+  public double getGyroDeltaHeadingRad() {
+    return gyroDeltaHeadingRad;
+  }
+
+  /**
+   * Gets the root mean square distance between where each module moved in the last update and
+   * where the fitted robot motion says it should have, in meters. It is zero when the wheels agree
+   * and grows when they slip or get pushed.
+   */
+  public double getSlipMeters() {
+    return slipMeters;
+  }
+
+  /** Gets the amount of modules. */
+  public int getModuleCount() {
+    return moduleCount;
+  }
+}
@@ -0,0 +1,337 @@
+package frc.robot.subsystems.swerve.poseEstimator;
+
+/**
+ * Allocation-free pose estimator fusing the odometry of {@link SwerveOdometry} with vision.
+ *
+ * <p>It works like {@code SwerveDrivePoseEstimator}: each vision measurement is fused with the
+ * estimate at its timestamp, and the result is kept as a correction, the fused pose and the
+ * odometry pose at that time. The current estimate is the latest correction moved by the odometry
+ * driven since then, so a late measurement never replays the odometry in between. Each correction
+ * also keeps its measurement, so a measurement older than some corrections is fused in order and
+ * the newer ones are fused again on top of it.
+ *
+ * <p>Instead of the {@code TreeMap} of boxed records of the WPILib estimator, the odometry history
+ * and the corrections live in fixed-size primitive ring arrays, and the odometry pose at a vision
+ * timestamp is found by binary search.
+ */
+public final class SwervePoseEstimator implements PoseEstimatorInterface {
+  private final PoseHistory history;
+
+  /* the vision corrections, in timestamp order like the history */
+  private final int correctionMask;
+  private final double[] correctionTimestamps;
+  private final double[] correctedX, correctedY, correctedHeading;
+  private final double[] correctionOdometryX, correctionOdometryY, correctionOdometryHeading;
+  private final double[] measuredX, measuredY, measuredHeading;
+  private final double[] measuredXDeviation, measuredYDeviation, measuredHeadingDeviation;
+  private int correctionStart = 0, correctionCount = 0;
+
+  /* the squared state standard deviations, the process noise of each axis */
+  private final double[] stateVariances = new double[3];
+
+  /* scratch output of compensating a correction */
+  private double sampleX, sampleY, sampleHeading;
+
+  private double odometryX = 0.0, odometryY = 0.0, odometryHeading = 0.0;
+  private double estimateX = 0.0, estimateY = 0.0, estimateHeading = 0.0;
+
+  /**
+   * Creates the estimator.
+   *
+   * @param xStandardDeviation how much the odometry x is trusted, in meters
+   * @param yStandardDeviation how much the odometry y is trusted, in meters
+   * @param thetaStandardDeviation how much the odometry heading is trusted, in radians
+   * @param historyCapacity the most odometry samples and corrections kept, rounded up to a power of
+   *     two. It should cover {@link #HISTORY_SECONDS} at the odometry rate.
+   */
+  public SwervePoseEstimator(
+      double xStandardDeviation,
+      double yStandardDeviation,
+      double thetaStandardDeviation,
+      int historyCapacity) {
+    history = new PoseHistory(historyCapacity);
+    final int capacity = Integer.highestOneBit(historyCapacity - 1) << 1;
+    correctionMask = capacity - 1;
+    correctionTimestamps = new double[capacity];
+    correctedX = new double[capacity];
+    correctedY = new double[capacity];
+    correctedHeading = new double[capacity];
+    correctionOdometryX = new double[capacity];
+    correctionOdometryY = new double[capacity];
+    correctionOdometryHeading = new double[capacity];
+    measuredX = new double[capacity];
+    measuredY = new double[capacity];
+    measuredHeading = new double[capacity];
+    measuredXDeviation = new double[capacity];
+    measuredYDeviation = new double[capacity];
+    measuredHeadingDeviation = new double[capacity];
+
+    stateVariances[0] = xStandardDeviation * xStandardDeviation;
+    stateVariances[1] = yStandardDeviation * yStandardDeviation;
+    stateVariances[2] = thetaStandardDeviation * thetaStandardDeviation;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This forgets the history. The odometry must be reset to the same pose, so both start out in
+   * the same frame.
+   */
+  @Override
+  public void resetPosition(double xMeters, double yMeters, double headingRad) {
+    history.clear();
+    correctionCount = 0;
+    odometryX = estimateX = xMeters;
+    odometryY = estimateY = yMeters;
+    odometryHeading = estimateHeading = headingRad;
+  }
+
+  @Override
+  public void addOdometrySample(double timestampSeconds, SwerveOdometry odometry) {
+    addOdometrySample(
+        timestampSeconds, odometry.getXMeters(), odometry.getYMeters(), odometry.getHeadingRad());
+  }
+
+  /**
+   * Adds the odometry pose of one sample. A sample that is not newer than the latest one replaces
+   * the history from its timestamp on.
+   *
+   * @param timestampSeconds the time of the sample
+   * @param xMeters the x position measured by odometry
+   * @param yMeters the y position measured by odometry
+   * @param headingRad the heading measured by odometry, not wrapped
+   */
+  public void addOdometrySample(
+      double timestampSeconds, double xMeters, double yMeters, double headingRad) {
+    history.add(timestampSeconds, xMeters, yMeters, headingRad);
+    odometryX = xMeters;
+    odometryY = yMeters;
+    odometryHeading = headingRad;
+    updateEstimate();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The measurement is fused with the estimate at its timestamp. Corrections newer than the
+   * measurement are fused again on top of it, so the estimate does not depend on the order the
+   * measurements arrive in. When the corrections are full, the oldest is forgotten, and a
+   * measurement older than all of them is ignored.
+   */
+  @Override
+  public boolean addVisionMeasurement(
+      double timestampSeconds,
+      double xMeters,
+      double yMeters,
+      double headingRad,
+      double xStandardDeviation,
+      double yStandardDeviation,
+      double thetaStandardDeviation) {
+    if (history.size() == 0) return false;
+    if (timestampSeconds < history.newestTimestamp() - HISTORY_SECONDS) return false;
+
+    int position = floorCorrection(timestampSeconds) + 1;
+    if (correctionCount == correctionMask + 1) {
+      if (position == 0) return false;
+      correctionStart = (correctionStart + 1) & correctionMask;
+      correctionCount--;
+      position--;
+    }
+
+    // Make room for the measurement, keeping the corrections in timestamp order
+    for (int correction = correctionCount; correction > position; correction--)
+      moveCorrection(
+          (correctionStart + correction - 1) & correctionMask,
+          (correctionStart + correction) & correctionMask);
+    correctionCount++;
+
+    // The odometry pose at the timestamp, kept for the correction
+    history.sample(timestampSeconds);
+    final int index = (correctionStart + position) & correctionMask;
+    correctionTimestamps[index] = timestampSeconds;
+    correctionOdometryX[index] = history.sampleX;
+    correctionOdometryY[index] = history.sampleY;
+    correctionOdometryHeading[index] = history.sampleHeading;
+    measuredX[index] = xMeters;
+    measuredY[index] = yMeters;
+    measuredHeading[index] = headingRad;
+    measuredXDeviation[index] = xStandardDeviation;
+    measuredYDeviation[index] = yStandardDeviation;
+    measuredHeadingDeviation[index] = thetaStandardDeviation;
+
+    // Later corrections were computed from an estimate this one replaces
+    for (int correction = position; correction < correctionCount; correction++) fuse(correction);
+
+    updateEstimate();
+    return true;
+  }
+
+  /** Copies every field of a correction from one ring index to another. */
+  private void moveCorrection(int from, int to) {
+    correctionTimestamps[to] = correctionTimestamps[from];
+    correctedX[to] = correctedX[from];
+    correctedY[to] = correctedY[from];
+    correctedHeading[to] = correctedHeading[from];
+    correctionOdometryX[to] = correctionOdometryX[from];
+    correctionOdometryY[to] = correctionOdometryY[from];
+    correctionOdometryHeading[to] = correctionOdometryHeading[from];
+    measuredX[to] = measuredX[from];
+    measuredY[to] = measuredY[from];
+    measuredHeading[to] = measuredHeading[from];
+    measuredXDeviation[to] = measuredXDeviation[from];
+    measuredYDeviation[to] = measuredYDeviation[from];
+    measuredHeadingDeviation[to] = measuredHeadingDeviation[from];
+  }
+
+  /**
+   * Computes the corrected pose of a correction by fusing its measurement with the estimate of the
+   * correction before it, at the odometry pose of its timestamp.
+   */
+  private void fuse(int correction) {
+    final int index = (correctionStart + correction) & correctionMask;
+
+    // The estimate at the timestamp, from the correction before it
+    compensate(
+        correction - 1,
+        correctionOdometryX[index],
+        correctionOdometryY[index],
+        correctionOdometryHeading[index]);
+    final double fusedX = sampleX, fusedY = sampleY, fusedHeading = sampleHeading;
+
+    // The twist from the estimate to the measurement, in the frame of the estimate
+    final double cosFused = Math.cos(fusedHeading), sinFused = Math.sin(fusedHeading);
+    final double fieldDx = measuredX[index] - fusedX, fieldDy = measuredY[index] - fusedY;
+    final double transformX = fieldDx * cosFused + fieldDy * sinFused;
+    final double transformY = -fieldDx * sinFused + fieldDy * cosFused;
+    final double dTheta = Math.IEEEremainder(measuredHeading[index] - fusedHeading, 2 * Math.PI);
+    final double halfDTheta = dTheta / 2;
+    final double cosMinusOne = Math.cos(dTheta) - 1;
+    final double halfThetaByTanOfHalfDTheta =
+        Math.abs(cosMinusOne) < 1e-9
+            ? 1.0 - dTheta * dTheta / 12.0
+            : -(halfDTheta * Math.sin(dTheta)) / cosMinusOne;
+    final double twistDx = transformX * halfThetaByTanOfHalfDTheta + transformY * halfDTheta;
+    final double twistDy = -transformX * halfDTheta + transformY * halfThetaByTanOfHalfDTheta;
+
+    // Scale it by the steady state Kalman gain of each axis, then apply it to the estimate
+    final double scaledDx = twistDx * gain(0, measuredXDeviation[index]);
+    final double scaledDy = twistDy * gain(1, measuredYDeviation[index]);
+    final double scaledDTheta = dTheta * gain(2, measuredHeadingDeviation[index]);
+    final double sinTheta = Math.sin(scaledDTheta), cosTheta = Math.cos(scaledDTheta);
+    final double s, c;
+    if (Math.abs(scaledDTheta) < 1e-9) {
+      s = 1.0 - scaledDTheta * scaledDTheta / 6.0;
+      c = 0.5 * scaledDTheta;
+    } else {
+      s = sinTheta / scaledDTheta;
+      c = (1 - cosTheta) / scaledDTheta;
+    }
+    final double robotDx = scaledDx * s - scaledDy * c, robotDy = scaledDx * c + scaledDy * s;
+
+    correctedX[index] = fusedX + robotDx * cosFused - robotDy * sinFused;
+    correctedY[index] = fusedY + robotDx * sinFused + robotDy * cosFused;
+    correctedHeading[index] = fusedHeading + scaledDTheta;
+  }
+
+  /** The Kalman gain of an axis, q / (q + sqrt(q * r)), as computed by the WPILib estimator. */
+  private double gain(int axis, double measurementStandardDeviation) {
+    final double q = stateVariances[axis];
+    if (q == 0) return 0;
+    return q / (q + Math.sqrt(q * measurementStandardDeviation * measurementStandardDeviation));
+  }
+
+  /** Finds the logical index of the latest correction at or before a timestamp, or -1. */
+  private int floorCorrection(double timestampSeconds) {
+    int low = 0, high = correctionCount;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (correctionTimestamps[(correctionStart + middle) & correctionMask] <= timestampSeconds)
+        low = middle + 1;
+      else high = middle;
+    }
+    return low - 1;
+  }
+
+  /**
+   * Moves the corrected pose of a correction by the odometry driven from its odometry pose to the
+   * given one, writing the result into the sample fields. Without a correction, the estimate is the
+   * odometry pose itself.
+   */
+  private void compensate(int correction, double x, double y, double heading) {
+    if (correction < 0) {
+      sampleX = x;
+      sampleY = y;
+      sampleHeading = heading;
+      return;
+    }
+    final int index = (correctionStart + correction) & correctionMask;
+    final double fromHeading = correctionOdometryHeading[index];
+    final double cosFrom = Math.cos(fromHeading), sinFrom = Math.sin(fromHeading);
+    final double fieldDx = x - correctionOdometryX[index];
+    final double fieldDy = y - correctionOdometryY[index];
+    final double robotDx = fieldDx * cosFrom + fieldDy * sinFrom;
+    final double robotDy = -fieldDx * sinFrom + fieldDy * cosFrom;
+
+    final double toHeading = correctedHeading[index];
+    final double cosTo = Math.cos(toHeading), sinTo = Math.sin(toHeading);
+    sampleX = correctedX[index] + robotDx * cosTo - robotDy * sinTo;
+    sampleY = correctedY[index] + robotDx * sinTo + robotDy * cosTo;
+    sampleHeading = toHeading + heading - fromHeading;
+  }
+
+  private void updateEstimate() {
+    compensate(correctionCount - 1, odometryX, odometryY, odometryHeading);
+    estimateX = sampleX;
+    estimateY = sampleY;
+    estimateHeading = sampleHeading;
+  }
+
+  @Override
+  public void sampleEstimate(double timestampSeconds, double[] pose) {
+    if (history.size() == 0) {
+      pose[0] = estimateX;
+      pose[1] = estimateY;
+      pose[2] = estimateHeading;
+      return;
+    }
+    history.sample(timestampSeconds);
+    compensate(
+        floorCorrection(timestampSeconds),
+        history.sampleX,
+        history.sampleY,
+        history.sampleHeading);
+    pose[0] = sampleX;
+    pose[1] = sampleY;
+    pose[2] = sampleHeading;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Like the WPILib estimator, this one does not track its covariance: the gains are steady
+   * state, so it always trusts its estimate as much as the state standard deviations it was created
+   * with.
+   */
+  @Override
+  public void getPoseCovariance(double[] covariance) {
+    for (int i = 0; i < 9; i++) covariance[i] = 0;
+    covariance[0] = stateVariances[0];
+    covariance[4] = stateVariances[1];
+    covariance[8] = stateVariances[2];
+  }
+
+  @Override
+  public double getXMeters() {
+    return estimateX;
+  }
+
+  @Override
+  public double getYMeters() {
+    return estimateY;
+  }
+
+  @Override
+  public double getHeadingRad() {
+    return estimateHeading;
+  }
+}
@@ -0,0 +1,11 @@
+package frc.robot.subsystems.vision;
+
+/**
+ * One frame published by a Limelight, as received from NetworkTables.
+ *
+ * @param megaTag1Array the raw {@code botpose_wpiblue} array
+ * @param megaTag2Array the raw {@code botpose_orb_wpiblue} array, empty if it was not received
+ * @param serverTimeMicros the NetworkTables server time the MegaTag1 array was published at
+ */
+public record LimelightFrame(
+    double[] megaTag1Array, double[] megaTag2Array, long serverTimeMicros) {}
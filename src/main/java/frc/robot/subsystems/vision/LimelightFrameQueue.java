@@ -0,0 +1,150 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.PubSubOption;
+import frc.robot.extras.vision.LimelightHelpers;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Receives the frames of one Limelight through NetworkTables listeners.
+ *
+ * <p>The MegaTag1 and MegaTag2 arrays of a frame are published as separate values, so they are
+ * paired by their server time before the frame is queued. A MegaTag1 array whose pair has not
+ * arrived within the pairing tolerance is queued on its own, either when a later MegaTag2 array
+ * shows it will not be paired or when the queue is drained. The pairing state is guarded by the
+ * queue's own lock, which only its listeners and the robot loop take, so no lock is shared between
+ * cameras.
+ *
+ * <p>The robot loop drains the queue, so each frame is read exactly once. Only the newest few
+ * frames are kept: if the queue is not drained, the oldest frames are dropped, since a stale frame
+ * is of no use to the pose estimator.
+ */
+final class LimelightFrameQueue implements AutoCloseable {
+  /** How far apart the two arrays of one frame can be published, less than a frame period. */
+  private static final long PAIRING_TOLERANCE_MICROS = 4000;
+
+  /** The most frames kept until the queue is drained, a few robot loops' worth. */
+  private static final int CAPACITY = 8;
+
+  private static final double[] EMPTY_ARRAY = new double[0];
+
+  private final DoubleArraySubscriber megaTag1Subscriber;
+  private final DoubleArraySubscriber megaTag2Subscriber;
+  private final int megaTag1Listener;
+  private final int megaTag2Listener;
+  private final Queue<LimelightFrame> frames = new ArrayBlockingQueue<>(CAPACITY);
+
+  /* pairing state, guarded by this queue */
+  private double[] pendingMegaTag1Array = null;
+  private long pendingMegaTag1TimeMicros = 0;
+  private long pendingMegaTag1LocalTimeMicros = 0;
+  private double[] unpairedMegaTag2Array = null;
+  private long unpairedMegaTag2TimeMicros = 0;
+
+  /**
+   * Starts listening to a Limelight.
+   *
+   * @param limelightName the name of the Limelight
+   */
+  LimelightFrameQueue(String limelightName) {
+    final NetworkTable table = LimelightHelpers.getLimelightNTTable(limelightName);
+    // Frames without tags publish identical arrays, which must not be dropped as duplicates
+    megaTag1Subscriber =
+        table
+            .getDoubleArrayTopic("botpose_wpiblue")
+            .subscribe(EMPTY_ARRAY, PubSubOption.keepDuplicates(true));
+    megaTag2Subscriber =
+        table
+            .getDoubleArrayTopic("botpose_orb_wpiblue")
+            .subscribe(EMPTY_ARRAY, PubSubOption.keepDuplicates(true));
+
+    final NetworkTableInstance instance = NetworkTableInstance.getDefault();
+    final EnumSet<NetworkTableEvent.Kind> kinds = EnumSet.of(NetworkTableEvent.Kind.kValueAll);
+    megaTag1Listener =
+        instance.addListener(megaTag1Subscriber, kinds, event -> onMegaTag1(event.valueData.value));
+    megaTag2Listener =
+        instance.addListener(megaTag2Subscriber, kinds, event -> onMegaTag2(event.valueData.value));
+  }
+
+  private synchronized void onMegaTag1(NetworkTableValue value) {
+    // A MegaTag1 array that never got its MegaTag2 pair is queued on its own
+    flushPendingMegaTag1();
+
+    final long timeMicros = value.getServerTime();
+    if (unpairedMegaTag2Array != null
+        && Math.abs(unpairedMegaTag2TimeMicros - timeMicros) <= PAIRING_TOLERANCE_MICROS) {
+      offer(new LimelightFrame(value.getDoubleArray(), unpairedMegaTag2Array, timeMicros));
+      unpairedMegaTag2Array = null;
+    } else {
+      pendingMegaTag1Array = value.getDoubleArray();
+      pendingMegaTag1TimeMicros = timeMicros;
+      pendingMegaTag1LocalTimeMicros = value.getTime();
+    }
+  }
+
+  private synchronized void onMegaTag2(NetworkTableValue value) {
+    final long timeMicros = value.getServerTime();
+    if (pendingMegaTag1Array != null
+        && Math.abs(pendingMegaTag1TimeMicros - timeMicros) <= PAIRING_TOLERANCE_MICROS) {
+      offer(
+          new LimelightFrame(
+              pendingMegaTag1Array, value.getDoubleArray(), pendingMegaTag1TimeMicros));
+      pendingMegaTag1Array = null;
+    } else {
+      // A pending MegaTag1 array older than this one by more than the tolerance has no pair
+      if (pendingMegaTag1Array != null
+          && timeMicros - pendingMegaTag1TimeMicros > PAIRING_TOLERANCE_MICROS)
+        flushPendingMegaTag1();
+      unpairedMegaTag2Array = value.getDoubleArray();
+      unpairedMegaTag2TimeMicros = timeMicros;
+    }
+  }
+
+  /** Queues the pending MegaTag1 array on its own, if there is one. */
+  private void flushPendingMegaTag1() {
+    if (pendingMegaTag1Array == null) return;
+    offer(new LimelightFrame(pendingMegaTag1Array, EMPTY_ARRAY, pendingMegaTag1TimeMicros));
+    pendingMegaTag1Array = null;
+  }
+
+  /** Queues a frame, dropping the oldest one if the queue is full. */
+  private void offer(LimelightFrame frame) {
+    while (!frames.offer(frame)) frames.poll();
+  }
+
+  /**
+   * Queues the pending MegaTag1 array on its own once its pair is later than the tolerance allows,
+   * so the last frame before the MegaTag2 array stops being published is not held back.
+   */
+  private synchronized void flushStaleMegaTag1() {
+    if (pendingMegaTag1Array != null
+        && NetworkTablesJNI.now() - pendingMegaTag1LocalTimeMicros > PAIRING_TOLERANCE_MICROS)
+      flushPendingMegaTag1();
+  }
+
+  /**
+   * Takes the oldest frame received and not read yet.
+   *
+   * @return the frame, or null if there is none
+   */
+  LimelightFrame poll() {
+    flushStaleMegaTag1();
+    return frames.poll();
+  }
+
+  @Override
+  public void close() {
+    final NetworkTableInstance instance = NetworkTableInstance.getDefault();
+    instance.removeListener(megaTag1Listener);
+    instance.removeListener(megaTag2Listener);
+    megaTag1Subscriber.close();
+    megaTag2Subscriber.close();
+  }
+}
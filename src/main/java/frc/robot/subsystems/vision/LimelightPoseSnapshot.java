@@ -0,0 +1,103 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.Constants.FieldConstants;
+import frc.robot.extras.vision.LimelightHelpers;
+import frc.robot.extras.vision.LimelightHelpers.PoseEstimate;
+
+/**
+ * The MegaTag1 and MegaTag2 estimates of one Limelight frame, decoded once when the frame is
+ * received. Every decision about the frame reads this snapshot instead of NetworkTables, and it is
+ * not modified until the next frame of the same camera is decoded into it.
+ *
+ * <p>Each camera owns one snapshot that is decoded into in place, so frames create no garbage
+ * beyond the pose itself.
+ */
+public final class LimelightPoseSnapshot {
+  private static final double[] EMPTY_ARRAY = new double[0];
+
+  private final PoseEstimate megaTag1Estimate = new PoseEstimate();
+  private final PoseEstimate megaTag2Estimate = new PoseEstimate();
+  private long serverTimeMicros = 0;
+  private boolean isValid = false;
+  private boolean isLargeDiscrepancy = false;
+
+  /**
+   * Decodes both estimates of a frame, replacing the previous frame.
+   *
+   * @param frame the frame received from the Limelight
+   */
+  public void decode(LimelightFrame frame) {
+    decode(frame.megaTag1Array(), frame.megaTag2Array(), frame.serverTimeMicros());
+  }
+
+  /** Empties the snapshot, for a camera that has no new frame. */
+  public void clear() {
+    decode(EMPTY_ARRAY, EMPTY_ARRAY, 0);
+  }
+
+  private void decode(double[] megaTag1Array, double[] megaTag2Array, long serverTimeMicros) {
+    LimelightHelpers.decodePoseEstimate(megaTag1Array, serverTimeMicros, megaTag1Estimate);
+    LimelightHelpers.decodePoseEstimate(megaTag2Array, serverTimeMicros, megaTag2Estimate);
+    this.serverTimeMicros = serverTimeMicros;
+    this.isValid =
+        LimelightHelpers.isValidPoseEstimate(megaTag1Estimate)
+            && LimelightHelpers.isValidPoseEstimate(megaTag2Estimate)
+            && isWithinFieldBounds(megaTag1Estimate)
+            && isWithinFieldBounds(megaTag2Estimate);
+    this.isLargeDiscrepancy = computeLargeDiscrepancy(megaTag1Estimate, megaTag2Estimate);
+  }
+
+  private static boolean computeLargeDiscrepancy(
+      PoseEstimate megaTag1Estimate, PoseEstimate megaTag2Estimate) {
+    // Extract the positions of the two poses
+    Translation2d megaTag1TranslationMeters = megaTag1Estimate.pose.getTranslation();
+    Translation2d megaTag2TranslationMeters = megaTag2Estimate.pose.getTranslation();
+
+    double megaTag1RotationDegrees = megaTag1Estimate.pose.getRotation().getDegrees();
+    double megaTag2RotationDegrees = megaTag2Estimate.pose.getRotation().getDegrees();
+
+    // Calculate the discrepancy between the two MegaTag translations in meters
+    double megaTagTranslationDiscrepancyMeters =
+        megaTag1TranslationMeters.getDistance(megaTag2TranslationMeters);
+    // Wrapped, so headings on either side of +-180 degrees are close
+    double megaTagRotationDiscrepancyDegrees =
+        Math.abs(Math.IEEEremainder(megaTag1RotationDegrees - megaTag2RotationDegrees, 360));
+
+    // Check if the discrepancy is larger than the threshold (meters)
+    return megaTagTranslationDiscrepancyMeters
+            > VisionConstants.MEGA_TAG_DISCREPANCY_THRESHOLD_METERS
+        || megaTagRotationDiscrepancyDegrees
+            > VisionConstants.MEGA_TAG_DISCREPANCY_THRESHOLD_DEGREES;
+  }
+
+  private static boolean isWithinFieldBounds(PoseEstimate estimate) {
+    return (estimate.pose.getX() > 0 && estimate.pose.getX() <= FieldConstants.FIELD_LENGTH_METERS)
+        && (estimate.pose.getY() > 0 && estimate.pose.getY() <= FieldConstants.FIELD_WIDTH_METERS);
+  }
+
+  /** Gets the MegaTag1 estimate, empty if the camera has no new frame. */
+  public PoseEstimate getMegaTag1Estimate() {
+    return megaTag1Estimate;
+  }
+
+  /** Gets the MegaTag2 estimate, empty if the camera has no new frame or did not publish it. */
+  public PoseEstimate getMegaTag2Estimate() {
+    return megaTag2Estimate;
+  }
+
+  /** Gets the NetworkTables server time the frame was published at, in microseconds. */
+  public long getServerTimeMicros() {
+    return serverTimeMicros;
+  }
+
+  /** Returns true if both estimates exist and are within the field. */
+  public boolean isValid() {
+    return isValid;
+  }
+
+  /** Returns true if the MegaTag1 and MegaTag2 estimates disagree by more than the threshold. */
+  public boolean isLargeDiscrepancy() {
+    return isLargeDiscrepancy;
+  }
+}
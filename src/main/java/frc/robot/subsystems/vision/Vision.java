@@ -2,6 +2,9 @@ package frc.robot.subsystems.vision;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.extras.debug.LoopProfiler;
+import frc.robot.extras.debug.LoopProfiler.Category;
+import java.util.List;
 import org.littletonrobotics.junction.AutoLogOutput;
 import org.littletonrobotics.junction.Logger;
 
@@ -9,6 +12,11 @@ public class Vision extends SubsystemBase {
   private final VisionIO visionIO;
   private final VisionIOInputsAutoLogged inputs = new VisionIOInputsAutoLogged();
 
+  private final LoopProfiler.Section periodicSection =
+      LoopProfiler.getInstance().section("Vision.periodic()", Category.SUBSYSTEM);
+  private final LoopProfiler.Section processInputsSection =
+      LoopProfiler.getInstance().section("Vision", Category.LOGGER);
+
   public Vision(VisionIO visionIO) {
     // Initializing Fields
     this.visionIO = visionIO;
@@ -16,9 +24,13 @@ public class Vision extends SubsystemBase {
 
   @Override
   public void periodic() {
+    periodicSection.start();
     // Updates limelight inputs
     visionIO.updateInputs(inputs);
+    processInputsSection.start();
     Logger.processInputs(visionIO.getLimelightName(0), inputs);
+    processInputsSection.stop();
+    periodicSection.stop();
   }
 
   // Add methods to support DriveCommand
@@ -51,4 +63,12 @@ public class Vision extends SubsystemBase {
   public Pose2d getPoseFromAprilTags(int limelightNumber) {
     return visionIO.getPoseFromAprilTags(limelightNumber);
   }
+
+  /**
+   * Gets the poses seen by every limelight during the last update, ordered by capture timestamp.
+   * The list is reused, so it is only valid until the next update.
+   */
+  public List<VisionObservation> getObservations() {
+    return visionIO.getObservations();
+  }
 }
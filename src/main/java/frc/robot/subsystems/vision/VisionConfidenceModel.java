@@ -0,0 +1,63 @@
+package frc.robot.subsystems.vision;
+
+import frc.robot.extras.interpolators.MultiLinearInterpolator;
+
+/**
+ * How much a camera's pose estimates are trusted, as standard deviations that grow with the
+ * distance to the tags and shrink with the amount of tags seen.
+ *
+ * <p>Each camera picks its own model in {@link VisionConstants#CONFIDENCE_MODELS}. Models write
+ * into an array owned by the caller, so they create no garbage.
+ */
+@FunctionalInterface
+public interface VisionConfidenceModel {
+  /**
+   * Computes the standard deviations of a pose estimate.
+   *
+   * @param tagCount the amount of April Tags the pose was calculated from
+   * @param averageTagDistanceMeters the average distance between the camera and those tags
+   * @param standardDeviations the array to write the x and y standard deviations in meters and the
+   *     heading standard deviation in radians into
+   */
+  void getStandardDeviations(
+      int tagCount, double averageTagDistanceMeters, double[] standardDeviations);
+
+  /**
+   * Looks the standard deviations up by distance, in one table for a single tag and in another for
+   * more.
+   *
+   * @param oneTagLookupTable {distance, x, y, heading standard deviation} rows for one tag
+   * @param multiTagLookupTable {distance, x, y, heading standard deviation} rows for more tags
+   */
+  static VisionConfidenceModel tagCountLookupTables(
+      double[][] oneTagLookupTable, double[][] multiTagLookupTable) {
+    final MultiLinearInterpolator oneTagInterpolator =
+        new MultiLinearInterpolator(oneTagLookupTable);
+    final MultiLinearInterpolator multiTagInterpolator =
+        new MultiLinearInterpolator(multiTagLookupTable);
+    return (tagCount, averageTagDistanceMeters, standardDeviations) ->
+        (tagCount == 1 ? oneTagInterpolator : multiTagInterpolator)
+            .getLookupValue(averageTagDistanceMeters, standardDeviations);
+  }
+
+  /**
+   * Scales the standard deviations by the squared distance over the amount of tags, so a tag twice
+   * as far away is trusted a quarter as much. Distances under a meter count as one meter.
+   *
+   * @param xStandardDeviation the x standard deviation for one tag a meter away, in meters
+   * @param yStandardDeviation the y standard deviation for one tag a meter away, in meters
+   * @param thetaStandardDeviation the heading standard deviation for one tag a meter away, in
+   *     radians
+   */
+  static VisionConfidenceModel distanceSquaredScaling(
+      double xStandardDeviation, double yStandardDeviation, double thetaStandardDeviation) {
+    return (tagCount, averageTagDistanceMeters, standardDeviations) -> {
+      final double scale =
+          Math.max(averageTagDistanceMeters * averageTagDistanceMeters, 1.0)
+              / Math.max(tagCount, 1);
+      standardDeviations[0] = xStandardDeviation * scale;
+      standardDeviations[1] = yStandardDeviation * scale;
+      standardDeviations[2] = thetaStandardDeviation * scale;
+    };
+  }
+}
@@ -17,6 +17,30 @@ public final class VisionConstants {
 
   public static final double MEGA_TAG_2_DISTANCE_THRESHOLD = 5; // TODO: Tune
 
+  // Define a threshold for what constitutes a "large" discrepancy between MegaTag1 and MegaTag2
+  // This value should be determined based on your testing
+  public static final double MEGA_TAG_DISCREPANCY_THRESHOLD_METERS = 0.5;
+  public static final double MEGA_TAG_DISCREPANCY_THRESHOLD_DEGREES = 45;
+
+  // Frames failing any of these are dropped before reaching the pose estimator
+  // A frame seeing tags closer together than this is as ambiguous as a single tag. The closest tags
+  // on the field, the speaker pairs, are 0.57 m apart, so any two real tags pass and only a tag
+  // detected twice or with a misread ID does not
+  public static final double MIN_MULTI_TAG_SPAN_METERS = 0.3;
+  // The ratio of the reprojection errors of the two poses that fit a single tag. Above 0.2 the
+  // wrong pose is picked often enough that PhotonVision recommends dropping the tag
+  public static final double MAX_SINGLE_TAG_AMBIGUITY = 0.2;
+  // At 6 m, ONE_APRIL_TAG_LOOKUP_TABLE already trusts a single tag to about 7 m, so farther tags
+  // add nothing, and TWO_APRIL_TAG_LOOKUP_TABLE trusts two tags to about 0.25 m and falls fast
+  public static final double MAX_TAG_DISTANCE_METERS = 6.0;
+  // MegaTag2 frames already fall back to MegaTag1 above MEGA_TAG_2_MAX_HEADING_RATE. At 540
+  // degrees/s the robot turns about 11 degrees during one 20 ms camera frame, which blurs the tag
+  // corners and makes the capture timestamp too coarse for the heading
+  public static final double MAX_ANGULAR_RATE_DEGREES_PER_SECOND = 540;
+  // The squared Mahalanobis distance a frame can be from the estimate, the 99.9% chi-squared
+  // bound for 3 degrees of freedom
+  public static final double MAHALANOBIS_GATE_THRESHOLD = 16.27;
+
   public static final String SHOOTER_LIMELIGHT_NAME = "limelight-shooter";
   public static final int SHOOTER_LIMELIGHT_NUMBER = 0;
   public static final String FRONT_LEFT_LIMELIGHT_NAME = "limelight-left";
@@ -91,6 +115,18 @@ public final class VisionConstants {
     {10, 10.0, 10.0, Units.degreesToRadians(180000)} // 90
   };
 
+  // How much each limelight is trusted, indexed by limelight number. A camera can scale by distance
+  // squared instead, with VisionConfidenceModel.distanceSquaredScaling(xy, xy, theta) giving its
+  // standard deviations for one tag a meter away
+  public static final VisionConfidenceModel[] CONFIDENCE_MODELS = {
+    VisionConfidenceModel.tagCountLookupTables(
+        ONE_APRIL_TAG_LOOKUP_TABLE, TWO_APRIL_TAG_LOOKUP_TABLE), // shooter
+    VisionConfidenceModel.tagCountLookupTables(
+        ONE_APRIL_TAG_LOOKUP_TABLE, TWO_APRIL_TAG_LOOKUP_TABLE), // front left
+    VisionConfidenceModel.tagCountLookupTables(
+        ONE_APRIL_TAG_LOOKUP_TABLE, TWO_APRIL_TAG_LOOKUP_TABLE) // front right
+  };
+
   // Note Detection Lookup Table
   public static final double[][] noteDetectionLookupTable = {
     {154.27134704589844, 171.6876983642578, Units.inchesToMeters(0), Units.inchesToMeters(7.5)},
@@ -0,0 +1,227 @@
+package frc.robot.subsystems.vision;
+
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Decides which vision frames reach the pose estimator.
+ *
+ * <p>Each frame runs through a list of stages, cheapest first, and is rejected by the first stage
+ * that finds a problem with it. A rejected frame never reaches the estimator, so it never costs a
+ * correction there. How many frames each stage has rejected is logged under {@code
+ * Vision/Filter/}.
+ *
+ * <p>The frame passed to {@link #accept} is a mutable holder that is refilled for every frame, so
+ * filtering creates no garbage.
+ */
+public final class VisionFilter {
+  /** Why a frame was accepted or rejected. */
+  public enum Verdict {
+    ACCEPTED,
+    NO_TAGS,
+    AMBIGUOUS,
+    TOO_FAR,
+    ROBOT_SPINNING,
+    OUTLIER
+  }
+
+  /** One vision frame and everything the stages need to know about it. */
+  public static final class Frame {
+    public VisionObservation observation;
+
+    /* how much the frame is trusted, in meters and radians */
+    public double xStandardDeviation, yStandardDeviation, thetaStandardDeviation;
+
+    /** The estimated pose when the frame was captured: x and y in meters, heading in radians. */
+    public final double[] estimatedPose = new double[3];
+
+    /**
+     * How uncertain the estimate is, the row-major 3x3 covariance of its x and y in meters and its
+     * heading in radians. The current covariance is close enough to the one at capture time, a
+     * frame is at most a few loops old.
+     */
+    public final double[] estimateCovariance = new double[9];
+
+    public double angularRateDegreesPerSecond;
+
+    /** Written by the Mahalanobis stage, the squared distance of the frame from the estimate. */
+    public double mahalanobisDistanceSquared;
+  }
+
+  /** A check that a frame has to pass. */
+  @FunctionalInterface
+  public interface Stage {
+    /**
+     * Checks a frame.
+     *
+     * @param frame the frame to check
+     * @return {@link Verdict#ACCEPTED} to pass the frame on to the next stage, or the reason it is
+     *     rejected
+     */
+    Verdict check(Frame frame);
+  }
+
+  private static final Verdict[] VERDICTS = Verdict.values();
+
+  private final Stage[] stages;
+  private final long[] verdictCounts = new long[VERDICTS.length];
+  private final String[] verdictKeys = new String[VERDICTS.length];
+  private double lastMahalanobisDistanceSquared = 0.0;
+
+  /**
+   * Creates a filter.
+   *
+   * @param stages the stages every frame has to pass, in the order they are checked
+   */
+  public VisionFilter(Stage... stages) {
+    this.stages = stages.clone();
+    for (Verdict verdict : VERDICTS) verdictKeys[verdict.ordinal()] = "Vision/Filter/" + verdict;
+  }
+
+  /** Creates the filter used on the robot, with the thresholds in {@link VisionConstants}. */
+  public static VisionFilter createDefault() {
+    return new VisionFilter(
+        requireTags(),
+        maximumDistance(VisionConstants.MAX_TAG_DISTANCE_METERS),
+        maximumAngularRate(VisionConstants.MAX_ANGULAR_RATE_DEGREES_PER_SECOND),
+        maximumAmbiguity(
+            VisionConstants.MAX_SINGLE_TAG_AMBIGUITY, VisionConstants.MIN_MULTI_TAG_SPAN_METERS),
+        mahalanobisGate(VisionConstants.MAHALANOBIS_GATE_THRESHOLD));
+  }
+
+  /** Rejects frames that see no April Tags. */
+  public static Stage requireTags() {
+    return frame -> frame.observation.tagCount() > 0 ? Verdict.ACCEPTED : Verdict.NO_TAGS;
+  }
+
+  /**
+   * Rejects ambiguous frames. A frame is ambiguous when one of its tags is, unless it sees tags far
+   * enough apart that their poses can be solved together.
+   *
+   * @param maxAmbiguity the highest pose ambiguity a tag can have, from 0 to 1
+   * @param minMultiTagSpanMeters the smallest span between tags that resolves ambiguity
+   */
+  public static Stage maximumAmbiguity(double maxAmbiguity, double minMultiTagSpanMeters) {
+    return frame -> {
+      final VisionObservation observation = frame.observation;
+      final boolean isMultiTag =
+          observation.tagCount() > 1 && observation.tagSpanMeters() >= minMultiTagSpanMeters;
+      return isMultiTag || observation.maxAmbiguity() <= maxAmbiguity
+          ? Verdict.ACCEPTED
+          : Verdict.AMBIGUOUS;
+    };
+  }
+
+  /**
+   * Rejects frames whose tags are too far away to be accurate.
+   *
+   * @param maxDistanceMeters the largest average distance to the tags
+   */
+  public static Stage maximumDistance(double maxDistanceMeters) {
+    return frame ->
+        frame.observation.averageTagDistanceMeters() <= maxDistanceMeters
+            ? Verdict.ACCEPTED
+            : Verdict.TOO_FAR;
+  }
+
+  /**
+   * Rejects frames taken while the robot spins quickly, which are blurred and, for MegaTag2, use a
+   * stale heading.
+   *
+   * @param maxDegreesPerSecond the fastest the robot can be turning
+   */
+  public static Stage maximumAngularRate(double maxDegreesPerSecond) {
+    return frame ->
+        Math.abs(frame.angularRateDegreesPerSecond) <= maxDegreesPerSecond
+            ? Verdict.ACCEPTED
+            : Verdict.ROBOT_SPINNING;
+  }
+
+  /**
+   * Rejects frames that disagree with the estimate by more than their combined uncertainty allows.
+   * The innovation covariance is the covariance of the estimate plus the variances of the frame,
+   * and the squared Mahalanobis distance is the innovation weighted by its inverse.
+   *
+   * @param threshold the largest squared Mahalanobis distance accepted
+   */
+  public static Stage mahalanobisGate(double threshold) {
+    return frame -> {
+      final double dx = frame.observation.pose().getX() - frame.estimatedPose[0];
+      final double dy = frame.observation.pose().getY() - frame.estimatedPose[1];
+      final double dTheta =
+          Math.IEEEremainder(
+              frame.observation.pose().getRotation().getRadians() - frame.estimatedPose[2],
+              2 * Math.PI);
+
+      // The innovation covariance, symmetric so only its upper triangle is read
+      final double[] estimate = frame.estimateCovariance;
+      final double xx = estimate[0] + frame.xStandardDeviation * frame.xStandardDeviation;
+      final double xy = estimate[1], xTheta = estimate[2];
+      final double yy = estimate[4] + frame.yStandardDeviation * frame.yStandardDeviation;
+      final double yTheta = estimate[5];
+      final double thetaTheta =
+          estimate[8] + frame.thetaStandardDeviation * frame.thetaStandardDeviation;
+
+      // Its inverse is the matrix of cofactors over the determinant
+      final double cofactorXX = yy * thetaTheta - yTheta * yTheta;
+      final double cofactorXY = xTheta * yTheta - xy * thetaTheta;
+      final double cofactorXTheta = xy * yTheta - xTheta * yy;
+      final double cofactorYY = xx * thetaTheta - xTheta * xTheta;
+      final double cofactorYTheta = xy * xTheta - xx * yTheta;
+      final double cofactorThetaTheta = xx * yy - xy * xy;
+      final double determinant = xx * cofactorXX + xy * cofactorXY + xTheta * cofactorXTheta;
+
+      frame.mahalanobisDistanceSquared =
+          determinant > 0
+              ? (dx * dx * cofactorXX
+                      + dy * dy * cofactorYY
+                      + dTheta * dTheta * cofactorThetaTheta
+                      + 2 * dx * dy * cofactorXY
+                      + 2 * dx * dTheta * cofactorXTheta
+                      + 2 * dy * dTheta * cofactorYTheta)
+                  / determinant
+              : Double.POSITIVE_INFINITY;
+      return frame.mahalanobisDistanceSquared <= threshold ? Verdict.ACCEPTED : Verdict.OUTLIER;
+    };
+  }
+
+  /**
+   * Runs a frame through every stage, stopping at the first one that rejects it.
+   *
+   * @param frame the frame to check
+   * @return {@link Verdict#ACCEPTED} if the frame should be fused, or why it was rejected
+   */
+  public Verdict check(Frame frame) {
+    frame.mahalanobisDistanceSquared = Double.NaN;
+    Verdict verdict = Verdict.ACCEPTED;
+    for (Stage stage : stages) {
+      verdict = stage.check(frame);
+      if (verdict != Verdict.ACCEPTED) break;
+    }
+    verdictCounts[verdict.ordinal()]++;
+    if (!Double.isNaN(frame.mahalanobisDistanceSquared))
+      lastMahalanobisDistanceSquared = frame.mahalanobisDistanceSquared;
+    return verdict;
+  }
+
+  /**
+   * Checks a frame.
+   *
+   * @param frame the frame to check
+   * @return true if the frame should be fused
+   */
+  public boolean accept(Frame frame) {
+    return check(frame) == Verdict.ACCEPTED;
+  }
+
+  /** Gets how many frames have been given a verdict since the filter was created. */
+  public long getCount(Verdict verdict) {
+    return verdictCounts[verdict.ordinal()];
+  }
+
+  /** Logs how many frames each verdict was given, and the last Mahalanobis distance. */
+  public void log() {
+    for (int verdict = 0; verdict < VERDICTS.length; verdict++)
+      Logger.recordOutput(verdictKeys[verdict], verdictCounts[verdict]);
+    Logger.recordOutput("Vision/Filter/MahalanobisDistanceSquared", lastMahalanobisDistanceSquared);
+  }
+}
@@ -1,6 +1,7 @@
 package frc.robot.subsystems.vision;
 
 import edu.wpi.first.math.geometry.Pose2d;
+import java.util.List;
 import org.littletonrobotics.junction.AutoLog;
 
 public interface VisionIO {
@@ -30,5 +31,11 @@ public interface VisionIO {
 
   Pose2d getPoseFromAprilTags(int limelightNumber);
 
+  /**
+   * Gets the poses seen by every limelight since the previous {@link #updateInputs}, including
+   * frames that were superseded by a newer one, ordered by their capture timestamp.
+   */
+  List<VisionObservation> getObservations();
+
   void setHeadingInfo(double headingDegrees, double headingRateDegrees);
 }
@@ -1,26 +1,20 @@
 package frc.robot.subsystems.vision;
 
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import frc.robot.Constants.FieldConstants;
 import frc.robot.extras.vision.LimelightHelpers;
 import frc.robot.extras.vision.LimelightHelpers.PoseEstimate;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import frc.robot.extras.vision.LimelightHelpers.RawFiducial;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 public class VisionIOReal implements VisionIO {
 
   private Pose2d lastSeenPose = new Pose2d();
   private double headingDegrees = 0;
   private double headingRateDegreesPerSecond = 0;
-  private final Map<Integer, AtomicBoolean> limelightThreads = new ConcurrentHashMap<>();
-  private final ExecutorService executorService = Executors.newFixedThreadPool(3);
 
   /**
    * The pose estimates from the limelights in the following order {shooterLimelight,
@@ -28,18 +22,52 @@ public class VisionIOReal implements VisionIO {
    */
   private PoseEstimate[] limelightEstimates;
 
+  /** The frames received from each limelight, pushed by NetworkTables listeners. */
+  private final LimelightFrameQueue[] frameQueues;
+
+  private static final double[] EMPTY_ARRAY = new double[0];
+
+  /**
+   * The estimate of each limelight when it cannot see any April Tags. Each limelight owns one, and
+   * it is emptied again whenever it is used, so a caller changing a returned estimate changes
+   * nothing else.
+   */
+  private final PoseEstimate[] noEstimates;
+
+  /** The decoded frame each limelight's estimate is computed from, reused for every frame. */
+  private final LimelightPoseSnapshot[] snapshots;
+
+  private static final Comparator<VisionObservation> BY_CAPTURE_TIME =
+      Comparator.comparingDouble(VisionObservation::captureTimestampSeconds);
+
+  /** The poses seen by every limelight since the last update, in capture time order. */
+  private final List<VisionObservation> observations = new ArrayList<>();
+
   public VisionIOReal() {
     limelightEstimates = new PoseEstimate[3];
+    frameQueues = new LimelightFrameQueue[limelightEstimates.length];
+    snapshots = new LimelightPoseSnapshot[limelightEstimates.length];
+    noEstimates = new PoseEstimate[limelightEstimates.length];
     for (int limelightNumber = 0; limelightNumber < limelightEstimates.length; limelightNumber++) {
-      limelightThreads.put(limelightNumber, new AtomicBoolean(true));
       limelightEstimates[limelightNumber] = new PoseEstimate();
+      snapshots[limelightNumber] = new LimelightPoseSnapshot();
+      noEstimates[limelightNumber] = new PoseEstimate();
+      frameQueues[limelightNumber] = new LimelightFrameQueue(getLimelightName(limelightNumber));
     }
   }
 
   @Override
   public void updateInputs(VisionIOInputs inputs) {
+    observations.clear();
+    for (int limelightNumber = 0; limelightNumber < limelightEstimates.length; limelightNumber++)
+      processNewFrames(limelightNumber);
+    // The cameras publish independently, so their frames interleave in time
+    observations.sort(BY_CAPTURE_TIME);
+
     inputs.camerasAmount = limelightEstimates.length;
     inputs.cameraConnected = true;
+    inputs.targetsCount = 0;
+    inputs.latency = 0;
 
     for (int limelightNumber = 0; limelightNumber < limelightEstimates.length; limelightNumber++) {
       // Update camera connection status
@@ -52,7 +80,7 @@ public class VisionIOReal implements VisionIO {
       inputs.fiducialMarksID = LimelightHelpers.getFiducialID(getLimelightName(limelightNumber));
 
       // Add latency for this limelight
-      inputs.latency += getLatencySeconds(limelightNumber) / 1000.0;
+      inputs.latency += getLatencySeconds(limelightNumber);
     }
 
     // Calculate average latency
@@ -61,6 +89,47 @@ public class VisionIOReal implements VisionIO {
     periodic();
   }
 
+  /**
+   * Updates the pose estimate of a limelight from each frame it published since the last call, and
+   * records an observation for every frame that saw April Tags. If it published no frame, its
+   * estimate is cleared so an old frame is never used twice.
+   *
+   * @param limelightNumber the number of the limelight
+   */
+  private void processNewFrames(int limelightNumber) {
+    snapshots[limelightNumber].clear();
+    clearEstimate(limelightNumber);
+
+    LimelightFrame frame;
+    while ((frame = frameQueues[limelightNumber].poll()) != null) {
+      // Both estimates are decoded once here, everything below reads the snapshot
+      snapshots[limelightNumber].decode(frame);
+      // The tag count and distance used to pick an estimate come from this frame
+      limelightEstimates[limelightNumber] = getMegaTag1PoseEstimate(limelightNumber);
+      updatePoseEstimate(limelightNumber);
+      // This is to keep track of the last valid pose calculated by the limelights
+      // it is used when the driver resets the robot odometry to the limelight calculated
+      // position
+      if (canSeeAprilTags(limelightNumber)) {
+        lastSeenPose = getMegaTag1PoseEstimate(limelightNumber).pose;
+        // The snapshot is overwritten by the next frame, so the observation copies what it needs
+        final PoseEstimate estimate = limelightEstimates[limelightNumber];
+        double maxAmbiguity = 0;
+        for (RawFiducial fiducial : estimate.rawFiducials)
+          maxAmbiguity = Math.max(maxAmbiguity, fiducial.ambiguity);
+        observations.add(
+            new VisionObservation(
+                limelightNumber,
+                estimate.pose,
+                estimate.timestampSeconds,
+                estimate.tagCount,
+                estimate.avgTagDist,
+                estimate.tagSpan,
+                maxAmbiguity));
+      }
+    }
+  }
+
   /**
    * Checks if the specified limelight can fully see one or more April Tag.
    *
@@ -85,8 +154,8 @@ public class VisionIOReal implements VisionIO {
   }
 
   /**
-   * Gets the JSON dump from the specified limelight and puts it into a PoseEstimate object, which
-   * is then placed into its corresponding spot in the limelightEstimates array.
+   * Decodes the latest frame from the specified limelight into a PoseEstimate object, which is
+   * then placed into its corresponding spot in the limelightEstimates array.
    *
    * @param limelightNumber the number of the limelight
    */
@@ -104,7 +173,18 @@ public class VisionIOReal implements VisionIO {
         return limelightEstimates[limelightNumber] = getMegaTag1PoseEstimate(limelightNumber);
       }
     }
-    return limelightEstimates[limelightNumber] = new PoseEstimate();
+    return clearEstimate(limelightNumber);
+  }
+
+  /**
+   * Sets the estimate of a limelight to its empty estimate, reset to no pose and no April Tags.
+   *
+   * @param limelightNumber the number of the limelight
+   * @return the empty estimate
+   */
+  private PoseEstimate clearEstimate(int limelightNumber) {
+    LimelightHelpers.decodePoseEstimate(EMPTY_ARRAY, 0, noEstimates[limelightNumber]);
+    return limelightEstimates[limelightNumber] = noEstimates[limelightNumber];
   }
 
   /**
@@ -127,30 +207,7 @@ public class VisionIOReal implements VisionIO {
    * @return true if the discrepancy is larger than the defined threshold, false otherwise
    */
   public boolean isLargeDiscrepancyBetweenMegaTag1And2(int limelightNumber) {
-    PoseEstimate megaTag1Estimate = getMegaTag1PoseEstimate(limelightNumber);
-    PoseEstimate megaTag2Estimate = getMegaTag2PoseEstimate(limelightNumber);
-
-    // Extract the positions of the two poses
-    Translation2d megaTag1TranslationMeters = megaTag1Estimate.pose.getTranslation();
-    Translation2d megaTag2TranslationMeters = megaTag2Estimate.pose.getTranslation();
-
-    double megaTag1RotationDegrees = megaTag1Estimate.pose.getRotation().getDegrees();
-    double megaTag2RotationDegrees = megaTag2Estimate.pose.getRotation().getDegrees();
-
-    // Calculate the discrepancy between the two MegaTag translations in meters
-    double megaTagTranslationDiscrepancyMeters =
-        megaTag1TranslationMeters.getDistance(megaTag2TranslationMeters);
-    double megaTagRotationDiscrepancyDegrees =
-        Math.abs(megaTag1RotationDegrees - megaTag2RotationDegrees);
-
-    // Define a threshold (meters) for what constitutes a "large" discrepancy
-    // This value should be determined based on your testing
-    double thresholdMeters = 0.5;
-    double thresholdDegrees = 45;
-
-    // Check if the discrepancy is larger than the threshold (meters)
-    return megaTagTranslationDiscrepancyMeters > thresholdMeters
-        || megaTagRotationDiscrepancyDegrees > thresholdDegrees;
+    return snapshots[limelightNumber].isLargeDiscrepancy();
   }
 
   /**
@@ -162,7 +219,7 @@ public class VisionIOReal implements VisionIO {
    *     return 0 for x, y, and theta
    */
   public PoseEstimate getMegaTag1PoseEstimate(int limelightNumber) {
-    return LimelightHelpers.getBotPoseEstimate_wpiBlue(getLimelightName(limelightNumber));
+    return snapshots[limelightNumber].getMegaTag1Estimate();
   }
 
   /**
@@ -174,7 +231,7 @@ public class VisionIOReal implements VisionIO {
    *     return 0 for x, y, and theta
    */
   public PoseEstimate getMegaTag2PoseEstimate(int limelightNumber) {
-    return LimelightHelpers.getBotPoseEstimate_wpiBlue_MegaTag2(getLimelightName(limelightNumber));
+    return snapshots[limelightNumber].getMegaTag2Estimate();
   }
 
   /**
@@ -184,30 +241,7 @@ public class VisionIOReal implements VisionIO {
    * @return true if the pose estimate exists within the field and the pose estimate is not null
    */
   public boolean isValidPoseEstimate(int limelightNumber) {
-    PoseEstimate megaTag1Estimate = getMegaTag1PoseEstimate(limelightNumber);
-    PoseEstimate megaTag2Estimate = getMegaTag2PoseEstimate(limelightNumber);
-
-    return LimelightHelpers.isValidPoseEstimate(megaTag1Estimate)
-        && LimelightHelpers.isValidPoseEstimate(megaTag2Estimate)
-        && isWithinFieldBounds(megaTag1Estimate, megaTag2Estimate);
-  }
-
-  /**
-   * Checks whether the pose estimate for MT1 and MT2 is within the field
-   *
-   * @param megaTag1Estimate the MT1 pose estimate to check
-   * @param megaTag2Estimate the MT2 pose estimate to check
-   */
-  private boolean isWithinFieldBounds(
-      PoseEstimate megaTag1Estimate, PoseEstimate megaTag2Estimate) {
-    return (megaTag1Estimate.pose.getX() > 0
-            && megaTag1Estimate.pose.getX() <= FieldConstants.FIELD_WIDTH_METERS)
-        && (megaTag1Estimate.pose.getY() > 0
-            && megaTag1Estimate.pose.getY() <= FieldConstants.FIELD_WIDTH_METERS)
-        && (megaTag2Estimate.pose.getX() > 0
-            && megaTag2Estimate.pose.getX() <= FieldConstants.FIELD_WIDTH_METERS)
-        && (megaTag2Estimate.pose.getY() > 0
-            && megaTag2Estimate.pose.getY() <= FieldConstants.FIELD_WIDTH_METERS);
+    return snapshots[limelightNumber].isValid();
   }
 
   /**
@@ -229,12 +263,12 @@ public class VisionIOReal implements VisionIO {
   }
 
   /**
-   * Returns the timestamp for the vision measurement from the limelight that is being used for pose
-   * estimation.
+   * Returns the FPGA time in seconds the frame of the limelight that is being used for pose
+   * estimation was captured at. This is the time it was published at minus its latency.
    */
   @Override
   public double getTimeStampSeconds(int limelightNumber) {
-    return limelightEstimates[limelightNumber].timestampSeconds / 1000.0;
+    return limelightEstimates[limelightNumber].timestampSeconds;
   }
 
   /**
@@ -247,6 +281,11 @@ public class VisionIOReal implements VisionIO {
     return (limelightEstimates[limelightNumber].latency) / 1000.0;
   }
 
+  @Override
+  public List<VisionObservation> getObservations() {
+    return observations;
+  }
+
   /** Gets the pose calculated the last time a limelight saw an April Tag */
   public Pose2d getLastSeenPose() {
     return lastSeenPose;
@@ -295,141 +334,13 @@ public class VisionIOReal implements VisionIO {
     };
   }
 
-  /**
-   * This checks is there is new pose detected by a limelight, and if so, updates the pose estimate
-   *
-   * @param limelightNumber the limelight number
-   */
-  public void checkAndUpdatePose(int limelightNumber) {
-    double last_TX = 0;
-    double last_TY = 0;
-
-    // Syncronization block to ensure thread safety during the critical section where pose
-    // information is read and compared.
-    // This helps prevent race conditions, where one limelight may be updating an object that
-    // another limelight is reading.
-    // A race condition could cause unpredictable things to happen. Such as causing a limelight to
-    // be unable to reference an
-    // object, as its reference was modified earlier.
-    synchronized (this) {
-      try {
-        double current_TX = LimelightHelpers.getTX(getLimelightName(limelightNumber));
-        double current_TY = LimelightHelpers.getTY(getLimelightName(limelightNumber));
-
-        // This checks if the limelight reading is new. The reasoning being that if the TX and TY
-        // are EXACTLY the same, it hasn't updated yet with a new reading. We are doing it this way,
-        // because to get the timestamp of the reading, you need to parse the JSON dump which can be
-        // very demanding whereas this only has to get the Network Table entries for TX and TY.
-        if (current_TX != last_TX || current_TY != last_TY) {
-          updatePoseEstimate(limelightNumber);
-          limelightThreads.computeIfPresent(
-              limelightNumber, (key, value) -> new AtomicBoolean(true));
-          // This is to keep track of the last valid pose calculated by the limelights
-          // it is used when the driver resets the robot odometry to the limelight calculated
-          // position
-          if (canSeeAprilTags(limelightNumber)) {
-            lastSeenPose = getMegaTag1PoseEstimate(limelightNumber).pose;
-          }
-        } else {
-          // Retrieve the AtomicBoolean for the given limelight number
-          AtomicBoolean isThreadRunning =
-              limelightThreads.getOrDefault(limelightNumber, new AtomicBoolean());
-          // Only stop the thread if it's currently running
-          if (isThreadRunning.get()) {
-            // stop the thread for the specified limelight
-            stopThread(limelightNumber);
-          }
-        }
-        last_TX = current_TX;
-        last_TY = current_TY;
-      } catch (Exception e) {
-        System.err.println(
-            "Error communicating with the: "
-                + getLimelightName(limelightNumber)
-                + ": "
-                + e.getMessage());
-      }
-    }
-  }
-
-  /**
-   * Starts a separate thread dedicated to updating the pose estimate for a specified limelight.
-   * This approach is adopted to prevent loop overruns that would occur if we attempted to parse the
-   * JSON dump for each limelight sequentially within a single scheduler loop.
-   *
-   * <p>To achieve efficient and safe parallel execution, an ExecutorService is utilized to manage
-   * the lifecycle of these threads.
-   *
-   * <p>Each thread continuously runs the {@link #checkAndUpdatePose(int)} method as long as the
-   * corresponding limelight's thread is marked as "running". This ensures that pose estimates are
-   * updated in real-time, leveraging the parallel processing capabilities of the executor service.
-   *
-   * @param limelightNumber the limelight number
-   */
-  public void visionThread(int limelightNumber) {
-
-    executorService.submit(
-        () -> {
-          try {
-            // while (limelightThreads.get(limelightNumber).get()) {
-            checkAndUpdatePose(limelightNumber);
-            // }
-          } catch (Exception e) {
-            System.err.println(
-                "Error executing task for the: "
-                    + getLimelightName(limelightNumber)
-                    + ": "
-                    + e.getMessage());
-          }
-        });
-  }
-
-  /**
-   * Sets the AtomicBoolean 'runningThreads' to false for the specified limelight. Stops the thread
-   * for the specified limelight.
-   *
-   * @param limelightNumber the limelight number
-   */
-  public void stopThread(int limelightNumber) {
-    try {
-      // Since we can't see an April Tag, set the estimate for the specified limelight to an empty
-      // PoseEstimate()
-      limelightEstimates[limelightNumber] = new PoseEstimate();
-      limelightThreads.get(limelightNumber).set(false);
-    } catch (Exception e) {
-      System.err.println(
-          "Error stopping thread for the: "
-              + getLimelightName(limelightNumber)
-              + ": "
-              + e.getMessage());
-    }
-  }
-
-  /** Shuts down all the threads. */
-  public void endAllThreads() {
-    // Properly shut down the executor service when the subsystem ends
-    executorService.shutdown(); // Prevents new tasks from being submitted
-    try {
-      // Wait for existing tasks to finish
-      if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-        executorService.shutdownNow();
-        // Wait a bit longer for tasks to respond to being cancelled
-        if (!executorService.awaitTermination(5, TimeUnit.SECONDS))
-          System.err.println("ExecutorService did not terminate");
-      }
-    } catch (InterruptedException e) {
-      // (Re-)Cancel if current thread also interrupted
-      executorService.shutdownNow();
-      // Preserve interrupt status
-      Thread.currentThread().interrupt();
-    }
+  /** Stops listening to the limelights. */
+  public void close() {
+    for (LimelightFrameQueue frameQueue : frameQueues) frameQueue.close();
   }
 
-  // Override periodic method to start the vision threads at the beginning of each subsystem tick
+  // Publishes the latest estimates at the end of each subsystem tick
   public void periodic() {
-    visionThread(VisionConstants.SHOOTER_LIMELIGHT_NUMBER);
-    visionThread(VisionConstants.FRONT_LEFT_LIMELIGHT_NUMBER);
-    visionThread(VisionConstants.FRONT_RIGHT_LIMELIGHT_NUMBER);
     SmartDashboard.putNumber("april tag dist", getLimelightAprilTagDistance(0));
     SmartDashboard.putString("shooter ll odom", getPoseFromAprilTags(0).toString());
     SmartDashboard.putString("left ll odom", getPoseFromAprilTags(1).toString());
@@ -0,0 +1,28 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * A robot pose seen by a Limelight in one frame, stamped with the time the frame was captured.
+ *
+ * <p>The capture timestamp is the NetworkTables server time the frame was published at, minus the
+ * pipeline and capture latency the Limelight reports with it. The roboRIO is the NetworkTables
+ * server, so this is on the same FPGA timebase as the odometry, and it does not depend on when the
+ * robot loop got around to reading the frame.
+ *
+ * @param limelightNumber the number of the limelight that saw the pose
+ * @param pose the pose of the robot
+ * @param captureTimestampSeconds the FPGA time the frame was captured at, in seconds
+ * @param tagCount the amount of April Tags the pose was calculated from
+ * @param averageTagDistanceMeters the average distance between the limelight and those tags
+ * @param tagSpanMeters the distance between the two tags farthest apart, 0 for a single tag
+ * @param maxAmbiguity the highest pose ambiguity of those tags, from 0 to 1
+ */
+public record VisionObservation(
+    int limelightNumber,
+    Pose2d pose,
+    double captureTimestampSeconds,
+    int tagCount,
+    double averageTagDistanceMeters,
+    double tagSpanMeters,
+    double maxAmbiguity) {}
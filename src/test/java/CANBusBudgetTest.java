@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.extras.util.CANBusBudget.BusPlanner;
+import frc.robot.extras.util.CANBusBudget.Priority;
+import org.junit.jupiter.api.Test;
+
+class CANBusBudgetTest {
+  private static final double EPSILON = 1e-9;
+
+  @Test
+  void testKeepsRequestedRatesUnderBudget() {
+    final BusPlanner planner = new BusPlanner(1000);
+    final int odometry = planner.add(Priority.ODOMETRY, 250, 250);
+    final int low = planner.add(Priority.LOW, 250, 4);
+    planner.reserve(200);
+    planner.plan();
+
+    assertEquals(250, planner.getPlannedHz(odometry), EPSILON);
+    assertEquals(250, planner.getPlannedHz(low), EPSILON);
+    assertEquals(700, planner.getPlannedFramesPerSecond(), EPSILON);
+    assertFalse(planner.isOverBudget());
+  }
+
+  @Test
+  void testSlowsLowestPriorityFirst() {
+    final BusPlanner planner = new BusPlanner(1000);
+    final int high = planner.add(Priority.HIGH, 400, 100);
+    final int fastLow = planner.add(Priority.LOW, 300, 50);
+    final int slowLow = planner.add(Priority.LOW, 200, 100);
+    planner.reserve(200);
+    planner.plan();
+
+    // 100 frames over, taken from the 350 Hz the low priority signals can give up
+    assertEquals(400, planner.getPlannedHz(high), EPSILON);
+    assertEquals(50 + 250 * (1 - 100.0 / 350), planner.getPlannedHz(fastLow), EPSILON);
+    assertEquals(100 + 100 * (1 - 100.0 / 350), planner.getPlannedHz(slowLow), EPSILON);
+    assertEquals(1000, planner.getPlannedFramesPerSecond(), EPSILON);
+    assertFalse(planner.isOverBudget());
+  }
+
+  @Test
+  void testRespectsMinimumRates() {
+    final BusPlanner planner = new BusPlanner(200);
+    // Odometry is never slowed down, whatever minimum it asks for
+    final int odometry = planner.add(Priority.ODOMETRY, 250, 10);
+    // A minimum above the requested rate means the signal is never slowed down either
+    final int medium = planner.add(Priority.MEDIUM, 50, 100);
+    // Phoenix does not accept rates below 4 Hz
+    final int low = planner.add(Priority.LOW, 100, 1);
+    planner.plan();
+
+    assertEquals(250, planner.getPlannedHz(odometry), EPSILON);
+    assertEquals(50, planner.getPlannedHz(medium), EPSILON);
+    assertEquals(4, planner.getPlannedHz(low), EPSILON);
+    assertEquals(304, planner.getPlannedFramesPerSecond(), EPSILON);
+    assertTrue(planner.isOverBudget());
+  }
+
+  @Test
+  void testPlanStartsOverFromRequestedRates() {
+    final BusPlanner planner = new BusPlanner(300);
+    final int first = planner.add(Priority.LOW, 200, 4);
+    planner.plan();
+    assertEquals(200, planner.getPlannedHz(first), EPSILON);
+
+    final int second = planner.add(Priority.LOW, 200, 4);
+    planner.plan();
+    assertEquals(150, planner.getPlannedHz(first), EPSILON);
+    assertEquals(150, planner.getPlannedHz(second), EPSILON);
+    assertEquals(300, planner.getPlannedFramesPerSecond(), EPSILON);
+  }
+}
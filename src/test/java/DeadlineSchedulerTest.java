@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.extras.util.DeadlineScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeadlineSchedulerTest {
+  private static final long PERIOD_NANOS = 4_000_000;
+
+  /** A clock that only moves when the test moves it, and jumps straight to waited deadlines. */
+  private static final class FakeClock implements DeadlineScheduler.Clock {
+    long nowNanos = 1_000_000_000;
+    int waits = 0;
+
+    @Override
+    public long nanoTime() {
+      return nowNanos;
+    }
+
+    @Override
+    public void waitUntil(long deadlineNanos) {
+      waits++;
+      nowNanos = Math.max(nowNanos, deadlineNanos);
+    }
+  }
+
+  private FakeClock clock;
+  private DeadlineScheduler scheduler;
+  private long startNanos;
+
+  @BeforeEach
+  void setUp() {
+    clock = new FakeClock();
+    scheduler = new DeadlineScheduler(PERIOD_NANOS / 1e9, clock);
+    startNanos = clock.nowNanos;
+    scheduler.waitForNextPeriod();
+    clock.waits = 0;
+  }
+
+  /** Runs work that takes a while, then waits for the next period. */
+  private void work(long workNanos) {
+    clock.nowNanos += workNanos;
+    scheduler.waitForNextPeriod();
+  }
+
+  @Test
+  void testWaitsForEachDeadline() {
+    for (int period = 1; period <= 10; period++) {
+      work(1_000_000);
+      assertEquals(startNanos + period * PERIOD_NANOS, clock.nowNanos);
+    }
+    assertEquals(10, clock.waits);
+    assertEquals(0, scheduler.getOverruns());
+    assertEquals(0, scheduler.getSkippedPeriods());
+    assertEquals(0.0, scheduler.getLastWakeUpLatenessSeconds());
+  }
+
+  @Test
+  void testOverrunRunsAgainImmediately() {
+    // Work 1 ms past the deadline, so the next period starts late and keeps its phase
+    work(PERIOD_NANOS + 1_000_000);
+    assertEquals(0, clock.waits);
+    assertEquals(1, scheduler.getOverruns());
+    assertEquals(0, scheduler.getSkippedPeriods());
+    assertEquals(0.001, scheduler.getLastWakeUpLatenessSeconds(), 1e-12);
+
+    work(1_000_000);
+    assertEquals(startNanos + 2 * PERIOD_NANOS, clock.nowNanos);
+    assertEquals(1, scheduler.getOverruns());
+  }
+
+  @Test
+  void testSkipsMissedDeadlines() {
+    work(1_000_000);
+
+    // Work past three deadlines: the first is an overrun, and the two after it are skipped
+    work(PERIOD_NANOS * 3 + PERIOD_NANOS / 2);
+    assertEquals(1, scheduler.getOverruns());
+    assertEquals(2, scheduler.getSkippedPeriods());
+    assertEquals(PERIOD_NANOS / 2 / 1e9, scheduler.getLastWakeUpLatenessSeconds(), 1e-12);
+
+    // The deadlines after the skipped ones are still one period apart from the first
+    work(0);
+    assertEquals(startNanos + 5 * PERIOD_NANOS, clock.nowNanos);
+    assertEquals(1, scheduler.getOverruns());
+    assertEquals(2, scheduler.getSkippedPeriods());
+  }
+}
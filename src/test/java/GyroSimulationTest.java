@@ -0,0 +1,46 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.extras.simulation.mechanismSim.swerve.CachedReadings;
+import frc.robot.extras.simulation.mechanismSim.swerve.GyroSimulation;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class GyroSimulationTest {
+  /** Spins a simulated gyro and then holds it still, recording each reading. */
+  private static double[] simulateReadings(long seed) {
+    final GyroSimulation gyroSimulation = GyroSimulation.createPigeon2();
+    gyroSimulation.setRandom(new SplittableRandom(seed));
+    final double[] readingsRad = new double[100];
+    for (int subTick = 0; subTick < readingsRad.length; subTick++) {
+      gyroSimulation.updateSimulationSubTick(subTick < 50 ? 3.0 : 0.0);
+      readingsRad[subTick] = gyroSimulation.getGyroReading().getRadians();
+    }
+    return readingsRad;
+  }
+
+  @Test
+  void testSameSeedIsReproducible() {
+    assertArrayEquals(simulateReadings(4829), simulateReadings(4829));
+  }
+
+  @Test
+  void testDifferentSeedsAreIndependent() {
+    assertFalse(Arrays.equals(simulateReadings(1), simulateReadings(2)));
+  }
+
+  @Test
+  void testCachedReadingsViewMatchesCopy() {
+    final GyroSimulation gyroSimulation = GyroSimulation.createPigeon2();
+    gyroSimulation.setSimulationTiming(0.001, 20);
+    final CachedReadings view = gyroSimulation.getCachedGyroReadingsRadView();
+    for (int subTick = 0; subTick < 50; subTick++) {
+      gyroSimulation.updateSimulationSubTick(2.0);
+      final Rotation2d[] copy = gyroSimulation.getCachedGyroReadings();
+      assertEquals(20, view.size());
+      for (int k = 0; k < copy.length; k++) assertEquals(copy[k].getRadians(), view.get(k));
+      assertEquals(gyroSimulation.getGyroReading().getRadians(), view.get(view.size() - 1));
+    }
+  }
+}
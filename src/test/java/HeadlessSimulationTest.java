@@ -0,0 +1,26 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.Robot;
+import frc.robot.extras.simulation.field.SimulatedField;
+import frc.robot.extras.simulation.headless.DriveForwardScenario;
+import frc.robot.extras.simulation.headless.HeadlessSimulation;
+import frc.robot.extras.simulation.headless.HeadlessSimulation.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HeadlessSimulationTest {
+  @AfterEach
+  void resetArena() {
+    SimulatedField.overrideInstance(null);
+  }
+
+  @Test
+  void testDriveForwardScenarioPasses() {
+    final Result result =
+        new HeadlessSimulation(Robot.defaultPeriodSecs).run(new DriveForwardScenario());
+
+    assertTrue(result.passed(), result.summary());
+    assertEquals(3.0, result.simulatedSeconds(), 1e-9);
+    assertTrue(result.summary().startsWith("drove "));
+  }
+}
@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.poseEstimator.KalmanPoseEstimator;
+import frc.robot.subsystems.swerve.poseEstimator.SwerveOdometry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class KalmanPoseEstimatorTest {
+  private static final double SAMPLE_PERIOD_SECONDS = 0.004;
+  private static final double GYRO_BIAS_RAD_PER_SEC = 0.02;
+
+  private SwerveOdometry odometry;
+  private KalmanPoseEstimator estimator;
+  private final double[] distancesMeters = new double[4];
+  private final double[] anglesRad = new double[4];
+
+  @BeforeEach
+  void setUp() {
+    odometry = new SwerveOdometry(DriveConstants.MODULE_TRANSLATIONS);
+    odometry.resetPosition(0, 0, 0, 0, distancesMeters);
+    estimator = new KalmanPoseEstimator(DriveConstants.KALMAN_PROCESS_MODEL, 512);
+  }
+
+  /** Drives forwards at 1 m/s, with a gyro that drifts by its bias. */
+  private void driveForwards(int fromSample, int toSample) {
+    for (int sample = fromSample; sample <= toSample; sample++) {
+      final double timestampSeconds = sample * SAMPLE_PERIOD_SECONDS;
+      for (int module = 0; module < 4; module++) distancesMeters[module] = timestampSeconds;
+      odometry.update(distancesMeters, anglesRad, GYRO_BIAS_RAD_PER_SEC * timestampSeconds);
+      estimator.addOdometrySample(timestampSeconds, odometry);
+    }
+  }
+
+  @Test
+  void testEstimatesGyroBias() {
+    driveForwards(0, 2500);
+
+    assertEquals(GYRO_BIAS_RAD_PER_SEC, estimator.getGyroBiasRadPerSec(), 1e-3);
+    assertEquals(10.0, estimator.getXMeters(), 0.01);
+    assertEquals(0.0, estimator.getYMeters(), 0.01);
+    // Unlike the gyro, the heading does not drift
+    assertEquals(0.0, estimator.getHeadingRad(), 1e-3);
+  }
+
+  @Test
+  void testConvergesToLateVision() {
+    // The robot is really 0.5 m to the left of where it was reset, seen 60 ms late at 50 Hz
+    for (int loop = 0; loop < 500; loop++) {
+      driveForwards(loop * 5 + 1, loop * 5 + 5);
+      final double captureTimestampSeconds = loop * 5 * SAMPLE_PERIOD_SECONDS - 0.06;
+      estimator.addVisionMeasurement(
+          captureTimestampSeconds, captureTimestampSeconds, 0.5, 0, 0.3, 0.3, 0.5);
+    }
+
+    assertEquals(10.0, estimator.getXMeters(), 0.01);
+    assertEquals(0.5, estimator.getYMeters(), 0.01);
+    assertEquals(0.0, estimator.getHeadingRad(), 0.01);
+  }
+
+  @Test
+  void testVisionShrinksCovariance() {
+    driveForwards(0, 250);
+    final double[] covariance = new double[9];
+    estimator.getPoseCovariance(covariance);
+    final double xVarianceBefore = covariance[0];
+
+    estimator.addVisionMeasurement(1.0, 1.0, 0, 0, 0.01, 0.01, 0.01);
+    estimator.getPoseCovariance(covariance);
+
+    assertTrue(covariance[0] < xVarianceBefore);
+    assertTrue(covariance[0] <= 0.01 * 0.01);
+    assertEquals(covariance[1], covariance[3], 1e-12);
+  }
+
+  @Test
+  void testRejectsZeroMeasurementNoise() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new KalmanPoseEstimator.ProcessModel(4.0, 8.0, 0.01, 0.0, 0.1, 0.01, 1.0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new KalmanPoseEstimator.ProcessModel(4.0, 8.0, 0.01, 0.05, 0.1, Double.NaN, 1.0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new KalmanPoseEstimator.ProcessModel(4.0, 8.0, 0.01, 0.05, 0.1, 0.01, -1.0));
+  }
+}
@@ -0,0 +1,44 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.robot.extras.vision.LimelightHelpers;
+import frc.robot.extras.vision.LimelightHelpers.PoseEstimate;
+import frc.robot.extras.vision.LimelightHelpers.RawFiducial;
+import org.junit.jupiter.api.Test;
+
+class LimelightHelpersTest {
+  /* x, y, z, roll, pitch, yaw, latency, tag count, span, distance, area, then one fiducial */
+  private static final double[] ONE_TAG_POSE =
+      new double[] {1, 2, 0, 0, 0, 90, 20, 1, 0, 3, 0.5, 7, 0.1, 0.2, 0.3, 2.9, 3.1, 0.05};
+
+  @Test
+  void testDecodeMatchesAllocatingDecode() {
+    PoseEstimate expected = LimelightHelpers.toPoseEstimate(ONE_TAG_POSE, 2_000_000);
+    PoseEstimate estimate = new PoseEstimate();
+    LimelightHelpers.decodePoseEstimate(ONE_TAG_POSE, 2_000_000, estimate);
+
+    assertEquals(expected.pose, estimate.pose);
+    assertEquals(1.98, estimate.timestampSeconds, 1e-9);
+    assertEquals(1, estimate.tagCount);
+    assertEquals(3, estimate.avgTagDist);
+    assertEquals(7, estimate.rawFiducials[0].id);
+    assertEquals(0.05, estimate.rawFiducials[0].ambiguity);
+  }
+
+  @Test
+  void testDecodeReusesStorage() {
+    PoseEstimate estimate = new PoseEstimate();
+    LimelightHelpers.decodePoseEstimate(ONE_TAG_POSE, 1_000_000, estimate);
+    Pose2d pose = estimate.pose;
+    RawFiducial fiducial = estimate.rawFiducials[0];
+
+    LimelightHelpers.decodePoseEstimate(ONE_TAG_POSE, 1_020_000, estimate);
+    assertSame(pose, estimate.pose);
+    assertSame(fiducial, estimate.rawFiducials[0]);
+
+    LimelightHelpers.decodePoseEstimate(new double[0], 1_040_000, estimate);
+    assertEquals(0, estimate.tagCount);
+    assertEquals(0, estimate.rawFiducials.length);
+    assertEquals(new Pose2d(), estimate.pose);
+  }
+}
@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.extras.vision.LimelightResultsDecoder;
+import frc.robot.extras.vision.LimelightResultsDecoder.FiducialResults;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class LimelightResultsDecoderTest {
+  private final LimelightResultsDecoder decoder = new LimelightResultsDecoder();
+
+  static String readRecordedDump() throws IOException {
+    try (InputStream stream =
+        LimelightResultsDecoderTest.class.getResourceAsStream("/limelight-results.json")) {
+      return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  void testDecodesRecordedDump() throws IOException {
+    FiducialResults results = new FiducialResults();
+    assertTrue(decoder.decode(readRecordedDump(), results));
+
+    assertTrue(results.valid);
+    assertEquals(11.73, results.latencyPipelineMS);
+    assertEquals(22.48, results.latencyCaptureMS);
+    assertEquals(1.846, results.botposeWpiBlue[0]);
+    assertEquals(178.7, results.botposeWpiBlue[5]);
+
+    assertEquals(2, results.fiducialCount);
+    assertEquals(7, results.fiducialIds[0]);
+    assertEquals(8, results.fiducialIds[1]);
+    assertEquals(4, results.cornerCounts[1]);
+    assertEquals(802.6, results.cornersPixels[LimelightResultsDecoder.MAX_CORNERS * 2]);
+    assertEquals(312.7, results.cornersPixels[LimelightResultsDecoder.MAX_CORNERS * 2 + 7]);
+    assertEquals(5.463, results.robotPosesFieldSpace[LimelightResultsDecoder.POSE_SIZE + 1]);
+  }
+
+  @Test
+  void testDecodesUnwrappedResultsAndClearsPreviousDump() throws IOException {
+    FiducialResults results = new FiducialResults();
+    decoder.decode(readRecordedDump(), results);
+
+    assertTrue(decoder.decode("{\"v\":0,\"tl\":9.5,\"Fiducial\":[]}", results));
+    assertFalse(results.valid);
+    assertEquals(9.5, results.latencyPipelineMS);
+    assertEquals(0, results.fiducialCount);
+    assertEquals(0, results.botposeWpiBlue[0]);
+
+    assertFalse(decoder.decode("{\"v\":1,\"Fiducial\":[{\"fID\":", results));
+  }
+}
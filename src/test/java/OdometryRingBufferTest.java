@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.subsystems.swerve.odometryThread.OdometryRingBuffer;
+import org.junit.jupiter.api.Test;
+
+class OdometryRingBufferTest {
+
+  @Test
+  void testRowsAreReadInOrder() {
+    OdometryRingBuffer ringBuffer = new OdometryRingBuffer(4, 2);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(ringBuffer.tryClaim());
+      ringBuffer.put(0, i);
+      ringBuffer.put(1, i * 10);
+      ringBuffer.publish();
+    }
+
+    assertEquals(3, ringBuffer.beginRead());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, ringBuffer.get(i, 0));
+      assertEquals(i * 10, ringBuffer.get(i, 1));
+    }
+    ringBuffer.endRead();
+    assertEquals(0, ringBuffer.beginRead());
+  }
+
+  @Test
+  void testFullBufferDropsNewRows() {
+    OdometryRingBuffer ringBuffer = new OdometryRingBuffer(2, 1);
+    for (int i = 0; i < 3; i++) {
+      if (ringBuffer.tryClaim()) ringBuffer.put(0, i);
+      ringBuffer.publish();
+    }
+
+    assertEquals(1, ringBuffer.getDroppedRows());
+    assertEquals(2, ringBuffer.beginRead());
+    assertEquals(0, ringBuffer.get(0, 0));
+    assertEquals(1, ringBuffer.get(1, 0));
+    ringBuffer.endRead();
+
+    // Rows are reused once they have been read
+    assertTrue(ringBuffer.tryClaim());
+    ringBuffer.put(0, 3);
+    ringBuffer.publish();
+    assertEquals(1, ringBuffer.beginRead());
+    assertEquals(3, ringBuffer.get(0, 0));
+  }
+
+  @Test
+  void testCapacityMustBePowerOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new OdometryRingBuffer(10, 1));
+  }
+}
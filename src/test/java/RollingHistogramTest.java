@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.extras.debug.RollingHistogram;
+import org.junit.jupiter.api.Test;
+
+class RollingHistogramTest {
+  private static final double EPSILON = 1e-9;
+
+  @Test
+  void testPercentilesResolveToBucketEdges() {
+    final RollingHistogram histogram = new RollingHistogram(100, 1.0, 200);
+    // One value in the middle of each of the first 100 buckets
+    for (int i = 0; i < 100; i++) histogram.record(i + 0.5);
+
+    assertEquals(100, histogram.getCount());
+    assertEquals(1.0, histogram.getPercentile(0.0), EPSILON);
+    assertEquals(50.0, histogram.getPercentile(0.5), EPSILON);
+    assertEquals(90.0, histogram.getPercentile(0.9), EPSILON);
+    assertEquals(99.0, histogram.getPercentile(0.99), EPSILON);
+    // The last bucket edge is past every value, so it is capped at the largest one
+    assertEquals(99.5, histogram.getPercentile(1.0), EPSILON);
+    assertEquals(0.5, histogram.getMin(), EPSILON);
+    assertEquals(99.5, histogram.getMax(), EPSILON);
+    assertEquals(50.0, histogram.getMean(), EPSILON);
+  }
+
+  @Test
+  void testValuesPastLastBucket() {
+    final RollingHistogram histogram = new RollingHistogram(10, 1.0, 5);
+    histogram.record(0.5);
+    histogram.record(42.0);
+
+    assertEquals(1.0, histogram.getPercentile(0.5), EPSILON);
+    assertEquals(5.0, histogram.getPercentile(1.0), EPSILON);
+    assertEquals(42.0, histogram.getMax(), EPSILON);
+  }
+
+  @Test
+  void testEvictsOldestValues() {
+    final RollingHistogram histogram = new RollingHistogram(4, 1.0, 20);
+    for (int i = 0; i < 4; i++) histogram.record(10.5);
+    histogram.record(1.5);
+    histogram.record(1.5);
+
+    // Two of the slow values are left
+    assertEquals(4, histogram.getCount());
+    assertEquals(6.0, histogram.getMean(), EPSILON);
+    assertEquals(1.5, histogram.getMin(), EPSILON);
+    assertEquals(2.0, histogram.getPercentile(0.5), EPSILON);
+    assertEquals(10.5, histogram.getPercentile(1.0), EPSILON);
+
+    histogram.record(1.5);
+    histogram.record(1.5);
+
+    // Every slow value is gone
+    assertEquals(1.5, histogram.getMean(), EPSILON);
+    assertEquals(1.5, histogram.getMax(), EPSILON);
+    assertEquals(1.5, histogram.getPercentile(1.0), EPSILON);
+  }
+
+  @Test
+  void testReset() {
+    final RollingHistogram histogram = new RollingHistogram(4, 1.0, 20);
+    for (int i = 0; i < 6; i++) histogram.record(i);
+    histogram.reset();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0.0, histogram.getMean(), EPSILON);
+    assertEquals(0.0, histogram.getPercentile(0.5), EPSILON);
+
+    histogram.record(3.5);
+    assertEquals(1, histogram.getCount());
+    assertEquals(3.5, histogram.getMin(), EPSILON);
+    // Capped at the only value, below the edge of its bucket
+    assertEquals(3.5, histogram.getPercentile(1.0), EPSILON);
+  }
+}
@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.extras.simulation.field.CrescendoFieldSimulation;
+import frc.robot.extras.simulation.field.SimulatedField;
+import frc.robot.extras.simulation.mechanismSim.swerve.GyroSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveDriveSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveModuleSimulation;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import frc.robot.subsystems.swerve.SwerveModule;
+import frc.robot.subsystems.swerve.gyroIO.GyroInterface.GyroInputs;
+import frc.robot.subsystems.swerve.gyroIO.SimulatedGyro;
+import frc.robot.subsystems.swerve.moduleIO.SimulatedModule;
+import frc.robot.subsystems.swerve.odometryThread.OdometryThread;
+import frc.robot.subsystems.swerve.odometryThread.OdometryThread.OdometryThreadInputs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SimulatedOdometryTest {
+  /* more than the 16 samples the real odometry thread buffers per loop */
+  private static final int SUB_TICKS = 20;
+
+  @BeforeAll
+  static void initializeHal() {
+    HAL.initialize(500, 0);
+  }
+
+  @AfterEach
+  void resetArena() {
+    SimulatedField.overrideInstance(null);
+  }
+
+  @Test
+  void testOneSamplePerSubTick() {
+    final SimulatedField arena = new CrescendoFieldSimulation(0.02, SUB_TICKS, 4829);
+    SimulatedField.overrideInstance(arena);
+    final GyroSimulation gyroSimulation = GyroSimulation.createPigeon2();
+    final SwerveDriveSimulation driveSimulation =
+        new SwerveDriveSimulation(
+            SimulationConstants.ROBOT_MASS_KG,
+            DriveConstants.TRACK_WIDTH,
+            DriveConstants.WHEEL_BASE,
+            SimulationConstants.BUMPER_WIDTH_METERS,
+            SimulationConstants.BUMPER_LENGTH_METERS,
+            SwerveModuleSimulation.getModule(
+                SimulationConstants.DRIVE_MOTOR,
+                SimulationConstants.STEER_MOTOR,
+                SimulationConstants.DRIVE_CURRENT_LIMIT,
+                SwerveModuleSimulation.DRIVE_WHEEL_TYPE.TIRE,
+                SimulationConstants.DRIVE_GEAR_RATIO),
+            gyroSimulation,
+            new Pose2d(8, 4, new Rotation2d()));
+    arena.addDriveTrainSimulation(driveSimulation);
+
+    final SwerveModuleSimulation moduleSimulation = driveSimulation.getModules()[0];
+    final SwerveModule module = new SwerveModule(new SimulatedModule(moduleSimulation), "Test");
+    final SimulatedGyro gyro = new SimulatedGyro(gyroSimulation);
+    final OdometryThread odometryThread = new OdometryThread.OdometryThreadSim();
+    final OdometryThreadInputs odometryInputs = new OdometryThreadInputs();
+    final GyroInputs gyroInputs = new GyroInputs();
+
+    for (int period = 0; period < 10; period++) {
+      for (SwerveModuleSimulation simulation : driveSimulation.getModules())
+        simulation.requestDriveVoltageOut(6.0);
+      arena.simulationPeriodic();
+
+      odometryThread.updateInputs(odometryInputs);
+      module.updateOdometryInputs();
+      module.updateOdometryPositions(odometryInputs.measurementTimeStamps);
+      gyro.updateInputs(gyroInputs);
+
+      assertEquals(SUB_TICKS, odometryInputs.measurementTimeStamps.length);
+      assertEquals(SUB_TICKS, gyroInputs.odometryYawPositionsDegrees.length);
+      assertArrayEquals(odometryInputs.measurementTimeStamps, gyroInputs.odometryYawTimestamps);
+      assertEquals(SUB_TICKS, module.getOdometryPositionsCount());
+    }
+
+    // Every sample of the last period is used, and the robot kept moving through all of them
+    final double[] distancesMeters = module.getOdometryDistancesMeters();
+    for (int i = 1; i < SUB_TICKS; i++) assertTrue(distancesMeters[i] > distancesMeters[i - 1]);
+  }
+}
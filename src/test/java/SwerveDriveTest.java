@@ -12,6 +12,9 @@ import frc.robot.subsystems.swerve.*;
 import frc.robot.subsystems.swerve.gyroIO.GyroInterface;
 import frc.robot.subsystems.swerve.moduleIO.ModuleInterface;
 import frc.robot.subsystems.swerve.odometryThread.OdometryThread;
+import frc.robot.subsystems.swerve.poseEstimator.SwervePoseEstimator;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -80,4 +83,72 @@ class SwerveDriveTest {
     // Verify that the setPose method was called with the new pose
     verify(swerveDrive).setPose(eq(newPose));
   }
+
+  @Test
+  void testAddVisionMeasurementsInTimestampOrder() {
+    Pose2d pose = new Pose2d(1.0, 1.0, new Rotation2d());
+    VisionMeasurement older = new VisionMeasurement(pose, 0.1, 1, 1, 1);
+    VisionMeasurement newer = new VisionMeasurement(pose, 0.2, 1, 1, 1);
+    List<VisionMeasurement> measurements = new ArrayList<>(List.of(newer, older));
+
+    swerveDrive.addPoseEstimatorVisionMeasurements(measurements);
+
+    assertEquals(List.of(older, newer), measurements);
+  }
+
+  /** Creates an estimator that saw the robot drive forwards at 1 m/s for a second. */
+  private static SwervePoseEstimator createDrivenEstimator() {
+    final SwervePoseEstimator estimator = new SwervePoseEstimator(0.03, 0.03, 0.03, 375);
+    estimator.resetPosition(0, 0, 0);
+    for (int sample = 0; sample <= 250; sample++)
+      estimator.addOdometrySample(sample * 0.004, sample * 0.004, 0, 0);
+    return estimator;
+  }
+
+  @Test
+  void testEachVisionMeasurementUsesItsOwnStandardDeviations() {
+    final SwerveDrive drive =
+        new SwerveDrive(
+            gyroIO,
+            frontLeftModuleIO,
+            frontRightModuleIO,
+            backLeftModuleIO,
+            backRightModuleIO,
+            createDrivenEstimator());
+    final Pose2d tightPose = new Pose2d(0.3, 0.5, new Rotation2d(0.1));
+    final Pose2d loosePose = new Pose2d(1.2, -0.5, new Rotation2d(-0.2));
+    final VisionMeasurement tight = new VisionMeasurement(tightPose, 0.3, 0.05, 0.05, 0.05);
+    final VisionMeasurement loose = new VisionMeasurement(loosePose, 0.6, 2.0, 2.0, 2.0);
+    drive.addPoseEstimatorVisionMeasurements(new ArrayList<>(List.of(loose, tight)));
+
+    // Each measurement applied on its own with its own standard deviations
+    final SwervePoseEstimator expected = createDrivenEstimator();
+    expected.addVisionMeasurement(0.3, 0.3, 0.5, 0.1, 0.05, 0.05, 0.05);
+    expected.addVisionMeasurement(0.6, 1.2, -0.5, -0.2, 2.0, 2.0, 2.0);
+    assertEquals(expected.getXMeters(), drive.getPose().getX(), 1e-9);
+    assertEquals(expected.getYMeters(), drive.getPose().getY(), 1e-9);
+    assertEquals(expected.getHeadingRad(), drive.getPose().getRotation().getRadians(), 1e-9);
+
+    // Sharing either camera's confidence would have given another pose
+    for (double sharedStandardDeviation : new double[] {0.05, 2.0}) {
+      final SwervePoseEstimator shared = createDrivenEstimator();
+      shared.addVisionMeasurement(
+          0.3,
+          0.3,
+          0.5,
+          0.1,
+          sharedStandardDeviation,
+          sharedStandardDeviation,
+          sharedStandardDeviation);
+      shared.addVisionMeasurement(
+          0.6,
+          1.2,
+          -0.5,
+          -0.2,
+          sharedStandardDeviation,
+          sharedStandardDeviation,
+          sharedStandardDeviation);
+      assertNotEquals(shared.getYMeters(), drive.getPose().getY(), 1e-3);
+    }
+  }
 }
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.extras.simulation.field.CrescendoFieldSimulation;
+import frc.robot.extras.simulation.field.SimulatedField;
+import frc.robot.extras.simulation.mechanismSim.swerve.CachedReadings;
+import frc.robot.extras.simulation.mechanismSim.swerve.GyroSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveDriveSimulation;
+import frc.robot.extras.simulation.mechanismSim.swerve.SwerveModuleSimulation;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.SwerveConstants.SimulationConstants;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class SwerveModuleArraySimulationTest {
+  private static final double EPSILON = 1e-6;
+  private static final int SUB_TICKS = 10;
+
+  @BeforeAll
+  static void initializeHal() {
+    HAL.initialize(500, 0);
+  }
+
+  private static SwerveDriveSimulation createDriveSimulation(SimulatedField arena) {
+    final SwerveDriveSimulation driveSimulation =
+        new SwerveDriveSimulation(
+            SimulationConstants.ROBOT_MASS_KG,
+            DriveConstants.TRACK_WIDTH,
+            DriveConstants.WHEEL_BASE,
+            SimulationConstants.BUMPER_WIDTH_METERS,
+            SimulationConstants.BUMPER_LENGTH_METERS,
+            SwerveModuleSimulation.getModule(
+                SimulationConstants.DRIVE_MOTOR,
+                SimulationConstants.STEER_MOTOR,
+                SimulationConstants.DRIVE_CURRENT_LIMIT,
+                SwerveModuleSimulation.DRIVE_WHEEL_TYPE.TIRE,
+                SimulationConstants.DRIVE_GEAR_RATIO),
+            GyroSimulation.createPigeon2(),
+            new Pose2d(8, 4, new Rotation2d()));
+    arena.addDriveTrainSimulation(driveSimulation);
+    return driveSimulation;
+  }
+
+  /**
+   * The one-by-one path runs the original model of each module, a BrushlessMotorSim for the turn
+   * motor and the DCMotor equations for the drive motor, so this checks the inlined model of the
+   * arrays against it. The drive voltages are high enough to hit the current limit and skid.
+   */
+  @Test
+  void testBatchedUpdateMatchesOriginalModel() {
+    final SimulatedField oneByOneArena = new CrescendoFieldSimulation(0.02, SUB_TICKS, 4829);
+    final SimulatedField batchedArena = new CrescendoFieldSimulation(0.02, SUB_TICKS, 4829);
+    final SwerveDriveSimulation oneByOne = createDriveSimulation(oneByOneArena);
+    final SwerveDriveSimulation batched = createDriveSimulation(batchedArena);
+    oneByOne.setBatchedModuleSimulation(false);
+
+    for (int period = 0; period < 100; period++) {
+      for (int i = 0; i < 4; i++) {
+        // The left and right modules push differently, so the robot drives and turns
+        final double driveVolts = (i % 2 == 0 ? 12.0 : 3.0) * (period < 60 ? 1 : -1);
+        oneByOne.getModules()[i].requestDriveVoltageOut(driveVolts);
+        batched.getModules()[i].requestDriveVoltageOut(driveVolts);
+      }
+      oneByOneArena.simulationPeriodic();
+      batchedArena.simulationPeriodic();
+
+      final Pose2d expectedPose = oneByOne.getSimulatedDriveTrainPose();
+      final Pose2d actualPose = batched.getSimulatedDriveTrainPose();
+      assertEquals(expectedPose.getX(), actualPose.getX(), EPSILON);
+      assertEquals(expectedPose.getY(), actualPose.getY(), EPSILON);
+      assertEquals(
+          expectedPose.getRotation().getRadians(), actualPose.getRotation().getRadians(), EPSILON);
+      for (int i = 0; i < 4; i++)
+        assertArrayEquals(
+            oneByOne.getModules()[i].getCachedDriveEncoderUnGearedPositionsRad(),
+            batched.getModules()[i].getCachedDriveEncoderUnGearedPositionsRad(),
+            EPSILON);
+    }
+
+    assertNotEquals(0.0, batched.getSimulatedDriveTrainPose().getRotation().getRadians());
+  }
+
+  @Test
+  void testCachedReadingsAreOldestFirst() {
+    final SimulatedField arena = new CrescendoFieldSimulation(0.02, SUB_TICKS, 4829);
+    final SwerveModuleSimulation module = createDriveSimulation(arena).getModules()[0];
+    for (int period = 0; period < 3; period++) {
+      module.requestDriveVoltageOut(6.0);
+      arena.simulationPeriodic();
+      final double[] positionsRad = module.getCachedDriveEncoderUnGearedPositionsRad();
+      assertEquals(SUB_TICKS, positionsRad.length);
+      for (int subTick = 1; subTick < SUB_TICKS; subTick++)
+        assertTrue(positionsRad[subTick] > positionsRad[subTick - 1]);
+      assertEquals(
+          module.getDriveEncoderUnGearedPositionRad(), positionsRad[SUB_TICKS - 1], EPSILON);
+    }
+  }
+
+  @Test
+  void testViewFollowsModuleIntoDriveTrain() {
+    final SwerveModuleSimulation[] modules = new SwerveModuleSimulation[4];
+    for (int i = 0; i < modules.length; i++)
+      modules[i] =
+          SwerveModuleSimulation.getModule(
+                  SimulationConstants.DRIVE_MOTOR,
+                  SimulationConstants.STEER_MOTOR,
+                  SimulationConstants.DRIVE_CURRENT_LIMIT,
+                  SwerveModuleSimulation.DRIVE_WHEEL_TYPE.TIRE,
+                  SimulationConstants.DRIVE_GEAR_RATIO)
+              .get();
+    // Taken before the drivetrain moves the module into its own arrays
+    final CachedReadings view = modules[2].getCachedDriveWheelFinalPositionsRadView();
+
+    final SimulatedField arena = new CrescendoFieldSimulation(0.02, SUB_TICKS, 4829);
+    arena.addDriveTrainSimulation(
+        new SwerveDriveSimulation(
+            SimulationConstants.ROBOT_MASS_KG,
+            SimulationConstants.BUMPER_WIDTH_METERS,
+            SimulationConstants.BUMPER_LENGTH_METERS,
+            modules,
+            DriveConstants.MODULE_TRANSLATIONS,
+            GyroSimulation.createPigeon2(),
+            new Pose2d(8, 4, new Rotation2d())));
+    for (SwerveModuleSimulation module : modules) module.requestDriveVoltageOut(6.0);
+    arena.simulationPeriodic();
+
+    assertArrayEquals(
+        modules[2].getCachedDriveWheelFinalPositionsRad(), view.copyTo(new double[SUB_TICKS]));
+    assertEquals(modules[2].getDriveEncoderFinalPositionRad(), view.get(SUB_TICKS - 1), EPSILON);
+  }
+}
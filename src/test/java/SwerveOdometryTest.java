@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.management.ThreadMXBean;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.subsystems.swerve.SwerveConstants.DriveConstants;
+import frc.robot.subsystems.swerve.odometryThread.OdometryInterpolation;
+import frc.robot.subsystems.swerve.poseEstimator.SwerveOdometry;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SwerveOdometryTest {
+  private static final double EPSILON = 1e-9;
+
+  private SwerveOdometry odometry;
+  private final double[] distancesMeters = new double[4];
+  private final double[] anglesRad = new double[4];
+
+  @BeforeEach
+  void setUp() {
+    odometry = new SwerveOdometry(DriveConstants.MODULE_TRANSLATIONS);
+    odometry.resetPosition(0, 0, 0, Double.NaN, distancesMeters);
+  }
+
+  @Test
+  void testDriveStraight() {
+    for (int sample = 1; sample <= 100; sample++) {
+      for (int module = 0; module < 4; module++) {
+        distancesMeters[module] = sample * 0.01;
+        anglesRad[module] = Math.PI / 2;
+      }
+      odometry.update(distancesMeters, anglesRad, Double.NaN);
+    }
+
+    assertEquals(0.0, odometry.getXMeters(), EPSILON);
+    assertEquals(1.0, odometry.getYMeters(), EPSILON);
+    assertEquals(0.0, odometry.getHeadingRad(), EPSILON);
+  }
+
+  @Test
+  void testSpinInPlaceWithoutGyro() {
+    // Every module drives half of its turning circle, tangent to it
+    for (int sample = 1; sample <= 100; sample++) {
+      for (int module = 0; module < 4; module++) {
+        final Translation2d translation = DriveConstants.MODULE_TRANSLATIONS[module];
+        distancesMeters[module] = sample * translation.getNorm() * Math.PI / 100;
+        anglesRad[module] = Math.atan2(translation.getX(), -translation.getY());
+      }
+      odometry.update(distancesMeters, anglesRad, Double.NaN);
+    }
+
+    assertEquals(0.0, odometry.getXMeters(), EPSILON);
+    assertEquals(0.0, odometry.getYMeters(), EPSILON);
+    assertEquals(Math.PI, odometry.getHeadingRad(), EPSILON);
+  }
+
+  @Test
+  void testGyroOverridesWheelHeading() {
+    odometry.update(distancesMeters, anglesRad, 0.0);
+    odometry.update(distancesMeters, anglesRad, 0.5);
+
+    assertEquals(0.5, odometry.getHeadingRad(), EPSILON);
+    assertEquals(0.0, odometry.getWheelDeltaHeadingRad(), EPSILON);
+  }
+
+  @Test
+  void testOdometryPathDoesNotAllocate() {
+    final double[] timestamps = {0.000, 0.004, 0.008, 0.012};
+    final double[] yawDegrees = {0.0, 1.0, 2.0, 3.0};
+    final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+
+    // Repeat the measurement so JIT compilation happening on this thread is not counted
+    long allocatedBytes = Long.MAX_VALUE;
+    for (int attempt = 0; attempt < 5; attempt++) {
+      final long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+      for (int sample = 0; sample < 10_000; sample++) {
+        for (int module = 0; module < 4; module++) {
+          distancesMeters[module] =
+              OdometryInterpolation.interpolate(timestamps, yawDegrees, sample * 1e-3, 0.0);
+          anglesRad[module] =
+              OdometryInterpolation.interpolateAngle(timestamps, yawDegrees, 0.006, 360, 0.0);
+        }
+        odometry.update(distancesMeters, anglesRad, sample * 1e-3);
+      }
+      allocatedBytes =
+          Math.min(allocatedBytes, threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore);
+    }
+
+    assertEquals(0, allocatedBytes);
+  }
+}
@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.subsystems.swerve.poseEstimator.SwervePoseEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SwervePoseEstimatorTest {
+  private static final double EPSILON = 1e-9;
+  private static final double STATE_STANDARD_DEVIATION = 0.03;
+  private static final double VISION_STANDARD_DEVIATION = 0.5;
+
+  /* the Kalman gain of every axis, q / (q + sqrt(q * r)) */
+  private static final double GAIN =
+      square(STATE_STANDARD_DEVIATION)
+          / (square(STATE_STANDARD_DEVIATION)
+              + STATE_STANDARD_DEVIATION * VISION_STANDARD_DEVIATION);
+
+  private SwervePoseEstimator estimator;
+
+  private static double square(double value) {
+    return value * value;
+  }
+
+  @BeforeEach
+  void setUp() {
+    estimator =
+        new SwervePoseEstimator(
+            STATE_STANDARD_DEVIATION, STATE_STANDARD_DEVIATION, STATE_STANDARD_DEVIATION, 375);
+    estimator.resetPosition(0, 0, 0);
+  }
+
+  /** Drives forwards at 1 m/s for a second, sampled at 250 Hz. */
+  private void driveForwards() {
+    for (int sample = 0; sample <= 250; sample++)
+      estimator.addOdometrySample(sample * 0.004, sample * 0.004, 0, 0);
+  }
+
+  private boolean addVisionMeasurement(double timestamp, double x, double y, double heading) {
+    return estimator.addVisionMeasurement(
+        timestamp,
+        x,
+        y,
+        heading,
+        VISION_STANDARD_DEVIATION,
+        VISION_STANDARD_DEVIATION,
+        VISION_STANDARD_DEVIATION);
+  }
+
+  @Test
+  void testFollowsOdometryWithoutVision() {
+    driveForwards();
+
+    assertEquals(1.0, estimator.getXMeters(), EPSILON);
+    assertEquals(0.0, estimator.getYMeters(), EPSILON);
+    assertEquals(0.0, estimator.getHeadingRad(), EPSILON);
+  }
+
+  @Test
+  void testLateMeasurementIsFusedAtItsTimestamp() {
+    driveForwards();
+
+    // Between two samples, the odometry was at x = 0.501
+    assertTrue(addVisionMeasurement(0.501, 1.501, 1.0, 0));
+
+    assertEquals(1.0 + GAIN, estimator.getXMeters(), EPSILON);
+    assertEquals(GAIN, estimator.getYMeters(), EPSILON);
+    assertEquals(0.0, estimator.getHeadingRad(), EPSILON);
+  }
+
+  @Test
+  void testEstimateDoesNotDependOnArrivalOrder() {
+    driveForwards();
+    addVisionMeasurement(0.3, 0.3, 1.0, 0.1);
+    addVisionMeasurement(0.5, 1.5, 1.0, 0);
+    addVisionMeasurement(0.8, 0.9, -0.5, 0.2);
+    final double inOrderX = estimator.getXMeters();
+    final double inOrderY = estimator.getYMeters();
+    final double inOrderHeading = estimator.getHeadingRad();
+
+    setUp();
+    driveForwards();
+    addVisionMeasurement(0.8, 0.9, -0.5, 0.2);
+    addVisionMeasurement(0.3, 0.3, 1.0, 0.1);
+    addVisionMeasurement(0.5, 1.5, 1.0, 0);
+
+    assertEquals(inOrderX, estimator.getXMeters(), EPSILON);
+    assertEquals(inOrderY, estimator.getYMeters(), EPSILON);
+    assertEquals(inOrderHeading, estimator.getHeadingRad(), EPSILON);
+
+    // The newer measurements were not dropped, they pull the estimate past a single correction
+    assertNotEquals(GAIN, estimator.getYMeters(), 1e-3);
+  }
+
+  @Test
+  void testHeadingCorrection() {
+    for (int sample = 0; sample <= 250; sample++)
+      estimator.addOdometrySample(sample * 0.004, 0, 0, sample * 0.004);
+    addVisionMeasurement(1.0, 0, 0, 1.2);
+
+    assertEquals(1.0 + 0.2 * GAIN, estimator.getHeadingRad(), EPSILON);
+  }
+
+  @Test
+  void testIgnoresMeasurementOlderThanHistory() {
+    assertFalse(addVisionMeasurement(0.0, 1.0, 1.0, 0));
+
+    driveForwards();
+    assertFalse(
+        addVisionMeasurement(1.0 - SwervePoseEstimator.HISTORY_SECONDS - 0.1, 1.0, 1.0, 0));
+    assertEquals(0.0, estimator.getYMeters(), EPSILON);
+  }
+}
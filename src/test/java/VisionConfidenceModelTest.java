@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import frc.robot.subsystems.vision.VisionConfidenceModel;
+import org.junit.jupiter.api.Test;
+
+class VisionConfidenceModelTest {
+  private static final double[][] ONE_TAG_TABLE = {{0, 0.1, 0.1, 1}, {2, 0.5, 0.5, 3}};
+  private static final double[][] MULTI_TAG_TABLE = {{0, 0.01, 0.01, 1}, {1, 0.02, 0.02, 1}};
+
+  private final double[] standardDeviations = new double[3];
+
+  @Test
+  void testTagCountLookupTables() {
+    VisionConfidenceModel model =
+        VisionConfidenceModel.tagCountLookupTables(ONE_TAG_TABLE, MULTI_TAG_TABLE);
+
+    model.getStandardDeviations(1, 1.0, standardDeviations);
+    assertArrayEquals(new double[] {0.3, 0.3, 2}, standardDeviations, 1e-9);
+
+    // Past the end of the table, the last row is used
+    model.getStandardDeviations(3, 5.0, standardDeviations);
+    assertArrayEquals(new double[] {0.02, 0.02, 1}, standardDeviations, 1e-9);
+  }
+
+  @Test
+  void testDistanceSquaredScaling() {
+    VisionConfidenceModel model = VisionConfidenceModel.distanceSquaredScaling(0.1, 0.2, 0.5);
+
+    model.getStandardDeviations(2, 3.0, standardDeviations);
+    assertArrayEquals(new double[] {0.45, 0.9, 2.25}, standardDeviations, 1e-9);
+
+    // Closer than a meter is trusted as much as a meter away
+    model.getStandardDeviations(1, 0.2, standardDeviations);
+    assertArrayEquals(new double[] {0.1, 0.2, 0.5}, standardDeviations, 1e-9);
+  }
+}
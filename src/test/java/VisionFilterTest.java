@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.subsystems.vision.VisionFilter;
+import frc.robot.subsystems.vision.VisionFilter.Verdict;
+import frc.robot.subsystems.vision.VisionObservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VisionFilterTest {
+  private VisionFilter filter;
+  private VisionFilter.Frame frame;
+
+  @BeforeEach
+  void setUp() {
+    filter = VisionFilter.createDefault();
+    frame = new VisionFilter.Frame();
+    frame.xStandardDeviation = 0.3;
+    frame.yStandardDeviation = 0.3;
+    frame.thetaStandardDeviation = 0.5;
+    frame.estimatedPose[0] = 2.0;
+    frame.estimatedPose[1] = 3.0;
+    frame.estimatedPose[2] = Math.PI;
+    frame.estimateCovariance[0] = 0.01;
+    frame.estimateCovariance[4] = 0.01;
+    frame.estimateCovariance[8] = 0.0025;
+  }
+
+  private static VisionObservation observation(
+      double x, double y, double headingRad, int tagCount, double spanMeters, double ambiguity) {
+    return new VisionObservation(
+        0, new Pose2d(x, y, new Rotation2d(headingRad)), 1.0, tagCount, 2.0, spanMeters, ambiguity);
+  }
+
+  @Test
+  void testAcceptsFrameNearEstimate() {
+    // Just across +-180 degrees from the estimate, which is still close
+    frame.observation = observation(2.1, 2.9, -Math.PI + 0.05, 1, 0, 0.05);
+
+    assertEquals(Verdict.ACCEPTED, filter.check(frame));
+    assertTrue(frame.mahalanobisDistanceSquared < 1);
+  }
+
+  @Test
+  void testRejectsOutlier() {
+    frame.observation = observation(4.0, 3.0, Math.PI, 2, 1.0, 0.05);
+
+    assertEquals(Verdict.OUTLIER, filter.check(frame));
+  }
+
+  @Test
+  void testGateFollowsEstimateCovariance() {
+    frame.observation = observation(3.5, 3.0, Math.PI, 2, 1.0, 0.05);
+    assertEquals(Verdict.OUTLIER, filter.check(frame));
+
+    // The same frame is plausible once the estimate itself is uncertain
+    frame.estimateCovariance[0] = 1.0;
+    assertEquals(Verdict.ACCEPTED, filter.check(frame));
+  }
+
+  @Test
+  void testGateUsesCorrelation() {
+    // The estimate is unsure where it is along x = y, but sure across it
+    frame.estimateCovariance[0] = 1.0;
+    frame.estimateCovariance[1] = 0.99;
+    frame.estimateCovariance[3] = 0.99;
+    frame.estimateCovariance[4] = 1.0;
+
+    frame.observation = observation(3.0, 4.0, Math.PI, 2, 1.0, 0.05);
+    assertEquals(Verdict.ACCEPTED, filter.check(frame));
+
+    frame.observation = observation(3.0, 2.0, Math.PI, 2, 1.0, 0.05);
+    assertEquals(Verdict.OUTLIER, filter.check(frame));
+  }
+
+  @Test
+  void testRejectsAmbiguousSingleTag() {
+    frame.observation = observation(2.0, 3.0, Math.PI, 1, 0, 0.6);
+    assertEquals(Verdict.AMBIGUOUS, filter.check(frame));
+
+    // Tags far enough apart resolve the ambiguity of each one
+    frame.observation = observation(2.0, 3.0, Math.PI, 2, 1.0, 0.6);
+    assertEquals(Verdict.ACCEPTED, filter.check(frame));
+  }
+
+  @Test
+  void testRejectsWhileSpinning() {
+    frame.observation = observation(2.0, 3.0, Math.PI, 2, 1.0, 0.05);
+    frame.angularRateDegreesPerSecond = -1000;
+
+    assertEquals(Verdict.ROBOT_SPINNING, filter.check(frame));
+    assertEquals(1, filter.getCount(Verdict.ROBOT_SPINNING));
+    assertEquals(0, filter.getCount(Verdict.ACCEPTED));
+  }
+}